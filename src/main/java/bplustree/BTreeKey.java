@@ -1,5 +1,8 @@
 package bplustree;
 
+/**
+ * Key paired with a pointer to where it is stored, for paged trees the byte offset of the page holding it
+ */
 public class BTreeKey<Value> {
     private Value key;
     private Long pointer;
@@ -1,28 +1,85 @@
 package bplustree;
 
 import com.google.common.annotations.Beta;
+import utility.CircularFifoQueue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.function.BiFunction;
+
+import static utility.Utils.searchLeftmostKey;
 
 public class BplusTree<Key extends Comparable<Key>, Value> {
-    private BplusTreeNode<Key, Value> _root = new BplusTreeLeafNode<Key, Value>(null, null, null, this);
-    private BplusTreeLeafNode recentlyUsed;
+    private final int leafCapacity, branchCapacity;
+    private BplusTreeNode<Key, Value> _root;
+    private final BplusTreeFingers<Key, Value> fingers;
+    private BplusTreeLeafNode<Key, Value> head, tail;
     private int hit = 0, miss = 0;
-    private boolean cacheDisabled = false;
+    private final BplusTreeCompaction<Key, Value> compaction = new BplusTreeCompaction<>(this);
 
     public BplusTree() {
         this(false);
     }
 
     public BplusTree(boolean cacheDisabled) {
-        this.cacheDisabled = cacheDisabled;
+        this(BplusTreeNode.DEFAULT_CAPACITY, BplusTreeNode.DEFAULT_CAPACITY, cacheDisabled);
+    }
+
+    public BplusTree(int leafCapacity, int branchCapacity) {
+        this(leafCapacity, branchCapacity, false);
+    }
+
+    /**
+     * @param leafCapacity  number of slots of every leaf node, a leaf splits once all of them are taken
+     * @param branchCapacity  number of slots of every branch node, a branch splits once all of them are taken
+     * @throws IllegalArgumentException if a capacity is smaller than 3
+     */
+    public BplusTree(int leafCapacity, int branchCapacity, boolean cacheDisabled) {
+        this(leafCapacity, branchCapacity, cacheDisabled ? 0 : BplusTreeFingers.DEFAULT_FINGERS);
+    }
+
+    /**
+     * @param fingers  number of hot key regions to cache a shortcut into the tree for, 0 disables the cache
+     * @throws IllegalArgumentException if a capacity is smaller than 3 or fingers is negative
+     */
+    public BplusTree(int leafCapacity, int branchCapacity, int fingers) {
+        if (leafCapacity < BplusTreeNode.MIN_CAPACITY || branchCapacity < BplusTreeNode.MIN_CAPACITY)
+            throw new IllegalArgumentException("Node capacity must be at least " + BplusTreeNode.MIN_CAPACITY);
+        if (fingers < 0)
+            throw new IllegalArgumentException("Finger count can't be negative");
+
+        this.leafCapacity = leafCapacity;
+        this.branchCapacity = branchCapacity;
+        this.fingers = new BplusTreeFingers<>(fingers);
+        this._root = new BplusTreeLeafNode<Key, Value>(null, null, null, this);
+    }
+
+    public int getLeafCapacity() {
+        return leafCapacity;
+    }
+
+    public int getBranchCapacity() {
+        return branchCapacity;
     }
 
     public boolean cacheEnabled() {
-        return !cacheDisabled;
+        return fingers.size() > 0;
     }
 
+    /**
+     * @return grandparent of the leaf the last operation ended in
+     */
     public BplusTreeBranchNode getRecentNode() {
-        if (cacheDisabled)
-            return null;
+        BplusTreeLeafNode recentlyUsed = fingers.recentLeaf();
         if (recentlyUsed != null && recentlyUsed.getParent() != null)
             return recentlyUsed.getParent().getParent();
         return null;
@@ -35,75 +92,843 @@ public class BplusTree<Key extends Comparable<Key>, Value> {
         return miss;
     }
 
+    public int getFingerCount() {
+        return fingers.size();
+    }
+
+    /**
+     * @return operations that started from the given finger
+     */
+    public int getHit(int finger) {
+        return fingers.getHits(finger);
+    }
+
+    /**
+     * @return operations that descended from the root and then took over the given finger
+     */
+    public int getMiss(int finger) {
+        return fingers.getMisses(finger);
+    }
+
+    /**
+     * @return how many levels above its leaf the given finger currently starts operations from
+     */
+    @Beta
+    public int getFingerLevel(int finger) {
+        return fingers.getLevel(finger);
+    }
+
     @Beta
     public int getSampleDepth() {
+        BplusTreeLeafNode recentlyUsed = fingers.recentLeaf();
         return recentlyUsed == null ? -1 : recentlyUsed.getDepth();
     }
 
+    /**
+     * Called by the leaf an operation ends in, a null leaf drops every finger
+     */
     protected void setRecentlyUsed(BplusTreeLeafNode recentlyUsed) {
-        this.recentlyUsed = recentlyUsed;
+        if (recentlyUsed == null)
+            fingers.clear();
+        else
+            fingers.touch(recentlyUsed);
+    }
+
+    /**
+     * Drops the fingers pointing at a leaf that is being removed from the tree
+     */
+    void release(BplusTreeLeafNode<Key, Value> leaf) {
+        fingers.drop(leaf);
+        if (leaf == tail)
+            tail = null;
+        if (leaf == head)
+            head = null;
+    }
+
+    /**
+     * The cached first leaf stops being first once it splits, it is then looked up again from the root
+     */
+    private BplusTreeLeafNode<Key, Value> firstLeaf() {
+        if (head == null || head.getPrev() != null)
+            head = _root.firstLeaf();
+        return head;
+    }
+
+    /**
+     * Replaces an emptied root with a fresh leaf, the fingers and the cached first and last leaves go with the old root
+     */
+    private void resetRoot() {
+        _root = new BplusTreeLeafNode<Key, Value>(null, null, null, this);
+        head = tail = null;
+        fingers.clear();
+    }
+
+    /**
+     * The cached last leaf stops being last once it splits, it is then looked up again from the root
+     */
+    private BplusTreeLeafNode<Key, Value> lastLeaf() {
+        if (tail == null || tail.getNext() != null)
+            tail = _root.lastLeaf();
+        return tail;
+    }
+
+    /**
+     * @return the node an operation on key should start from, a finger's node on a hit and the root otherwise
+     */
+    private BplusTreeNode<Key, Value> startFor(Key key) throws BTreeException {
+        BplusTreeNode<Key, Value> node = fingers.lookup(key);
+        if (node == null) {
+            ++miss;
+            return _root;
+        }
+        ++hit;
+        return node;
     }
 
     public boolean isEmpty() {
         return _root.isEmpty();
     }
 
+    /**
+     * Keys past the largest one are appended to the last leaf without a search,
+     * and a last leaf filled this way splits off only the new entry instead of half of the leaf.
+     * Keys below the smallest one are prepended to the first leaf the same way.
+     */
     public void add(Key key, Value value) throws BTreeException {
-        if (getRecentNode() != null && getRecentNode().isInRange(key)) {
-            ++hit;
-            getRecentNode().add(key, value);
-        } else {
-            _root.add(key, value);
-            ++miss;
-        }
+        if (!addAtEdge(key, value))
+            startFor(key).add(key, value);
 
         if (_root.getParent() != null)
             _root = _root.getParent();
     }
-    public void remove(Key key) throws BTreeException {
-        if (getRecentNode() != null && getRecentNode().isInRange(key)) {
-            getRecentNode().remove(key);
-            ++hit;
+
+    /**
+     * Same as {@link #add(Comparable, Object)}, but a present key is reported instead of thrown
+     *
+     * @return whether the entry was added
+     * @throws BTreeException if key is null
+     */
+    public boolean tryAdd(Key key, Value value) throws BTreeException {
+        if (addAtEdge(key, value)) {
+            if (_root.getParent() != null)
+                _root = _root.getParent();
+            return true;
+        }
+
+        BplusTreeLeafNode<Key, Value> leaf = leafFor(key);
+        int idx = leaf.indexOf(key);
+        if (idx >= 0)
+            return false;
+
+        insert(leaf, -(idx + 1), key, value);
+        return true;
+    }
+
+    /**
+     * Appends a key past the largest one or prepends a key below the smallest one without a search
+     *
+     * @return whether key was at an edge of the tree and has been added
+     */
+    private boolean addAtEdge(Key key, Value value) throws BTreeException {
+        if (key == null)
+            return false;
+
+        BplusTreeLeafNode<Key, Value> last = lastLeaf();
+        if (!last.isEmpty() && key.compareTo(last.lastKey()) > 0) {
+            last.append(key, value);
+            return true;
+        }
+
+        BplusTreeLeafNode<Key, Value> first = firstLeaf();
+        if (!first.isEmpty() && key.compareTo(first.peekKey()) < 0) {
+            first.prepend(key, value);
+            return true;
+        }
+        return false;
+    }
+    /**
+     * Adds a batch of entries, merging every run of keys that lands in the same leaf in a single visit.
+     * Keys are sorted first when they are not already in ascending order.
+     * If a key is already present the exception is thrown once its leaf is reached,
+     * keys of the leaves merged before it stay in the tree.
+     *
+     * @throws BTreeException if a key is null, repeated in the batch or already present
+     */
+    public void addAll(Key[] keys, Value[] values) throws BTreeException {
+        if (keys.length != values.length)
+            throw new BTreeException("Keys and values should have the same length");
+
+        for (int i = 0; i < keys.length; i++)
+            if (keys[i] == null || values[i] == null)
+                throw new BTreeException("Can't work with null key or value");
+
+        boolean sorted = true;
+        for (int i = 1; i < keys.length && sorted; i++)
+            sorted = keys[i - 1].compareTo(keys[i]) < 0;
+
+        if (!sorted) {
+            Integer[] order = new Integer[keys.length];
+            for (int i = 0; i < order.length; i++)
+                order[i] = i;
+            Arrays.sort(order, (a, b) -> keys[a].compareTo(keys[b]));
+
+            Key[] sortedKeys = keys.clone();
+            Value[] sortedValues = values.clone();
+            for (int i = 0; i < order.length; i++) {
+                sortedKeys[i] = keys[order[i]];
+                sortedValues[i] = values[order[i]];
+            }
+            for (int i = 1; i < sortedKeys.length; i++)
+                if (sortedKeys[i - 1].compareTo(sortedKeys[i]) == 0)
+                    throw new BTreeException("Can't add repeated key " + sortedKeys[i].toString());
+
+            addAllSorted(sortedKeys, sortedValues);
         } else {
-            _root.remove(key);
-            ++miss;
+            addAllSorted(keys, values);
         }
+    }
+
+    private void addAllSorted(Key[] keys, Value[] values) throws BTreeException {
+        int from = 0;
+        while (from < keys.length) {
+            BplusTreeLeafNode<Key, Value> leaf = _root.findLeaf(keys[from]);
+            from = leaf.addAll(keys, values, from);
+
+            while (_root.getParent() != null)
+                _root = _root.getParent();
+        }
+    }
+
+    public void remove(Key key) throws BTreeException {
+        startFor(key).remove(key);
 
         if (_root.isEmpty())
-            _root = new BplusTreeLeafNode<Key, Value>(null, null, null, this);
+            resetRoot();
+        else
+            shrinkRoot();
+    }
+
+    /**
+     * Merges under the root can leave it with a single child, which then becomes the new root
+     */
+    void shrinkRoot() {
+        while (_root instanceof BplusTreeBranchNode && ((BplusTreeBranchNode<Key, Value>) _root).childCount() == 1) {
+            _root = ((BplusTreeBranchNode<Key, Value>) _root).getChild(0);
+            _root.setParent(null);
+        }
+    }
+
+    /**
+     * @return stored entries relative to what the leaves can hold at rest, 1.0 meaning every leaf is full
+     */
+    public double getLeafFillFactor() {
+        long entries = 0, leaves = 0;
+        for (BplusTreeLeafNode leaf = _root.firstLeaf(); leaf != null; leaf = leaf.getNext()) {
+            entries += leaf.size();
+            ++leaves;
+        }
+        return entries == 0 ? 0 : (double) entries / (leaves * (leafCapacity - 1));
     }
+
+    /**
+     * Repacks every level of the tree to {@code fillFactor} of its capacity in one go, see {@link #compactStep(double, int)}
+     */
+    public void compact(double fillFactor) throws BTreeException {
+        checkFillFactor(fillFactor);
+        compaction.reset();
+        while (!compaction.step(fillFactor, Integer.MAX_VALUE));
+    }
+
+    /**
+     * Runs a bounded slice of online compaction. Leaves are refilled from their successors to
+     * {@code fillFactor} of their capacity and emptied ones are released, then the branch levels
+     * are repacked the same way bottom-up, which can also lower the height of the tree.
+     * Consecutive calls continue the same pass, and the tree may be modified between them.
+     *
+     * @param maxNodes  nodes to visit in this slice
+     * @return whether a whole pass has completed
+     */
+    public boolean compactStep(double fillFactor, int maxNodes) throws BTreeException {
+        checkFillFactor(fillFactor);
+        return compaction.step(fillFactor, maxNodes);
+    }
+
+    private static void checkFillFactor(double fillFactor) {
+        if (!(fillFactor > 0 && fillFactor <= 1))
+            throw new IllegalArgumentException("Fill factor should be in (0, 1]");
+    }
+    /**
+     * Always starts from the root, since the cut trims every ancestor up to the root anyway.
+     * Fingers left of the cut survive, the ones pointing into the removed leaves are dropped
+     */
     public void removeFrom(Key key) throws BTreeException {
         _root.removeFrom(key);
+        tail = null;
 
         if (_root.isEmpty()) {
-            _root = new BplusTreeLeafNode<Key, Value>(null, null, null, this);
-            recentlyUsed = null;
+            resetRoot();
+        } else {
+            fingers.clearFrom(key);
+            _root.lastLeaf().setNext(null);
         }
     }
     public Value find(Key key) throws BTreeException {
-        if (getRecentNode() != null && getRecentNode().isInRange(key)) {
-            ++hit;
-            return (Value) getRecentNode().find(key);
+        return startFor(key).find(key);
+    }
+
+    /**
+     * @return the value stored for key, or {@code notFound} if key is not present
+     */
+    public Value find(Key key, Value notFound) throws BTreeException {
+        BplusTreeLeafNode<Key, Value> leaf = leafFor(key);
+        int idx = leaf.indexOf(key);
+        return idx < 0 ? notFound : leaf.getValue(idx);
+    }
+
+    public boolean contains(Key key) throws BTreeException {
+        return leafFor(key).indexOf(key) >= 0;
+    }
+
+    /**
+     * @return entry with the greatest key less than or equal to key, or null if there is none
+     */
+    public Map.Entry<Key, Value> floorEntry(Key key) throws BTreeException {
+        return entryNear(key, true, true);
+    }
+
+    /**
+     * @return entry with the least key greater than or equal to key, or null if there is none
+     */
+    public Map.Entry<Key, Value> ceilingEntry(Key key) throws BTreeException {
+        return entryNear(key, false, true);
+    }
+
+    /**
+     * @return entry with the greatest key strictly less than key, or null if there is none
+     */
+    public Map.Entry<Key, Value> lowerEntry(Key key) throws BTreeException {
+        return entryNear(key, true, false);
+    }
+
+    /**
+     * @return entry with the least key strictly greater than key, or null if there is none
+     */
+    public Map.Entry<Key, Value> higherEntry(Key key) throws BTreeException {
+        return entryNear(key, false, false);
+    }
+
+    /**
+     * Keys of the leaves before the one covering key are all smaller and those after it all greater,
+     * so when the answer is not in that leaf it is at the near end of a neighbouring leaf
+     */
+    private Map.Entry<Key, Value> entryNear(Key key, boolean below, boolean inclusive) throws BTreeException {
+        BplusTreeLeafNode<Key, Value> leaf = leafFor(key);
+        int idx = leaf.indexOf(key);
+        if (idx >= 0 && inclusive)
+            return new AbstractMap.SimpleImmutableEntry<>(leaf.getKey(idx), leaf.getValue(idx));
+
+        if (below)
+            idx = (idx >= 0 ? idx : -(idx + 1)) - 1;
+        else
+            idx = idx >= 0 ? idx + 1 : -(idx + 1);
+
+        while (leaf != null && idx < 0) {
+            leaf = leaf.getPrev();
+            idx = leaf == null ? 0 : leaf.size() - 1;
+        }
+        while (leaf != null && idx >= leaf.size()) {
+            leaf = leaf.getNext();
+            idx = 0;
+        }
+        return leaf == null ? null : new AbstractMap.SimpleImmutableEntry<>(leaf.getKey(idx), leaf.getValue(idx));
+    }
+
+    /**
+     * Same as {@link #remove(Comparable)}, but an absent key is reported instead of thrown
+     *
+     * @return the removed value, or null if key was not present
+     * @throws BTreeException if key is null
+     */
+    public Value removeIfPresent(Key key) throws BTreeException {
+        BplusTreeLeafNode<Key, Value> leaf = leafFor(key);
+        int idx = leaf.indexOf(key);
+        if (idx < 0)
+            return null;
+
+        Value value = leaf.getValue(idx);
+        removeAt(leaf, idx);
+        return value;
+    }
+
+    /**
+     * Stores value under key, replacing the value of a present key in place
+     *
+     * @return the previous value, or null if key was not present
+     */
+    public Value put(Key key, Value value) throws BTreeException {
+        BplusTreeLeafNode<Key, Value> leaf = leafFor(key);
+        int idx = leaf.indexOf(key);
+        if (idx >= 0) {
+            Value previous = leaf.getValue(idx);
+            leaf.setValue(idx, value);
+            return previous;
+        }
+
+        insert(leaf, -(idx + 1), key, value);
+        return null;
+    }
+
+    /**
+     * @return the present value, or null if value was added
+     */
+    public Value putIfAbsent(Key key, Value value) throws BTreeException {
+        BplusTreeLeafNode<Key, Value> leaf = leafFor(key);
+        int idx = leaf.indexOf(key);
+        if (idx >= 0)
+            return leaf.getValue(idx);
+
+        insert(leaf, -(idx + 1), key, value);
+        return null;
+    }
+
+    /**
+     * Replaces the value of key with the result of function, which gets null for an absent key.
+     * A null result removes key. The function must not modify the tree.
+     *
+     * @return the new value, or null if key ends up absent
+     */
+    public Value compute(Key key, BiFunction<? super Key, ? super Value, ? extends Value> function) throws BTreeException {
+        BplusTreeLeafNode<Key, Value> leaf = leafFor(key);
+        int idx = leaf.indexOf(key);
+        Value value = function.apply(key, idx >= 0 ? leaf.getValue(idx) : null);
+
+        if (idx >= 0 && value != null)
+            leaf.setValue(idx, value);
+        else if (idx >= 0)
+            removeAt(leaf, idx);
+        else if (value != null)
+            insert(leaf, -(idx + 1), key, value);
+        return value;
+    }
+
+    /**
+     * Adds value for an absent key, otherwise replaces the present value with function applied to it and value.
+     * A null result removes key. The function must not modify the tree.
+     *
+     * @return the new value, or null if key was removed
+     * @throws BTreeException if value is null
+     */
+    public Value merge(Key key, Value value, BiFunction<? super Value, ? super Value, ? extends Value> function) throws BTreeException {
+        if (value == null)
+            throw new BTreeException("Can't merge null value");
+
+        BplusTreeLeafNode<Key, Value> leaf = leafFor(key);
+        int idx = leaf.indexOf(key);
+        if (idx < 0) {
+            insert(leaf, -(idx + 1), key, value);
+            return value;
+        }
+
+        Value merged = function.apply(leaf.getValue(idx), value);
+        if (merged != null)
+            leaf.setValue(idx, merged);
+        else
+            removeAt(leaf, idx);
+        return merged;
+    }
+
+    /**
+     * Single descent shared by the read-modify-write operations, the leaf found is then updated in place
+     */
+    private BplusTreeLeafNode<Key, Value> leafFor(Key key) throws BTreeException {
+        if (key == null)
+            throw new BTreeException("Can't work with null key");
+
+        BplusTreeLeafNode<Key, Value> leaf = (BplusTreeLeafNode<Key, Value>) startFor(key).findLeaf(key);
+        setRecentlyUsed(leaf);
+        return leaf;
+    }
+
+    /**
+     * Inserts at a position found by {@link #leafFor(Comparable)}, taking the append and prepend paths at the edges of the tree
+     */
+    private void insert(BplusTreeLeafNode<Key, Value> leaf, int idx, Key key, Value value) throws BTreeException {
+        if (!leaf.isEmpty() && idx == leaf.size() && leaf.getNext() == null)
+            leaf.append(key, value);
+        else if (!leaf.isEmpty() && idx == 0 && leaf.getPrev() == null)
+            leaf.prepend(key, value);
+        else
+            leaf.insertAt(idx, key, value);
+
+        if (_root.getParent() != null)
+            _root = _root.getParent();
+    }
+
+    private void removeAt(BplusTreeLeafNode<Key, Value> leaf, int idx) throws BTreeException {
+        leaf.removeAt(idx);
+
+        if (_root.isEmpty())
+            resetRoot();
+        else
+            shrinkRoot();
+    }
+    /**
+     * @return cursor over [from, to), positioned at its first entry
+     */
+    public BplusTreeCursor<Key, Value> cursor(Key from, Key to) {
+        return cursor(from, true, to, false);
+    }
+
+    /**
+     * Seeks the first entry of the range in one descent, the cursor then walks the leaf chain in both directions.
+     * A null bound leaves that side of the range open.
+     *
+     * @return cursor positioned at the first entry of the range, check {@link BplusTreeCursor#isValid()} before reading it
+     */
+    public BplusTreeCursor<Key, Value> cursor(Key from, boolean fromInclusive, Key to, boolean toInclusive) {
+        return cursor(from, fromInclusive, from, fromInclusive, to, toInclusive);
+    }
+
+    /**
+     * @return cursor over [from, to] positioned at the first entry after start, which can still move back towards from
+     */
+    BplusTreeCursor<Key, Value> cursor(Key start, boolean startInclusive, Key from, boolean fromInclusive, Key to, boolean toInclusive) {
+        BplusTreeLeafNode<Key, Value> leaf;
+        int idx;
+
+        if (start == null) {
+            leaf = _root.firstLeaf();
+            idx = 0;
         } else {
-            ++miss;
-            return _root.find(key);
+            leaf = _root.findLeaf(start);
+            idx = searchLeftmostKey(leaf.keys, start, leaf.size());
+            if (idx < 0)
+                idx = -(idx + 1);
+            else if (!startInclusive)
+                ++idx;
         }
+
+        if (idx >= leaf.size()) {
+            leaf = leaf.getNext();
+            idx = 0;
+        }
+
+        return new BplusTreeCursor<>(leaf, idx, from, fromInclusive, to, toInclusive);
+    }
+
+    /**
+     * @return lazy view over [from, to), a null bound leaves that side open
+     */
+    public BplusTreeRange<Key, Value> subMap(Key from, Key to) {
+        return subMap(from, true, to, false);
+    }
+
+    public BplusTreeRange<Key, Value> subMap(Key from, boolean fromInclusive, Key to, boolean toInclusive) {
+        return new BplusTreeRange<>(this, from, fromInclusive, to, toInclusive);
+    }
+
+    public BplusTreeRange<Key, Value> headMap(Key to, boolean inclusive) {
+        return subMap(null, true, to, inclusive);
     }
+
+    public BplusTreeRange<Key, Value> tailMap(Key from, boolean inclusive) {
+        return subMap(from, inclusive, null, true);
+    }
+
+    BplusTreeNode<Key, Value> getRoot() {
+        return _root;
+    }
+
     public BplusTreeLeafNode.BplusTreeIterator peekLast() {
-        return _root.peekLast();
+        return lastLeaf().peekLast();
+    }
+
+    /**
+     * @return the largest key, read from the cached last leaf, or null if the tree is empty
+     */
+    public Key peekLastKey() {
+        return lastLeaf().lastKey();
+    }
+
+    public Value peekLastValue() {
+        return lastLeaf().lastValue();
+    }
+
+    /**
+     * Pops the entry with the largest key straight from the cached last leaf
+     *
+     * @throws NoSuchElementException if the tree is empty
+     */
+    public Value popLast() throws BTreeException {
+        Value poppedVal = lastLeaf().popLast();
+        if (_root.isEmpty())
+            resetRoot();
+
+        return poppedVal;
+    }
+
+    /**
+     * Pops up to n entries with the largest keys, walking the leaf chain backwards the way {@link #popN(int)} walks it forwards
+     *
+     * @return popped values in descending key order
+     * @throws IllegalArgumentException if n is negative
+     */
+    public List<Value> popLastN(int n) throws BTreeException {
+        if (n < 0)
+            throw new IllegalArgumentException("Can't pop a negative number of entries");
+
+        List<Value> popped = new ArrayList<>(Math.min(n, leafCapacity));
+        BplusTreeLeafNode<Key, Value> leaf = lastLeaf();
+
+        for (int remaining = n; remaining > 0 && !leaf.isEmpty(); ) {
+            BplusTreeLeafNode<Key, Value> prev = leaf.getPrev();
+            remaining -= leaf.popLastInto(popped, remaining);
+            if (!leaf.isEmpty() || prev == null)
+                break;
+            leaf = prev;
+        }
+
+        if (_root.isEmpty())
+            resetRoot();
+        return popped;
     }
     public Value peekValue() {
-        return _root.peekValue();
+        return firstLeaf().peekValue();
     }
     public Key peekKey() {
-        return _root.peekKey();
+        return firstLeaf().peekKey();
     }
+    /**
+     * Pops straight from the cached first leaf
+     */
     public Value pop() throws BTreeException {
-        Value poppedVal = _root.pop();
+        Value poppedVal = firstLeaf().pop();
         if (_root.isEmpty())
-            _root = new BplusTreeLeafNode<Key, Value>(null, null, null, this);
+            resetRoot();
 
         return poppedVal;
     }
 
+    /**
+     * Pops up to n entries with the smallest keys. Leaves taken whole are emptied in one go
+     * and the walk moves on along the leaf chain instead of descending again.
+     *
+     * @return popped values in ascending key order
+     * @throws IllegalArgumentException if n is negative
+     */
+    public List<Value> popN(int n) throws BTreeException {
+        if (n < 0)
+            throw new IllegalArgumentException("Can't pop a negative number of entries");
+
+        List<Value> popped = new ArrayList<>(Math.min(n, leafCapacity));
+        drain(popped, n, null);
+        return popped;
+    }
+
+    /**
+     * Pops every entry with a key up to maxKey inclusive, the way {@link #popN(int)} does
+     *
+     * @return number of values added to collection
+     */
+    public int drainTo(Collection<? super Value> collection, Key maxKey) throws BTreeException {
+        if (maxKey == null)
+            throw new BTreeException("Can't work with null key");
+
+        return drain(collection, Integer.MAX_VALUE, maxKey);
+    }
+
+    private int drain(Collection<? super Value> collection, int maxEntries, Key maxKey) throws BTreeException {
+        int drained = 0;
+        BplusTreeLeafNode<Key, Value> leaf = firstLeaf();
+
+        while (drained < maxEntries && !leaf.isEmpty()) {
+            BplusTreeLeafNode<Key, Value> next = leaf.getNext();
+            drained += leaf.popInto(collection, maxEntries - drained, maxKey);
+            if (!leaf.isEmpty() || next == null)
+                break;
+            leaf = next;
+        }
+
+        if (_root.isEmpty())
+            resetRoot();
+        return drained;
+    }
+
+    /**
+     * Builds the tree bottom-up from entries in strictly ascending key order, without descending per key.
+     *
+     * @param keys  keys in strictly ascending order
+     * @param values  values matching keys by index
+     * @param fillFactor  fraction of every node to fill, in (0, 1]
+     * @throws BTreeException if the tree is not empty, or keys are null or not strictly ascending
+     */
+    public void bulkLoad(Key[] keys, Value[] values, double fillFactor) throws BTreeException {
+        if (keys.length != values.length)
+            throw new BTreeException("Keys and values should have the same length");
+
+        bulkLoad(new java.util.Iterator<Map.Entry<Key, Value>>() {
+            private int index = 0;
+
+            @Override
+            public boolean hasNext() {
+                return index < keys.length;
+            }
+
+            @Override
+            public Map.Entry<Key, Value> next() {
+                if (!hasNext())
+                    throw new NoSuchElementException();
+                Map.Entry<Key, Value> entry = new AbstractMap.SimpleImmutableEntry<>(keys[index], values[index]);
+                ++index;
+                return entry;
+            }
+        }, fillFactor);
+    }
+
+    /**
+     * Builds the tree bottom-up from entries in strictly ascending key order, without descending per key.
+     * Leaves are packed to {@code fillFactor} of their capacity, but never below the minimum occupancy,
+     * and linked as they are read, then every branch level is built on top of the previous one.
+     * A short last leaf is evened out with the one before it.
+     * Nothing is modified if the entries turn out to be invalid.
+     *
+     * @param entries  entries in strictly ascending key order
+     * @param fillFactor  fraction of every node to fill, in (0, 1]
+     * @throws BTreeException if the tree is not empty, or keys are null or not strictly ascending
+     */
+    public void bulkLoad(java.util.Iterator<? extends Map.Entry<Key, Value>> entries, double fillFactor) throws BTreeException {
+        checkFillFactor(fillFactor);
+        if (!isEmpty())
+            throw new BTreeException("Can't bulk load into a non-empty tree");
+
+        int minLeaf = BplusTreeNode.minOccupancy(leafCapacity);
+        int leafSlots = slotsOf(leafCapacity, fillFactor, minLeaf);
+        ArrayList<BplusTreeNode<Key, Value>> level = new ArrayList<>();
+        BplusTreeLeafNode<Key, Value> prev = null;
+        CircularFifoQueue<Key> pendingKeys = null;
+        CircularFifoQueue<Value> pendingLeaves = null;
+        Key lastKey = null;
+
+        while (entries.hasNext()) {
+            CircularFifoQueue<Key> keys = new CircularFifoQueue<>(leafCapacity);
+            CircularFifoQueue<Value> leaves = new CircularFifoQueue<>(leafCapacity);
+
+            while (keys.size() < leafSlots && entries.hasNext()) {
+                Map.Entry<Key, Value> entry = entries.next();
+                Key key = entry.getKey();
+                if (key == null || entry.getValue() == null)
+                    throw new BTreeException("Can't work with null key or value");
+                if (lastKey != null && key.compareTo(lastKey) <= 0)
+                    throw new BTreeException("Bulk loaded keys should be strictly ascending, got " + key + " after " + lastKey);
+
+                keys.pushBack(key);
+                leaves.pushBack(entry.getValue());
+                lastKey = key;
+            }
+
+            if (pendingKeys != null) {
+                if (!entries.hasNext() && keys.size() < minLeaf) {
+                    // two leaves just below the minimum fit in one, otherwise both end up at half of their total
+                    if (pendingKeys.size() + keys.size() < 2 * minLeaf) {
+                        while (!keys.isEmpty()) {
+                            pendingKeys.pushBack(keys.popFront());
+                            pendingLeaves.pushBack(leaves.popFront());
+                        }
+                    } else {
+                        int half = (pendingKeys.size() + keys.size()) / 2;
+                        while (keys.size() < half) {
+                            keys.pushFront(pendingKeys.popBack());
+                            leaves.pushFront(pendingLeaves.popBack());
+                        }
+                    }
+                }
+                prev = linkLeaf(level, prev, pendingKeys, pendingLeaves);
+            }
+            pendingKeys = keys;
+            pendingLeaves = leaves;
+        }
+        if (pendingKeys != null && !pendingKeys.isEmpty())
+            linkLeaf(level, prev, pendingKeys, pendingLeaves);
+
+        int branchSlots = slotsOf(branchCapacity, fillFactor, Math.max(2, BplusTreeNode.minOccupancy(branchCapacity)));
+        while (level.size() > 1)
+            level = buildBranchLevel(level, branchSlots);
+
+        if (!level.isEmpty()) {
+            _root = level.get(0);
+            fingers.clear();
+            head = tail = null;
+        }
+    }
+
+    /**
+     * Writes every entry in ascending key order in the compact binary snapshot format
+     */
+    public void snapshot(OutputStream out, Codec<Key> keyCodec, Codec<Value> valueCodec) throws IOException {
+        BplusTreeSnapshot.write(_root.firstLeaf(), out, keyCodec, valueCodec);
+    }
+
+    /**
+     * Rebuilds the tree from a snapshot bottom-up with {@link #bulkLoad(java.util.Iterator, double)},
+     * decoding its blocks in parallel ahead of the load
+     *
+     * @throws BTreeException if the tree is not empty
+     * @throws IOException if the snapshot can't be read or is corrupt
+     */
+    public void restore(InputStream in, Codec<Key> keyCodec, Codec<Value> valueCodec, double fillFactor) throws BTreeException, IOException {
+        if (!isEmpty())
+            throw new BTreeException("Can't restore into a non-empty tree");
+
+        try (BplusTreeSnapshot.Reader<Key, Value> entries = BplusTreeSnapshot.read(in, keyCodec, valueCodec)) {
+            bulkLoad(entries, fillFactor);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private BplusTreeLeafNode<Key, Value> linkLeaf(ArrayList<BplusTreeNode<Key, Value>> level, BplusTreeLeafNode<Key, Value> prev,
+                                                   CircularFifoQueue<Key> keys, CircularFifoQueue<Value> leaves) {
+        BplusTreeLeafNode<Key, Value> leaf = new BplusTreeLeafNode<>(keys, leaves, null, prev, null, this);
+        if (prev != null)
+            prev.setNext(leaf);
+        level.add(leaf);
+        return leaf;
+    }
+
+    /**
+     * Groups the nodes of a level under as few branches as branchSlots allows, spreading them evenly.
+     * Fewer, fuller branches are built when that many would fall below the minimum occupancy.
+     */
+    private ArrayList<BplusTreeNode<Key, Value>> buildBranchLevel(ArrayList<BplusTreeNode<Key, Value>> level, int branchSlots) {
+        int groups = (level.size() + branchSlots - 1) / branchSlots;
+        groups = Math.max(1, Math.min(groups, level.size() / BplusTreeNode.minOccupancy(branchCapacity)));
+        ArrayList<BplusTreeNode<Key, Value>> upper = new ArrayList<>(groups);
+
+        int from = 0;
+        for (int group = 0; group < groups; group++) {
+            int to = from + level.size() / groups + (group < level.size() % groups ? 1 : 0);
+            CircularFifoQueue<Key> keys = new CircularFifoQueue<>(branchCapacity);
+            CircularFifoQueue<BplusTreeNode<Key, Value>> children = new CircularFifoQueue<>(branchCapacity);
+
+            for (int i = from; i < to; i++) {
+                keys.pushBack(level.get(i).LeftRangeKey);
+                children.pushBack(level.get(i));
+            }
+
+            BplusTreeBranchNode<Key, Value> branch = new BplusTreeBranchNode<>(keys, children, null);
+            for (BplusTreeNode<Key, Value> child : children)
+                child.setParent(branch);
+            upper.add(branch);
+            from = to;
+        }
+
+        return upper;
+    }
+
+    /**
+     * A node splits as soon as it is full, so at most capacity - 1 slots can be filled up front
+     */
+    static int slotsOf(int capacity, double fillFactor, int minimum) {
+        return Math.max(minimum, Math.min(capacity - 1, (int) (capacity * fillFactor)));
+    }
 }
@@ -8,8 +8,8 @@ import static utility.Utils.searchRightmostKey;
 class BplusTreeBranchNode<Key extends Comparable, Value> extends BplusTreeNode<Key, Value>{
     private CircularFifoQueue<BplusTreeNode<Key, Value>> children;
 
-    public BplusTreeBranchNode(BplusTreeBranchNode parent) {
-        this(new CircularFifoQueue<>(CAPACITY), new CircularFifoQueue<>(CAPACITY), parent);
+    public BplusTreeBranchNode(BplusTreeBranchNode parent, int capacity) {
+        this(new CircularFifoQueue<>(capacity), new CircularFifoQueue<>(capacity), parent);
     }
 
     public BplusTreeBranchNode(CircularFifoQueue<Key> keys, CircularFifoQueue<BplusTreeNode<Key, Value>> children, BplusTreeBranchNode parent) {
@@ -37,8 +37,8 @@ class BplusTreeBranchNode<Key extends Comparable, Value> extends BplusTreeNode<K
     @Override
     protected void split() throws BTreeException {
         if (parent == null) {
-            parent = new BplusTreeBranchNode(null);
-            parent.addNode(this, peekKey());
+            parent = new BplusTreeBranchNode(null, keys.maxSize());
+            parent.addNode(this, LeftRangeKey);
         }
 
         CircularFifoQueue<Key> restOfKeys = keys.split();
@@ -50,7 +50,7 @@ class BplusTreeBranchNode<Key extends Comparable, Value> extends BplusTreeNode<K
             node.setParent(rest);
         }
 
-        parent.addNode(rest, rest.peekKey());
+        parent.addNode(rest, rest.LeftRangeKey);
     }
 
     @Override
@@ -59,6 +59,85 @@ class BplusTreeBranchNode<Key extends Comparable, Value> extends BplusTreeNode<K
             parent.removeNode(LeftRangeKey);
     }
 
+    @Override
+    protected boolean underflows() {
+        return children.size() < minOccupancy(keys.maxSize());
+    }
+
+    @Override
+    protected void redistribute() throws BTreeException {
+        if (parent == null)
+            return;
+
+        int idx = parent.indexOfChild(this);
+        BplusTreeBranchNode<Key, Value> left = idx > 0 ? (BplusTreeBranchNode<Key, Value>) parent.getChild(idx - 1) : null;
+        BplusTreeBranchNode<Key, Value> right = idx + 1 < parent.childCount() ? (BplusTreeBranchNode<Key, Value>) parent.getChild(idx + 1) : null;
+
+        if (right != null && right.children.size() > minOccupancy(keys.maxSize())) {
+            BplusTreeNode<Key, Value> child = right.children.popFront();
+            keys.pushBack(right.keys.popFront());
+            children.pushBack(child);
+            child.setParent(this);
+            right.updateLeftRangeKey(right.keys.peekFront());
+        } else if (left != null && left.children.size() > minOccupancy(keys.maxSize())) {
+            BplusTreeNode<Key, Value> child = left.children.popBack();
+            Key key = left.keys.popBack();
+            keys.pushFront(key);
+            children.pushFront(child);
+            child.setParent(this);
+            updateLeftRangeKey(key);
+        } else if (left != null) {
+            left.absorb(this);
+        } else if (right != null) {
+            absorb(right);
+        }
+    }
+
+    /**
+     * Moves every child of the right sibling into this node and removes the sibling from the parent
+     */
+    private void absorb(BplusTreeBranchNode<Key, Value> right) throws BTreeException {
+        while (!right.children.isEmpty()) {
+            BplusTreeNode<Key, Value> child = right.children.popFront();
+            keys.pushBack(right.keys.popFront());
+            children.pushBack(child);
+            child.setParent(this);
+        }
+        parent.removeNode(right.LeftRangeKey);
+    }
+
+    @Override
+    int occupancy() {
+        return children.size();
+    }
+
+    @Override
+    void shiftFrom(BplusTreeNode<Key, Value> next, int count) throws BTreeException {
+        BplusTreeBranchNode<Key, Value> right = (BplusTreeBranchNode<Key, Value>) next;
+        for (; count > 0 && !right.children.isEmpty(); count--) {
+            BplusTreeNode<Key, Value> child = right.children.popFront();
+            keys.pushBack(right.keys.popFront());
+            children.pushBack(child);
+            child.setParent(this);
+        }
+
+        if (right.isEmpty())
+            right.rebalance();
+        else
+            right.updateLeftRangeKey(right.keys.peekFront());
+    }
+
+    int indexOfChild(BplusTreeNode child) {
+        int idx = searchLeftmostKey(keys, (Key) child.LeftRangeKey, keys.size());
+        if (idx >= 0 && children.get(idx) == child)
+            return idx;
+
+        for (idx = 0; idx < children.size(); idx++)
+            if (children.get(idx) == child)
+                return idx;
+        throw new IllegalStateException("Node is not a child of its parent");
+    }
+
     void addNode(BplusTreeNode child, Key key) throws BTreeException {
         int idx = searchLeftmostKey(keys, key, keys.size());
         if (idx >= 0)
@@ -78,6 +157,61 @@ class BplusTreeBranchNode<Key extends Comparable, Value> extends BplusTreeNode<K
             split();
     }
 
+    /**
+     * Adds a child past the last one, splitting off only that child when the node fills up
+     */
+    void appendNode(BplusTreeNode child, Key key) throws BTreeException {
+        keys.pushBack(key);
+        children.pushBack(child);
+        if (!fullyOccupied())
+            return;
+
+        if (parent == null) {
+            parent = new BplusTreeBranchNode(null, keys.maxSize());
+            parent.addNode(this, LeftRangeKey);
+        }
+
+        CircularFifoQueue<Key> restOfKeys = new CircularFifoQueue<>(keys.maxSize());
+        CircularFifoQueue<BplusTreeNode<Key, Value>> restOfChildren = new CircularFifoQueue<>(children.maxSize());
+        restOfKeys.pushBack(keys.popBack());
+        restOfChildren.pushBack(children.popBack());
+
+        BplusTreeBranchNode rest = new BplusTreeBranchNode(restOfKeys, restOfChildren, parent);
+        child.setParent(rest);
+
+        parent.appendNode(rest, key);
+    }
+
+    /**
+     * Adds a child before the first one, splitting off only that child when the node fills up
+     */
+    void prependNode(BplusTreeNode child, Key key) throws BTreeException {
+        keys.pushFront(key);
+        children.pushFront(child);
+
+        if (!fullyOccupied()) {
+            if (parent != null)
+                parent.updateKeyOfNode(key, LeftRangeKey);
+            LeftRangeKey = key;
+            return;
+        }
+
+        if (parent == null) {
+            parent = new BplusTreeBranchNode(null, keys.maxSize());
+            parent.addNode(this, LeftRangeKey);
+        }
+
+        CircularFifoQueue<Key> restOfKeys = new CircularFifoQueue<>(keys.maxSize());
+        CircularFifoQueue<BplusTreeNode<Key, Value>> restOfChildren = new CircularFifoQueue<>(children.maxSize());
+        restOfKeys.pushBack(keys.popFront());
+        restOfChildren.pushBack(children.popFront());
+
+        BplusTreeBranchNode rest = new BplusTreeBranchNode(restOfKeys, restOfChildren, parent);
+        child.setParent(rest);
+
+        parent.prependNode(rest, key);
+    }
+
     void removeNode(Key key) throws BTreeException {
         int idx = searchRightmostKey(keys, key, keys.size());
         idx = idx < 0 ? -(idx + 1) : idx;
@@ -85,8 +219,26 @@ class BplusTreeBranchNode<Key extends Comparable, Value> extends BplusTreeNode<K
         keys.remove(idx);
         children.remove(idx);
 
-        if (underOccupied())
+        if (underOccupied()) {
             rebalance();
+            return;
+        }
+
+        if (idx == 0)
+            updateLeftRangeKey(keys.peekFront());
+        if (underflows())
+            redistribute();
+    }
+
+    /**
+     * Keeps the separator of this node in its ancestors equal to its first key,
+     * so the next leaf's LeftRangeKey is always the exclusive upper bound of a leaf
+     */
+    private void updateLeftRangeKey(Key newKey) throws BTreeException {
+        if (parent != null)
+            parent.updateKeyOfNode(newKey, LeftRangeKey);
+
+        LeftRangeKey = newKey;
     }
 
     void updateKeyOfNode(Key newKey, Key currKey) throws BTreeException {
@@ -159,6 +311,40 @@ class BplusTreeBranchNode<Key extends Comparable, Value> extends BplusTreeNode<K
         return children.get(idx).find(searchKey);
     }
 
+    int childCount() {
+        return children.size();
+    }
+
+    BplusTreeNode<Key, Value> getChild(int index) {
+        return children.get(index);
+    }
+
+    /**
+     * @return index of the child whose subtree would hold key
+     */
+    int childIndex(Key key) {
+        int idx = searchRightmostKey(keys, key, keys.size());
+        return idx < 0 ? -(idx + 1) : idx;
+    }
+
+    @Override
+    BplusTreeLeafNode findLeaf(Key searchKey) {
+        int idx = searchRightmostKey(keys, searchKey, keys.size());
+
+        idx = idx < 0 ? -(idx + 1) : idx;
+        return children.get(idx).findLeaf(searchKey);
+    }
+
+    @Override
+    BplusTreeLeafNode firstLeaf() {
+        return children.get(0).firstLeaf();
+    }
+
+    @Override
+    BplusTreeLeafNode lastLeaf() {
+        return children.peekBack().lastLeaf();
+    }
+
     @Override
     public BplusTreeLeafNode.BplusTreeIterator peekLast() {
         return children.peekBack().peekLast();
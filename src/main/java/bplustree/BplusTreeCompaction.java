@@ -0,0 +1,104 @@
+package bplustree;
+
+/**
+ * Incremental repacking of a live {@link BplusTree}, one level at a time starting from the leaves.
+ * Every node on the level is filled from the next node on the same level, and nodes that end up empty
+ * are removed from the tree. Only the level and the left range key of the node to resume from are kept
+ * between steps, so the tree can be modified freely while a pass is in progress.
+ */
+final class BplusTreeCompaction<Key extends Comparable<Key>, Value> {
+    private final BplusTree<Key, Value> tree;
+    private int level;
+    private Key resumeKey;
+
+    BplusTreeCompaction(BplusTree<Key, Value> tree) {
+        this.tree = tree;
+    }
+
+    /**
+     * Visits at most maxNodes nodes of the current level
+     *
+     * @return whether the pass has finished, the next step then starts a new pass
+     */
+    boolean step(double fillFactor, int maxNodes) throws BTreeException {
+        int height = height(tree.getRoot());
+        if (level >= height) {
+            reset();
+            return true;
+        }
+
+        int capacity = level == 0 ? tree.getLeafCapacity() : tree.getBranchCapacity();
+        int target = BplusTree.slotsOf(capacity, fillFactor, BplusTreeNode.minOccupancy(capacity));
+        BplusTreeNode<Key, Value> node = locate(height - level);
+
+        for (; maxNodes > 0; maxNodes--) {
+            BplusTreeNode<Key, Value> right = nextOnLevel(node);
+            if (right == null) {
+                balanceLast(node);
+                tree.shrinkRoot();
+
+                ++level;
+                resumeKey = null;
+                return false;
+            }
+
+            if (node.occupancy() < target)
+                node.shiftFrom(right, target - node.occupancy());
+            else
+                node = right;
+        }
+
+        resumeKey = node.LeftRangeKey;
+        return false;
+    }
+
+    /**
+     * The last node of a level only receives what is left over, so it borrows back from its left sibling
+     * until it reaches the minimum occupancy, or is merged into that sibling
+     */
+    private static void balanceLast(BplusTreeNode node) throws BTreeException {
+        while (node.underflows() && !node.isEmpty()) {
+            int occupancy = node.occupancy();
+            node.redistribute();
+            if (node.occupancy() == occupancy)
+                return;
+        }
+    }
+
+    void reset() {
+        level = 0;
+        resumeKey = null;
+    }
+
+    /**
+     * @return node at the given distance below the root covering the resume key, or the first one if there is none
+     */
+    private BplusTreeNode<Key, Value> locate(int depth) {
+        BplusTreeNode<Key, Value> node = tree.getRoot();
+        for (; depth > 0; depth--) {
+            BplusTreeBranchNode<Key, Value> branch = (BplusTreeBranchNode<Key, Value>) node;
+            node = branch.getChild(resumeKey == null ? 0 : branch.childIndex(resumeKey));
+        }
+        return node;
+    }
+
+    private static int height(BplusTreeNode node) {
+        int height = 0;
+        for (; node instanceof BplusTreeBranchNode; height++)
+            node = ((BplusTreeBranchNode) node).getChild(0);
+        return height;
+    }
+
+    private static BplusTreeNode nextOnLevel(BplusTreeNode node) {
+        BplusTreeBranchNode parent = node.getParent();
+        if (parent == null)
+            return null;
+
+        int idx = parent.indexOfChild(node);
+        if (idx + 1 < parent.childCount())
+            return parent.getChild(idx + 1);
+
+        BplusTreeNode uncle = nextOnLevel(parent);
+        return uncle == null ? null : ((BplusTreeBranchNode) uncle).getChild(0);
+    }
+}
@@ -0,0 +1,101 @@
+package bplustree;
+
+import java.util.NoSuchElementException;
+
+/**
+ * Cursor over a key range of a BplusTree.
+ * It walks the leaf chain through next and prev, so moving to a neighbouring entry never descends from the root.
+ * Structural modifications of the tree invalidate the cursor.
+ */
+public class BplusTreeCursor<Key extends Comparable<Key>, Value> implements Iterator<Key, Value> {
+    private final Key from, to;
+    private final boolean fromInclusive, toInclusive;
+    private BplusTreeLeafNode<Key, Value> node;
+    private int index;
+
+    BplusTreeCursor(BplusTreeLeafNode<Key, Value> node, int index, Key from, boolean fromInclusive, Key to, boolean toInclusive) {
+        this.node = node;
+        this.index = index;
+        this.from = from;
+        this.fromInclusive = fromInclusive;
+        this.to = to;
+        this.toInclusive = toInclusive;
+    }
+
+    /**
+     * @return whether the cursor is positioned at an entry of its range
+     */
+    public boolean isValid() {
+        return node != null && index < node.size() && aboveFrom(node.getKey(index)) && belowTo(node.getKey(index));
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (node == null)
+            return false;
+        if (index + 1 < node.size())
+            return belowTo(node.getKey(index + 1));
+
+        BplusTreeLeafNode<Key, Value> next = node.getNext();
+        return next != null && belowTo(next.getKey(0));
+    }
+
+    @Override
+    public void goToNext() {
+        if (!hasNext())
+            throw new NoSuchElementException("Cursor reached the end of its range");
+
+        if (++index >= node.size()) {
+            node = node.getNext();
+            index = 0;
+        }
+    }
+
+    public boolean hasPrev() {
+        if (node == null)
+            return false;
+        if (index > 0)
+            return aboveFrom(node.getKey(index - 1));
+
+        BplusTreeLeafNode<Key, Value> prev = node.getPrev();
+        return prev != null && aboveFrom(prev.getKey(prev.size() - 1));
+    }
+
+    public void goToPrev() {
+        if (!hasPrev())
+            throw new NoSuchElementException("Cursor reached the beginning of its range");
+
+        if (--index < 0) {
+            node = node.getPrev();
+            index = node.size() - 1;
+        }
+    }
+
+    @Override
+    public Key getKey() {
+        if (node == null)
+            throw new NoSuchElementException("Cursor range is empty");
+        return node.getKey(index);
+    }
+
+    @Override
+    public Value getValue() {
+        if (node == null)
+            throw new NoSuchElementException("Cursor range is empty");
+        return node.getValue(index);
+    }
+
+    private boolean aboveFrom(Key key) {
+        if (from == null)
+            return true;
+        int cmp = key.compareTo(from);
+        return cmp > 0 || (cmp == 0 && fromInclusive);
+    }
+
+    private boolean belowTo(Key key) {
+        if (to == null)
+            return true;
+        int cmp = key.compareTo(to);
+        return cmp < 0 || (cmp == 0 && toInclusive);
+    }
+}
@@ -0,0 +1,164 @@
+package bplustree;
+
+/**
+ * Small set of fingers into a {@link BplusTree}, each remembering the last leaf touched in one hot key region.
+ * An operation starts from the ancestor of a finger's leaf at the finger's level instead of the root when that
+ * ancestor covers the key. Levels adapt per finger: a key found only one level higher widens the finger,
+ * while a run of keys that a lower level would have covered narrows it again.
+ * A miss takes over the finger already pointing under the same parent, or else the least recently used one.
+ */
+final class BplusTreeFingers<Key extends Comparable<Key>, Value> {
+    static final int DEFAULT_FINGERS = 4;
+    static final int DEFAULT_LEVEL = 2;
+    private static final int NARROW_AFTER = 16;
+
+    private final BplusTreeLeafNode<Key, Value>[] leaves;
+    private final int[] levels, narrowHits, hits, misses;
+    private final long[] lastUse;
+    private long tick;
+    private int active = -1;
+
+    @SuppressWarnings("unchecked")
+    BplusTreeFingers(int count) {
+        leaves = new BplusTreeLeafNode[count];
+        levels = new int[count];
+        narrowHits = new int[count];
+        hits = new int[count];
+        misses = new int[count];
+        lastUse = new long[count];
+        java.util.Arrays.fill(levels, DEFAULT_LEVEL);
+    }
+
+    int size() {
+        return leaves.length;
+    }
+
+    /**
+     * @return node of a finger covering key, or null when the operation has to start from the root
+     */
+    BplusTreeNode<Key, Value> lookup(Key key) throws BTreeException {
+        active = -1;
+        for (int i = 0; i < leaves.length; i++) {
+            BplusTreeNode<Key, Value> node = ancestor(i, levels[i]);
+            if (node != null && node.isInRange(key)) {
+                BplusTreeNode<Key, Value> lower = levels[i] > 0 ? ancestor(i, levels[i] - 1) : null;
+                if (lower == null || !lower.isInRange(key)) {
+                    narrowHits[i] = 0;
+                } else if (++narrowHits[i] >= NARROW_AFTER) {
+                    narrowHits[i] = 0;
+                    --levels[i];
+                }
+                return use(i, node);
+            }
+        }
+
+        for (int i = 0; i < leaves.length; i++) {
+            BplusTreeNode<Key, Value> node = ancestor(i, levels[i] + 1);
+            if (node != null && node.isInRange(key)) {
+                ++levels[i];
+                narrowHits[i] = 0;
+                return use(i, node);
+            }
+        }
+        return null;
+    }
+
+    private BplusTreeNode<Key, Value> use(int finger, BplusTreeNode<Key, Value> node) {
+        active = finger;
+        ++hits[finger];
+        lastUse[finger] = ++tick;
+        return node;
+    }
+
+    /**
+     * Records the leaf an operation ended in, on the finger it started from or on the one a miss takes over
+     */
+    void touch(BplusTreeLeafNode<Key, Value> leaf) {
+        if (leaves.length == 0)
+            return;
+        if (active >= 0) {
+            leaves[active] = leaf;
+            return;
+        }
+
+        int victim = -1;
+        for (int i = 0; i < leaves.length && victim < 0; i++)
+            if (leaves[i] == leaf || leaves[i] != null && leaf.getParent() != null && leaves[i].getParent() == leaf.getParent())
+                victim = i;
+
+        for (int i = 0; i < leaves.length && victim < 0; i++)
+            if (leaves[i] == null)
+                victim = i;
+
+        if (victim < 0) {
+            victim = 0;
+            for (int i = 1; i < leaves.length; i++)
+                if (lastUse[i] < lastUse[victim])
+                    victim = i;
+        }
+
+        if (leaves[victim] == null || leaves[victim].getParent() != leaf.getParent()) {
+            levels[victim] = DEFAULT_LEVEL;
+            narrowHits[victim] = 0;
+        }
+        leaves[victim] = leaf;
+        ++misses[victim];
+        lastUse[victim] = ++tick;
+        active = victim;
+    }
+
+    /**
+     * Fingers only hold leaves and reach their ancestors through parent pointers, so only a leaf leaving
+     * the tree invalidates a finger. Borrowing between nodes and merging branches keeps every finger usable.
+     */
+    void drop(BplusTreeLeafNode<Key, Value> leaf) {
+        for (int i = 0; i < leaves.length; i++)
+            if (leaves[i] == leaf) {
+                leaves[i] = null;
+                if (active == i)
+                    active = -1;
+            }
+    }
+
+    /**
+     * Drops every finger
+     */
+    void clear() {
+        java.util.Arrays.fill(leaves, null);
+        active = -1;
+    }
+
+    /**
+     * Drops the fingers whose leaves hold no key below thresholdKey, those leaves are cut off by removeFrom.
+     * A leaf without a LeftRangeKey holds no key at all and is dropped as well.
+     */
+    void clearFrom(Key thresholdKey) {
+        for (int i = 0; i < leaves.length; i++)
+            if (leaves[i] != null && (leaves[i].LeftRangeKey == null || leaves[i].LeftRangeKey.compareTo(thresholdKey) >= 0))
+                leaves[i] = null;
+        active = -1;
+    }
+
+    BplusTreeLeafNode<Key, Value> recentLeaf() {
+        return active < 0 ? null : leaves[active];
+    }
+
+    int getHits(int finger) {
+        return hits[finger];
+    }
+
+    int getMisses(int finger) {
+        return misses[finger];
+    }
+
+    int getLevel(int finger) {
+        return levels[finger];
+    }
+
+    private BplusTreeNode<Key, Value> ancestor(int finger, int level) {
+        BplusTreeNode<Key, Value> node = leaves[finger];
+        for (; node != null && level > 0; level--)
+            node = node.getParent();
+        return node;
+    }
+}
@@ -2,6 +2,8 @@ package bplustree;
 
 import utility.CircularFifoQueue;
 
+import java.util.Collection;
+
 import static utility.Utils.searchLeftmostKey;
 
 class BplusTreeLeafNode<Key extends Comparable<Key>, Value> extends BplusTreeNode<Key, Value> {
@@ -13,6 +15,26 @@ class BplusTreeLeafNode<Key extends Comparable<Key>, Value> extends BplusTreeNod
         return prev;
     }
 
+    BplusTreeLeafNode getNext() {
+        return next;
+    }
+
+    void setNext(BplusTreeLeafNode next) {
+        this.next = next;
+    }
+
+    int size() {
+        return keys.size();
+    }
+
+    Key getKey(int index) {
+        return keys.get(index);
+    }
+
+    Value getValue(int index) {
+        return leaves.get(index);
+    }
+
     public int getDepth() {
         BplusTreeNode node = this;
         int depth = 1;
@@ -25,7 +47,7 @@ class BplusTreeLeafNode<Key extends Comparable<Key>, Value> extends BplusTreeNod
     }
 
     public BplusTreeLeafNode(BplusTreeLeafNode next, BplusTreeLeafNode prev, BplusTreeBranchNode parent, BplusTree tree) {
-        this(new CircularFifoQueue<>(CAPACITY), new CircularFifoQueue<>(CAPACITY), next, prev, parent, tree);
+        this(new CircularFifoQueue<>(tree.getLeafCapacity()), new CircularFifoQueue<>(tree.getLeafCapacity()), next, prev, parent, tree);
     }
 
     public BplusTreeLeafNode(CircularFifoQueue<Key> keys, CircularFifoQueue<Value> leaves, BplusTreeLeafNode next, BplusTreeLeafNode prev, BplusTreeBranchNode parent, BplusTree tree) {
@@ -56,30 +78,108 @@ class BplusTreeLeafNode<Key extends Comparable<Key>, Value> extends BplusTreeNod
     @Override
     protected void split() throws BTreeException {
         if (parent == null) {
-            parent = new BplusTreeBranchNode(null);
-            parent.addNode(this, peekKey());
+            parent = new BplusTreeBranchNode(null, tree.getBranchCapacity());
+            parent.addNode(this, LeftRangeKey);
         }
 
         CircularFifoQueue<Key> restOfKeys = keys.split();
         CircularFifoQueue<Value> restOfLeaves = leaves.split();
 
         BplusTreeLeafNode rest = new BplusTreeLeafNode(restOfKeys, restOfLeaves, next, this, parent, tree);
+        if (next != null)
+            next.prev = rest;
         this.next = rest;
 
         parent.addNode(rest, rest.peekKey());
     }
 
     /**
-     * Currently rebalance is called only when the node is emptied
+     * Called when the node is emptied; remove keeps leaves above the minimum occupancy through redistribute
      */
     @Override
     protected void rebalance() throws BTreeException {
-        tree.setRecentlyUsed(null);
+        tree.release(this);
+        unlink();
 
         if (parent != null)
             parent.removeNode(LeftRangeKey);
     }
 
+    @Override
+    protected boolean underflows() {
+        return keys.size() < minOccupancy(keys.maxSize());
+    }
+
+    @Override
+    protected void redistribute() throws BTreeException {
+        if (parent == null)
+            return;
+
+        int idx = parent.indexOfChild(this);
+        BplusTreeLeafNode<Key, Value> left = idx > 0 ? (BplusTreeLeafNode<Key, Value>) parent.getChild(idx - 1) : null;
+        BplusTreeLeafNode<Key, Value> right = idx + 1 < parent.childCount() ? (BplusTreeLeafNode<Key, Value>) parent.getChild(idx + 1) : null;
+
+        if (right != null && right.size() > minOccupancy(keys.maxSize())) {
+            keys.pushBack(right.keys.popFront());
+            leaves.pushBack(right.leaves.popFront());
+            Key first = right.keys.peekFront();
+            parent.updateKeyOfNode(first, right.LeftRangeKey);
+            right.LeftRangeKey = first;
+        } else if (left != null && left.size() > minOccupancy(keys.maxSize())) {
+            Key key = left.keys.popBack();
+            keys.pushFront(key);
+            leaves.pushFront(left.leaves.popBack());
+            parent.updateKeyOfNode(key, LeftRangeKey);
+            LeftRangeKey = key;
+        } else if (left != null) {
+            left.absorb(this);
+        } else if (right != null) {
+            absorb(right);
+        }
+    }
+
+    @Override
+    int occupancy() {
+        return keys.size();
+    }
+
+    @Override
+    void shiftFrom(BplusTreeNode<Key, Value> next, int count) throws BTreeException {
+        BplusTreeLeafNode<Key, Value> right = (BplusTreeLeafNode<Key, Value>) next;
+        for (; count > 0 && !right.isEmpty(); count--) {
+            keys.pushBack(right.keys.popFront());
+            leaves.pushBack(right.leaves.popFront());
+        }
+
+        if (right.isEmpty()) {
+            right.rebalance();
+        } else {
+            Key first = right.keys.peekFront();
+            right.parent.updateKeyOfNode(first, right.LeftRangeKey);
+            right.LeftRangeKey = first;
+        }
+    }
+
+    /**
+     * Moves every entry of the right sibling into this leaf and removes the sibling from the tree
+     */
+    private void absorb(BplusTreeLeafNode<Key, Value> right) throws BTreeException {
+        while (!right.isEmpty()) {
+            keys.pushBack(right.keys.popFront());
+            leaves.pushBack(right.leaves.popFront());
+        }
+        tree.release(right);
+        right.unlink();
+        parent.removeNode(right.LeftRangeKey);
+    }
+
+    private void unlink() {
+        if (prev != null)
+            prev.next = next;
+        if (next != null)
+            next.prev = prev;
+    }
+
     @Override
     public void add(Key key, Value value) throws BTreeException {
         if (key == null) {
@@ -91,7 +191,21 @@ class BplusTreeLeafNode<Key extends Comparable<Key>, Value> extends BplusTreeNod
         if (idx >= 0)
             throw new BTreeException("Can't add currently present key " + key.toString());
 
-        idx = -(idx + 1);
+        insertAt(-(idx + 1), key, value);
+    }
+
+    /**
+     * @return index of key, or -(insertion point + 1) if it is not present
+     */
+    int indexOf(Key key) {
+        return searchLeftmostKey(keys, key, keys.size());
+    }
+
+    void setValue(int index, Value value) {
+        leaves.set(index, value);
+    }
+
+    void insertAt(int idx, Key key, Value value) throws BTreeException {
         if (idx == 0) {
             if (parent != null)
                 parent.updateKeyOfNode(key, LeftRangeKey);
@@ -105,6 +219,76 @@ class BplusTreeLeafNode<Key extends Comparable<Key>, Value> extends BplusTreeNod
             split();
     }
 
+    Key lastKey() {
+        return keys.peekBack();
+    }
+
+    /**
+     * Adds an entry past the last key of the last leaf without searching for its slot.
+     * A leaf filled this way keeps everything but the new entry and hands it to a fresh leaf,
+     * so sequential loads leave every leaf full instead of half full. Only the rightmost leaf
+     * and branches stay below the minimum occupancy until later appends fill them.
+     */
+    void append(Key key, Value value) throws BTreeException {
+        keys.pushBack(key);
+        leaves.pushBack(value);
+        if (!fullyOccupied())
+            return;
+
+        if (parent == null) {
+            parent = new BplusTreeBranchNode(null, tree.getBranchCapacity());
+            parent.addNode(this, LeftRangeKey);
+        }
+
+        CircularFifoQueue<Key> restOfKeys = new CircularFifoQueue<>(keys.maxSize());
+        CircularFifoQueue<Value> restOfLeaves = new CircularFifoQueue<>(leaves.maxSize());
+        restOfKeys.pushBack(keys.popBack());
+        restOfLeaves.pushBack(leaves.popBack());
+
+        BplusTreeLeafNode rest = new BplusTreeLeafNode(restOfKeys, restOfLeaves, null, this, parent, tree);
+        this.next = rest;
+
+        parent.appendNode(rest, key);
+    }
+
+    /**
+     * Adds an entry before the first key of the first leaf without searching for its slot, the mirror of append.
+     * The separators on the leftmost path are lowered to the new key like prependNode does for branches,
+     * so no separator is ever above the first key of its child. A full first leaf splits off just the new entry
+     * into a fresh first leaf.
+     */
+    void prepend(Key key, Value value) throws BTreeException {
+        keys.pushFront(key);
+        leaves.pushFront(value);
+        if (!fullyOccupied()) {
+            if (parent != null)
+                parent.updateKeyOfNode(key, LeftRangeKey);
+            LeftRangeKey = key;
+            return;
+        }
+
+        if (parent == null) {
+            parent = new BplusTreeBranchNode(null, tree.getBranchCapacity());
+            parent.addNode(this, LeftRangeKey);
+        }
+
+        CircularFifoQueue<Key> restOfKeys = new CircularFifoQueue<>(keys.maxSize());
+        CircularFifoQueue<Value> restOfLeaves = new CircularFifoQueue<>(leaves.maxSize());
+        restOfKeys.pushBack(keys.popFront());
+        restOfLeaves.pushBack(leaves.popFront());
+
+        Key first = keys.peekFront();
+        if (first.compareTo(LeftRangeKey) != 0) {
+            parent.updateKeyOfNode(first, LeftRangeKey);
+            LeftRangeKey = first;
+        }
+
+        BplusTreeLeafNode rest = new BplusTreeLeafNode(restOfKeys, restOfLeaves, this, null, parent, tree);
+        this.prev = rest;
+
+        parent.prependNode(rest, key);
+    }
+
     @Override
     public void remove(Key key) throws BTreeException {
         if (key == null) {
@@ -116,12 +300,17 @@ class BplusTreeLeafNode<Key extends Comparable<Key>, Value> extends BplusTreeNod
         if (idx < 0)
             throw new BTreeException("Can't delete non-existent key " + key.toString());
 
+        removeAt(idx);
+    }
+
+    void removeAt(int idx) throws BTreeException {
         keys.remove(idx);
         leaves.remove(idx);
 
-        if(underOccupied()) {
+        if (underOccupied())
             rebalance();
-        }
+        else if (underflows())
+            redistribute();
     }
 
     @Override
@@ -156,11 +345,136 @@ class BplusTreeLeafNode<Key extends Comparable<Key>, Value> extends BplusTreeNod
         }
     }
 
+    @Override
+    BplusTreeLeafNode findLeaf(Key searchKey) {
+        return this;
+    }
+
+    @Override
+    BplusTreeLeafNode firstLeaf() {
+        return this;
+    }
+
+    @Override
+    BplusTreeLeafNode lastLeaf() {
+        return this;
+    }
+
+    /**
+     * Merges the run of sorted batch keys starting at {@code from} that belongs to this leaf in one pass,
+     * splitting it into as many leaves as the merged entries need.
+     *
+     * @return index of the first batch key that belongs to a following leaf
+     * @throws BTreeException if a batch key is already present, in which case this leaf is left untouched
+     */
+    int addAll(Key[] batchKeys, Value[] batchValues, int from) throws BTreeException {
+        Key bound = next == null ? null : (Key) next.LeftRangeKey;
+        int to = from;
+        while (to < batchKeys.length && (bound == null || batchKeys[to].compareTo(bound) < 0))
+            ++to;
+
+        int size = keys.size();
+        int total = size + to - from;
+        Object[] mergedKeys = new Object[total];
+        Object[] mergedValues = new Object[total];
+        for (int i = 0, j = from, k = 0; k < total; k++) {
+            int cmp = i == size ? 1 : j == to ? -1 : keys.get(i).compareTo(batchKeys[j]);
+            if (cmp == 0)
+                throw new BTreeException("Can't add currently present key " + batchKeys[j].toString());
+
+            if (cmp < 0) {
+                mergedKeys[k] = keys.get(i);
+                mergedValues[k] = leaves.get(i++);
+            } else {
+                mergedKeys[k] = batchKeys[j];
+                mergedValues[k] = batchValues[j++];
+            }
+        }
+
+        Key minKey = (Key) mergedKeys[0];
+        if (LeftRangeKey == null || minKey.compareTo(LeftRangeKey) < 0) {
+            if (parent != null)
+                parent.updateKeyOfNode(minKey, LeftRangeKey);
+            LeftRangeKey = minKey;
+        }
+
+        int pieces = (total + keys.maxSize() - 2) / (keys.maxSize() - 1);
+        int end = refill(mergedKeys, mergedValues, 0, total / pieces + (total % pieces > 0 ? 1 : 0));
+        if (pieces > 1 && parent == null) {
+            parent = new BplusTreeBranchNode(null, tree.getBranchCapacity());
+            parent.addNode(this, LeftRangeKey);
+        }
+
+        BplusTreeLeafNode<Key, Value> last = this, following = next;
+        for (int piece = 1; piece < pieces; piece++) {
+            int length = total / pieces + (piece < total % pieces ? 1 : 0);
+            BplusTreeLeafNode<Key, Value> rest = new BplusTreeLeafNode<>(following, last, last.parent, tree);
+            end = rest.refill(mergedKeys, mergedValues, end, length);
+            rest.LeftRangeKey = rest.keys.peekFront();
+            last.next = rest;
+            last.parent.addNode(rest, rest.LeftRangeKey);
+            last = rest;
+        }
+        if (following != null)
+            following.prev = last;
+
+        return to;
+    }
+
+    private int refill(Object[] mergedKeys, Object[] mergedValues, int from, int length) {
+        keys.clear();
+        leaves.clear();
+        for (int i = from; i < from + length; i++) {
+            keys.pushBack((Key) mergedKeys[i]);
+            leaves.pushBack((Value) mergedValues[i]);
+        }
+
+        return from + length;
+    }
+
     @Override
     public BplusTreeIterator peekLast() {
         return new BplusTreeIterator(this, keys.size() - 1);
     }
 
+    Value lastValue() {
+        return leaves.peekBack();
+    }
+
+    Value popLast() throws BTreeException {
+        keys.popBack();
+        Value result = leaves.popBack();
+
+        if (underOccupied())
+            rebalance();
+        return result;
+    }
+
+    /**
+     * Pops trailing entries into collection from the largest key down, the mirror of popInto
+     *
+     * @return number of entries popped
+     */
+    int popLastInto(Collection<? super Value> collection, int maxEntries) throws BTreeException {
+        int popped = 0;
+        if (size() <= maxEntries) {
+            popped = size();
+            for (int i = popped - 1; i >= 0; i--)
+                collection.add(leaves.get(i));
+            keys.clear();
+            leaves.clear();
+        } else {
+            for (; popped < maxEntries; popped++) {
+                keys.popBack();
+                collection.add(leaves.popBack());
+            }
+        }
+
+        if (underOccupied())
+            rebalance();
+        return popped;
+    }
+
 
     @Override
     public Key peekKey() {
@@ -184,6 +498,31 @@ class BplusTreeLeafNode<Key extends Comparable<Key>, Value> extends BplusTreeNod
         return result;
     }
 
+    /**
+     * Pops leading entries with keys up to maxKey into collection, a null maxKey taking any key.
+     * A leaf taken whole is cleared at once and removed from the tree.
+     *
+     * @return number of entries popped
+     */
+    int popInto(Collection<? super Value> collection, int maxEntries, Key maxKey) throws BTreeException {
+        int popped = 0;
+        if (size() <= maxEntries && (maxKey == null || keys.peekBack().compareTo(maxKey) <= 0)) {
+            for (; popped < size(); popped++)
+                collection.add(leaves.get(popped));
+            keys.clear();
+            leaves.clear();
+        } else {
+            for (; popped < maxEntries && (maxKey == null || keys.peekFront().compareTo(maxKey) <= 0); popped++) {
+                keys.popFront();
+                collection.add(leaves.popFront());
+            }
+        }
+
+        if (underOccupied())
+            rebalance();
+        return popped;
+    }
+
     public class BplusTreeIterator implements Iterator{
         private BplusTreeLeafNode<Key, Value> node;
         private int index;
@@ -0,0 +1,705 @@
+package bplustree;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+
+/**
+ * {@link NavigableMap} backed by a BplusTree, ordered by the natural ordering of its keys.
+ * Lookups and updates make a single descent, navigation uses the nearest entry queries of the tree and its cached
+ * first and last leaves, and the iterators of every view walk the leaf chain through a {@link BplusTreeCursor}.
+ * Null keys and values are not supported.
+ * Modifying the map other than through an iterator invalidates the iterations in progress.
+ */
+public class BplusTreeMap<Key extends Comparable<Key>, Value> extends AbstractMap<Key, Value> implements NavigableMap<Key, Value> {
+    private final BplusTree<Key, Value> tree;
+    private final BplusTreeMap<Key, Value> base;
+    private int size = 0;
+
+    /**
+     * Bounds of a view in ascending order, a null bound leaves that side open
+     */
+    private final Key lo, hi;
+    private final boolean loInclusive, hiInclusive, descending;
+
+    public BplusTreeMap() {
+        this(BplusTreeNode.DEFAULT_CAPACITY, BplusTreeNode.DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @throws IllegalArgumentException if a capacity is smaller than 3
+     */
+    public BplusTreeMap(int leafCapacity, int branchCapacity) {
+        this.tree = new BplusTree<>(leafCapacity, branchCapacity);
+        this.base = this;
+        this.lo = this.hi = null;
+        this.loInclusive = this.hiInclusive = true;
+        this.descending = false;
+    }
+
+    public BplusTreeMap(Map<? extends Key, ? extends Value> map) {
+        this();
+        putAll(map);
+    }
+
+    private BplusTreeMap(BplusTreeMap<Key, Value> base, Key lo, boolean loInclusive, Key hi, boolean hiInclusive, boolean descending) {
+        this.tree = base.tree;
+        this.base = base;
+        this.lo = lo;
+        this.loInclusive = loInclusive;
+        this.hi = hi;
+        this.hiInclusive = hiInclusive;
+        this.descending = descending;
+    }
+
+    @Override
+    public int size() {
+        if (!bounded())
+            return base.size;
+
+        Map.Entry<Key, Value> first = absLowest();
+        if (first == null)
+            return 0;
+
+        int count = 1;
+        for (BplusTreeCursor<Key, Value> cursor = cursorAt(first.getKey()); cursor.hasNext(); cursor.goToNext())
+            ++count;
+        return count;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return bounded() ? absLowest() == null : base.size == 0;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    @Override
+    public Value get(Object key) {
+        Key k = checkKey(key);
+        if (!inRange(k))
+            return null;
+
+        try {
+            return tree.find(k);
+        } catch (BTreeException e) {
+            throw unexpected(e);
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException if key is outside the range of this view
+     */
+    @Override
+    public Value put(Key key, Value value) {
+        checkKey(key);
+        if (value == null)
+            throw new NullPointerException("Can't work with null value");
+        if (!inRange(key))
+            throw new IllegalArgumentException("Key " + key + " is out of the range of this view");
+
+        try {
+            Value previous = tree.put(key, value);
+            if (previous == null)
+                ++base.size;
+            return previous;
+        } catch (BTreeException e) {
+            throw unexpected(e);
+        }
+    }
+
+    @Override
+    public Value remove(Object key) {
+        Key k = checkKey(key);
+        if (!inRange(k))
+            return null;
+
+        try {
+            Value removed = tree.removeIfPresent(k);
+            if (removed != null)
+                --base.size;
+            return removed;
+        } catch (BTreeException e) {
+            throw unexpected(e);
+        }
+    }
+
+    @Override
+    public void clear() {
+        if (bounded()) {
+            for (java.util.Iterator<Key> keys = keyIterator(); keys.hasNext(); ) {
+                keys.next();
+                keys.remove();
+            }
+            return;
+        }
+
+        try {
+            if (!tree.isEmpty())
+                tree.removeFrom(tree.peekKey());
+            base.size = 0;
+        } catch (BTreeException e) {
+            throw unexpected(e);
+        }
+    }
+
+    @Override
+    public Comparator<? super Key> comparator() {
+        return descending ? Collections.<Key>reverseOrder() : null;
+    }
+
+    @Override
+    public Map.Entry<Key, Value> firstEntry() {
+        return descending ? absHighest() : absLowest();
+    }
+
+    @Override
+    public Map.Entry<Key, Value> lastEntry() {
+        return descending ? absLowest() : absHighest();
+    }
+
+    @Override
+    public Key firstKey() {
+        return keyOrThrow(firstEntry());
+    }
+
+    @Override
+    public Key lastKey() {
+        return keyOrThrow(lastEntry());
+    }
+
+    @Override
+    public Map.Entry<Key, Value> pollFirstEntry() {
+        return descending ? pollHighest() : pollLowest();
+    }
+
+    @Override
+    public Map.Entry<Key, Value> pollLastEntry() {
+        return descending ? pollLowest() : pollHighest();
+    }
+
+    @Override
+    public Map.Entry<Key, Value> lowerEntry(Key key) {
+        return descending ? absHigher(checkKey(key)) : absLower(checkKey(key));
+    }
+
+    @Override
+    public Key lowerKey(Key key) {
+        return keyOrNull(lowerEntry(key));
+    }
+
+    @Override
+    public Map.Entry<Key, Value> floorEntry(Key key) {
+        return descending ? absCeiling(checkKey(key)) : absFloor(checkKey(key));
+    }
+
+    @Override
+    public Key floorKey(Key key) {
+        return keyOrNull(floorEntry(key));
+    }
+
+    @Override
+    public Map.Entry<Key, Value> ceilingEntry(Key key) {
+        return descending ? absFloor(checkKey(key)) : absCeiling(checkKey(key));
+    }
+
+    @Override
+    public Key ceilingKey(Key key) {
+        return keyOrNull(ceilingEntry(key));
+    }
+
+    @Override
+    public Map.Entry<Key, Value> higherEntry(Key key) {
+        return descending ? absLower(checkKey(key)) : absHigher(checkKey(key));
+    }
+
+    @Override
+    public Key higherKey(Key key) {
+        return keyOrNull(higherEntry(key));
+    }
+
+    @Override
+    public BplusTreeMap<Key, Value> descendingMap() {
+        return new BplusTreeMap<>(base, lo, loInclusive, hi, hiInclusive, !descending);
+    }
+
+    @Override
+    public NavigableSet<Key> navigableKeySet() {
+        return new KeySet<>(this);
+    }
+
+    @Override
+    public NavigableSet<Key> keySet() {
+        return navigableKeySet();
+    }
+
+    @Override
+    public NavigableSet<Key> descendingKeySet() {
+        return descendingMap().navigableKeySet();
+    }
+
+    @Override
+    public Set<Map.Entry<Key, Value>> entrySet() {
+        return new AbstractSet<Map.Entry<Key, Value>>() {
+            @Override
+            public java.util.Iterator<Map.Entry<Key, Value>> iterator() {
+                return new EntryIterator();
+            }
+
+            @Override
+            public int size() {
+                return BplusTreeMap.this.size();
+            }
+
+            @Override
+            public boolean isEmpty() {
+                return BplusTreeMap.this.isEmpty();
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                if (!(o instanceof Map.Entry) || ((Map.Entry<?, ?>) o).getKey() == null)
+                    return false;
+                Map.Entry<?, ?> entry = (Map.Entry<?, ?>) o;
+                Value value = get(entry.getKey());
+                return value != null && value.equals(entry.getValue());
+            }
+
+            @Override
+            public boolean remove(Object o) {
+                return contains(o) && BplusTreeMap.this.remove(((Map.Entry<?, ?>) o).getKey()) != null;
+            }
+
+            @Override
+            public void clear() {
+                BplusTreeMap.this.clear();
+            }
+        };
+    }
+
+    /**
+     * @throws IllegalArgumentException if fromKey is after toKey, or a key is outside the range of this view
+     */
+    @Override
+    public BplusTreeMap<Key, Value> subMap(Key fromKey, boolean fromInclusive, Key toKey, boolean toInclusive) {
+        checkBound(fromKey, fromInclusive);
+        checkBound(toKey, toInclusive);
+        if ((descending ? toKey.compareTo(fromKey) : fromKey.compareTo(toKey)) > 0)
+            throw new IllegalArgumentException("Range start " + fromKey + " is after its end " + toKey);
+
+        return descending ? view(toKey, toInclusive, fromKey, fromInclusive) : view(fromKey, fromInclusive, toKey, toInclusive);
+    }
+
+    @Override
+    public BplusTreeMap<Key, Value> headMap(Key toKey, boolean inclusive) {
+        checkBound(toKey, inclusive);
+        return descending ? view(toKey, inclusive, hi, hiInclusive) : view(lo, loInclusive, toKey, inclusive);
+    }
+
+    @Override
+    public BplusTreeMap<Key, Value> tailMap(Key fromKey, boolean inclusive) {
+        checkBound(fromKey, inclusive);
+        return descending ? view(lo, loInclusive, fromKey, inclusive) : view(fromKey, inclusive, hi, hiInclusive);
+    }
+
+    @Override
+    public SortedMap<Key, Value> subMap(Key fromKey, Key toKey) {
+        return subMap(fromKey, true, toKey, false);
+    }
+
+    @Override
+    public SortedMap<Key, Value> headMap(Key toKey) {
+        return headMap(toKey, false);
+    }
+
+    @Override
+    public SortedMap<Key, Value> tailMap(Key fromKey) {
+        return tailMap(fromKey, true);
+    }
+
+    private BplusTreeMap<Key, Value> view(Key lo, boolean loInclusive, Key hi, boolean hiInclusive) {
+        return new BplusTreeMap<>(base, lo, loInclusive, hi, hiInclusive, descending);
+    }
+
+    java.util.Iterator<Key> keyIterator() {
+        EntryIterator entries = new EntryIterator();
+
+        return new java.util.Iterator<Key>() {
+            @Override
+            public boolean hasNext() {
+                return entries.hasNext();
+            }
+
+            @Override
+            public Key next() {
+                return entries.next().getKey();
+            }
+
+            @Override
+            public void remove() {
+                entries.remove();
+            }
+        };
+    }
+
+    /**
+     * Walks the leaf chain of the view in its order. Removing through the iterator
+     * repositions the cursor at the entry it was about to return.
+     */
+    private final class EntryIterator implements java.util.Iterator<Map.Entry<Key, Value>> {
+        private BplusTreeCursor<Key, Value> cursor;
+        private Key lastKey;
+
+        EntryIterator() {
+            Map.Entry<Key, Value> first = firstEntry();
+            cursor = first == null ? null : cursorAt(first.getKey());
+        }
+
+        @Override
+        public boolean hasNext() {
+            return cursor != null;
+        }
+
+        @Override
+        public Map.Entry<Key, Value> next() {
+            if (cursor == null)
+                throw new NoSuchElementException();
+
+            Map.Entry<Key, Value> entry = new WriteThroughEntry(cursor.getKey(), cursor.getValue());
+            lastKey = entry.getKey();
+
+            if (descending ? !cursor.hasPrev() : !cursor.hasNext())
+                cursor = null;
+            else if (descending)
+                cursor.goToPrev();
+            else
+                cursor.goToNext();
+            return entry;
+        }
+
+        @Override
+        public void remove() {
+            if (lastKey == null)
+                throw new IllegalStateException();
+
+            Key nextKey = cursor == null ? null : cursor.getKey();
+            BplusTreeMap.this.remove(lastKey);
+            lastKey = null;
+            if (nextKey != null)
+                cursor = cursorAt(nextKey);
+        }
+    }
+
+    /**
+     * Replacing the value of a present key is done in place, so it does not disturb running iterations
+     */
+    private final class WriteThroughEntry extends AbstractMap.SimpleEntry<Key, Value> {
+        private static final long serialVersionUID = 1L;
+
+        WriteThroughEntry(Key key, Value value) {
+            super(key, value);
+        }
+
+        @Override
+        public Value setValue(Value value) {
+            put(getKey(), value);
+            return super.setValue(value);
+        }
+    }
+
+    static final class KeySet<E extends Comparable<E>> extends AbstractSet<E> implements NavigableSet<E> {
+        private final BplusTreeMap<E, ?> map;
+
+        KeySet(BplusTreeMap<E, ?> map) {
+            this.map = map;
+        }
+
+        @Override
+        public java.util.Iterator<E> iterator() {
+            return map.keyIterator();
+        }
+
+        @Override
+        public java.util.Iterator<E> descendingIterator() {
+            return descendingSet().iterator();
+        }
+
+        @Override
+        public int size() {
+            return map.size();
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return map.isEmpty();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return map.containsKey(o);
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            return map.remove(o) != null;
+        }
+
+        @Override
+        public void clear() {
+            map.clear();
+        }
+
+        @Override
+        public Comparator<? super E> comparator() {
+            return map.comparator();
+        }
+
+        @Override
+        public E first() {
+            return map.firstKey();
+        }
+
+        @Override
+        public E last() {
+            return map.lastKey();
+        }
+
+        @Override
+        public E lower(E e) {
+            return map.lowerKey(e);
+        }
+
+        @Override
+        public E floor(E e) {
+            return map.floorKey(e);
+        }
+
+        @Override
+        public E ceiling(E e) {
+            return map.ceilingKey(e);
+        }
+
+        @Override
+        public E higher(E e) {
+            return map.higherKey(e);
+        }
+
+        @Override
+        public E pollFirst() {
+            return keyOrNull(map.pollFirstEntry());
+        }
+
+        @Override
+        public E pollLast() {
+            return keyOrNull(map.pollLastEntry());
+        }
+
+        @Override
+        public NavigableSet<E> descendingSet() {
+            return new KeySet<>(map.descendingMap());
+        }
+
+        @Override
+        public NavigableSet<E> subSet(E fromElement, boolean fromInclusive, E toElement, boolean toInclusive) {
+            return new KeySet<>(map.subMap(fromElement, fromInclusive, toElement, toInclusive));
+        }
+
+        @Override
+        public NavigableSet<E> headSet(E toElement, boolean inclusive) {
+            return new KeySet<>(map.headMap(toElement, inclusive));
+        }
+
+        @Override
+        public NavigableSet<E> tailSet(E fromElement, boolean inclusive) {
+            return new KeySet<>(map.tailMap(fromElement, inclusive));
+        }
+
+        @Override
+        public SortedSet<E> subSet(E fromElement, E toElement) {
+            return subSet(fromElement, true, toElement, false);
+        }
+
+        @Override
+        public SortedSet<E> headSet(E toElement) {
+            return headSet(toElement, false);
+        }
+
+        @Override
+        public SortedSet<E> tailSet(E fromElement) {
+            return tailSet(fromElement, true);
+        }
+    }
+
+    /**
+     * Popping from the cached first leaf is only possible when the view has no lower bound
+     */
+    private Map.Entry<Key, Value> pollLowest() {
+        Map.Entry<Key, Value> entry = absLowest();
+        if (entry == null)
+            return null;
+        if (lo != null) {
+            remove(entry.getKey());
+            return entry;
+        }
+
+        try {
+            tree.pop();
+            --base.size;
+            return entry;
+        } catch (BTreeException e) {
+            throw unexpected(e);
+        }
+    }
+
+    private Map.Entry<Key, Value> pollHighest() {
+        Map.Entry<Key, Value> entry = absHighest();
+        if (entry == null)
+            return null;
+        if (hi != null) {
+            remove(entry.getKey());
+            return entry;
+        }
+
+        try {
+            tree.popLast();
+            --base.size;
+            return entry;
+        } catch (BTreeException e) {
+            throw unexpected(e);
+        }
+    }
+
+    private Map.Entry<Key, Value> absLowest() {
+        Map.Entry<Key, Value> entry;
+        if (lo != null)
+            entry = near(lo, false, loInclusive);
+        else if (tree.isEmpty())
+            entry = null;
+        else
+            entry = new AbstractMap.SimpleImmutableEntry<>(tree.peekKey(), tree.peekValue());
+
+        return entry == null || tooHigh(entry.getKey()) ? null : entry;
+    }
+
+    private Map.Entry<Key, Value> absHighest() {
+        Map.Entry<Key, Value> entry;
+        if (hi != null)
+            entry = near(hi, true, hiInclusive);
+        else if (tree.isEmpty())
+            entry = null;
+        else
+            entry = new AbstractMap.SimpleImmutableEntry<>(tree.peekLastKey(), tree.peekLastValue());
+
+        return entry == null || tooLow(entry.getKey()) ? null : entry;
+    }
+
+    private Map.Entry<Key, Value> absCeiling(Key key) {
+        if (tooLow(key))
+            return absLowest();
+        Map.Entry<Key, Value> entry = near(key, false, true);
+        return entry == null || tooHigh(entry.getKey()) ? null : entry;
+    }
+
+    private Map.Entry<Key, Value> absHigher(Key key) {
+        if (tooLow(key))
+            return absLowest();
+        Map.Entry<Key, Value> entry = near(key, false, false);
+        return entry == null || tooHigh(entry.getKey()) ? null : entry;
+    }
+
+    private Map.Entry<Key, Value> absFloor(Key key) {
+        if (tooHigh(key))
+            return absHighest();
+        Map.Entry<Key, Value> entry = near(key, true, true);
+        return entry == null || tooLow(entry.getKey()) ? null : entry;
+    }
+
+    private Map.Entry<Key, Value> absLower(Key key) {
+        if (tooHigh(key))
+            return absHighest();
+        Map.Entry<Key, Value> entry = near(key, true, false);
+        return entry == null || tooLow(entry.getKey()) ? null : entry;
+    }
+
+    private Map.Entry<Key, Value> near(Key key, boolean below, boolean inclusive) {
+        try {
+            if (below)
+                return inclusive ? tree.floorEntry(key) : tree.lowerEntry(key);
+            return inclusive ? tree.ceilingEntry(key) : tree.higherEntry(key);
+        } catch (BTreeException e) {
+            throw unexpected(e);
+        }
+    }
+
+    private BplusTreeCursor<Key, Value> cursorAt(Key key) {
+        return tree.cursor(key, true, lo, loInclusive, hi, hiInclusive);
+    }
+
+    private boolean bounded() {
+        return lo != null || hi != null;
+    }
+
+    private boolean tooLow(Key key) {
+        if (lo == null)
+            return false;
+        int cmp = key.compareTo(lo);
+        return cmp < 0 || (cmp == 0 && !loInclusive);
+    }
+
+    private boolean tooHigh(Key key) {
+        if (hi == null)
+            return false;
+        int cmp = key.compareTo(hi);
+        return cmp > 0 || (cmp == 0 && !hiInclusive);
+    }
+
+    private boolean inRange(Key key) {
+        return !tooLow(key) && !tooHigh(key);
+    }
+
+    /**
+     * A new exclusive bound may sit on an exclusive bound of this view, an inclusive one has to be inside the view
+     */
+    private void checkBound(Key key, boolean inclusive) {
+        checkKey(key);
+        boolean inside = inclusive ? inRange(key)
+                : (lo == null || key.compareTo(lo) >= 0) && (hi == null || key.compareTo(hi) <= 0);
+        if (!inside)
+            throw new IllegalArgumentException("Key " + key + " is out of the range of this view");
+    }
+
+    @SuppressWarnings("unchecked")
+    private Key checkKey(Object key) {
+        if (key == null)
+            throw new NullPointerException("Can't work with null key");
+        return (Key) key;
+    }
+
+    /**
+     * Keys are checked before reaching the tree, so a BTreeException means the tree itself is broken
+     */
+    private static IllegalStateException unexpected(BTreeException e) {
+        return new IllegalStateException(e);
+    }
+
+    private static <K> K keyOrNull(Map.Entry<K, ?> entry) {
+        return entry == null ? null : entry.getKey();
+    }
+
+    private static <K> K keyOrThrow(Map.Entry<K, ?> entry) {
+        if (entry == null)
+            throw new NoSuchElementException();
+        return entry.getKey();
+    }
+}
@@ -0,0 +1,95 @@
+package bplustree;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * BplusTree allowing several values per key. Each key is stored once with the run of its values in insertion order,
+ * so leaves, splits and separators work exactly as with unique keys and a run never spans leaves.
+ */
+public class BplusTreeMultimap<Key extends Comparable<Key>, Value> {
+    private final BplusTree<Key, List<Value>> tree;
+    private long size = 0;
+
+    public BplusTreeMultimap() {
+        this(BplusTreeNode.DEFAULT_CAPACITY, BplusTreeNode.DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @throws IllegalArgumentException if a capacity is smaller than 3
+     */
+    public BplusTreeMultimap(int leafCapacity, int branchCapacity) {
+        tree = new BplusTree<>(leafCapacity, branchCapacity);
+    }
+
+    public boolean isEmpty() {
+        return tree.isEmpty();
+    }
+
+    /**
+     * @return number of stored values, counting every duplicate
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Adds value after the values already stored for key
+     *
+     * @throws BTreeException if key or value is null
+     */
+    public void addDuplicate(Key key, Value value) throws BTreeException {
+        if (value == null)
+            throw new BTreeException("Can't work with null value");
+
+        tree.compute(key, (k, run) -> {
+            if (run == null)
+                run = new ArrayList<>(2);
+            run.add(value);
+            return run;
+        });
+        ++size;
+    }
+
+    /**
+     * @return unmodifiable copy of the values of key in insertion order, empty if key is not present,
+     * later mutations of the multimap don't show through it
+     */
+    public List<Value> findAll(Key key) throws BTreeException {
+        List<Value> run = tree.find(key);
+        return run == null ? Collections.emptyList() : Collections.unmodifiableList(new ArrayList<>(run));
+    }
+
+    public boolean contains(Key key) throws BTreeException {
+        return tree.contains(key);
+    }
+
+    /**
+     * Removes the first value of key equal to value, and key itself with its last value
+     *
+     * @return whether a value was removed
+     */
+    public boolean removeOne(Key key, Value value) throws BTreeException {
+        List<Value> run = tree.find(key);
+        if (run == null || !run.remove(value))
+            return false;
+
+        if (run.isEmpty())
+            tree.remove(key);
+        --size;
+        return true;
+    }
+
+    /**
+     * @return removed values of key in insertion order, empty if key was not present
+     */
+    public List<Value> removeAll(Key key) throws BTreeException {
+        List<Value> run = tree.removeIfPresent(key);
+        if (run == null)
+            return Collections.emptyList();
+
+        size -= run.size();
+        return run;
+    }
+}
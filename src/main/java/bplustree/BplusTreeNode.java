@@ -3,7 +3,8 @@ package bplustree;
 import utility.CircularFifoQueue;
 
 abstract class BplusTreeNode<Key extends Comparable, Value> {
-    protected static final int CAPACITY = 127;
+    protected static final int DEFAULT_CAPACITY = 127;
+    protected static final int MIN_CAPACITY = 3;
     protected BplusTreeBranchNode parent;
     protected CircularFifoQueue<Key> keys;
     protected Key LeftRangeKey;
@@ -20,9 +21,40 @@ abstract class BplusTreeNode<Key extends Comparable, Value> {
     protected abstract void split() throws BTreeException;
     protected abstract void rebalance() throws BTreeException;
 
+    /**
+     * @return whether the node holds fewer entries than the minimum occupancy
+     */
+    protected abstract boolean underflows();
+
+    /**
+     * Restores the minimum occupancy by borrowing entries from a sibling under the same parent,
+     * or by merging with that sibling when it has none to spare
+     */
+    protected abstract void redistribute() throws BTreeException;
+
+    /**
+     * @return entries held by a leaf, children held by a branch
+     */
+    abstract int occupancy();
+
+    /**
+     * Moves up to count leading entries of the next node on the same level to the end of this one,
+     * removing that node from the tree if it is emptied. The nodes may have different parents.
+     */
+    abstract void shiftFrom(BplusTreeNode<Key, Value> right, int count) throws BTreeException;
+
+    /**
+     * Nodes hold at most capacity - 1 entries at rest, so two nodes just below the minimum always fit in one
+     */
+    static int minOccupancy(int capacity) {
+        return Math.max(1, (capacity - 1) / 2);
+    }
+
     public boolean isInRange(Key key) throws BTreeException {
         if (key == null)
             throw new BTreeException("Can't work with null key");
+        if (isEmpty() || LeftRangeKey == null)
+            return false;
         return key.compareTo(LeftRangeKey) > -1 && key.compareTo(keys.peekBack()) < 1;
     }
 
@@ -30,6 +62,9 @@ abstract class BplusTreeNode<Key extends Comparable, Value> {
     public abstract void remove(Key searchKey) throws BTreeException;
     public abstract void removeFrom(Key searchKey) throws BTreeException;
     public abstract Value find(Key searchKey) throws BTreeException;
+    abstract BplusTreeLeafNode findLeaf(Key searchKey);
+    abstract BplusTreeLeafNode firstLeaf();
+    abstract BplusTreeLeafNode lastLeaf();
     public abstract BplusTreeLeafNode.BplusTreeIterator peekLast();
     public abstract Key peekKey();
     public abstract Value peekValue();
@@ -0,0 +1,119 @@
+package bplustree;
+
+import java.util.AbstractMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Lazy view over a key range of a BplusTree, nothing is copied until it is iterated.
+ * A null bound leaves that side of the range open.
+ * The view reads the live tree, structural modifications during an iteration are not supported.
+ */
+public class BplusTreeRange<Key extends Comparable<Key>, Value> implements Iterable<Map.Entry<Key, Value>> {
+    private final BplusTree<Key, Value> tree;
+    private final Key from, to;
+    private final boolean fromInclusive, toInclusive;
+
+    /**
+     * @throws IllegalArgumentException if from is greater than to
+     */
+    BplusTreeRange(BplusTree<Key, Value> tree, Key from, boolean fromInclusive, Key to, boolean toInclusive) {
+        if (from != null && to != null && from.compareTo(to) > 0)
+            throw new IllegalArgumentException("Range start " + from + " is greater than its end " + to);
+
+        this.tree = tree;
+        this.from = from;
+        this.fromInclusive = fromInclusive;
+        this.to = to;
+        this.toInclusive = toInclusive;
+    }
+
+    /**
+     * @return view over the intersection of this range and [from, to]
+     */
+    public BplusTreeRange<Key, Value> subMap(Key from, boolean fromInclusive, Key to, boolean toInclusive) {
+        Key lower = this.from, upper = this.to;
+        boolean lowerInclusive = this.fromInclusive, upperInclusive = this.toInclusive;
+
+        if (from != null) {
+            int cmp = lower == null ? 1 : from.compareTo(lower);
+            if (cmp >= 0) {
+                lowerInclusive = cmp > 0 ? fromInclusive : fromInclusive && lowerInclusive;
+                lower = from;
+            }
+        }
+        if (to != null) {
+            int cmp = upper == null ? -1 : to.compareTo(upper);
+            if (cmp <= 0) {
+                upperInclusive = cmp < 0 ? toInclusive : toInclusive && upperInclusive;
+                upper = to;
+            }
+        }
+
+        return new BplusTreeRange<>(tree, lower, lowerInclusive, upper, upperInclusive);
+    }
+
+    public BplusTreeRange<Key, Value> headMap(Key to, boolean inclusive) {
+        return subMap(null, true, to, inclusive);
+    }
+
+    public BplusTreeRange<Key, Value> tailMap(Key from, boolean inclusive) {
+        return subMap(from, inclusive, null, true);
+    }
+
+    public boolean isEmpty() {
+        return !cursor().isValid();
+    }
+
+    /**
+     * @return cursor positioned at the first entry of the range
+     */
+    public BplusTreeCursor<Key, Value> cursor() {
+        return tree.cursor(from, fromInclusive, to, toInclusive);
+    }
+
+    @Override
+    public java.util.Iterator<Map.Entry<Key, Value>> iterator() {
+        BplusTreeCursor<Key, Value> cursor = cursor();
+
+        return new java.util.Iterator<Map.Entry<Key, Value>>() {
+            private boolean positioned = cursor.isValid();
+
+            @Override
+            public boolean hasNext() {
+                return positioned;
+            }
+
+            @Override
+            public Map.Entry<Key, Value> next() {
+                if (!positioned)
+                    throw new NoSuchElementException();
+
+                Map.Entry<Key, Value> entry = new AbstractMap.SimpleImmutableEntry<>(cursor.getKey(), cursor.getValue());
+                positioned = cursor.hasNext();
+                if (positioned)
+                    cursor.goToNext();
+                return entry;
+            }
+        };
+    }
+
+    /**
+     * @return spliterator that splits at the child boundaries of branch nodes
+     */
+    @Override
+    public Spliterator<Map.Entry<Key, Value>> spliterator() {
+        return new BplusTreeSpliterator<>(tree.getRoot(), from, fromInclusive, to, toInclusive);
+    }
+
+    public Stream<Map.Entry<Key, Value>> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    public Stream<Map.Entry<Key, Value>> parallelStream() {
+        return StreamSupport.stream(spliterator(), true);
+    }
+}
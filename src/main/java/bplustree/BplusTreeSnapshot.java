@@ -0,0 +1,217 @@
+package bplustree;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Binary snapshot of a BplusTree: a header, then the entries in ascending key order in blocks prefixed by
+ * their entry count and byte length, then an empty block holding the total entry count.
+ * Blocks are decoded independently, so a restore reads and decodes the next window of them in parallel on the
+ * common pool while the tree is bulk loaded from the current window. Codecs must therefore be thread-safe.
+ */
+final class BplusTreeSnapshot {
+    private static final int MAGIC = 0x42505453;
+    private static final int VERSION = 1;
+    private static final int BLOCK_ENTRIES = 4096;
+    private static final int BLOCK_BYTES = 1 << 20;
+    private static final int MAX_BLOCK_BYTES = 64 << 20;
+    private static final int DECODE_WINDOW = 64;
+
+    private BplusTreeSnapshot() {
+    }
+
+    static <Key extends Comparable<Key>, Value> void write(BplusTreeLeafNode<Key, Value> firstLeaf, OutputStream stream,
+                                                           Codec<Key> keyCodec, Codec<Value> valueCodec) throws IOException {
+        DataOutputStream out = new DataOutputStream(stream);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+
+        ByteArrayOutputStream block = new ByteArrayOutputStream();
+        DataOutputStream blockOut = new DataOutputStream(block);
+        int blockEntries = 0;
+        long total = 0;
+
+        for (BplusTreeLeafNode<Key, Value> leaf = firstLeaf; leaf != null; leaf = leaf.getNext()) {
+            for (int i = 0; i < leaf.size(); i++) {
+                keyCodec.write(leaf.getKey(i), blockOut);
+                valueCodec.write(leaf.getValue(i), blockOut);
+                ++total;
+
+                if (++blockEntries == BLOCK_ENTRIES || block.size() >= BLOCK_BYTES) {
+                    writeBlock(out, blockEntries, block);
+                    blockEntries = 0;
+                }
+            }
+        }
+        if (blockEntries > 0)
+            writeBlock(out, blockEntries, block);
+
+        out.writeInt(0);
+        out.writeInt(0);
+        out.writeLong(total);
+        out.flush();
+    }
+
+    private static void writeBlock(DataOutputStream out, int entries, ByteArrayOutputStream block) throws IOException {
+        if (block.size() > MAX_BLOCK_BYTES)
+            throw new IOException("Snapshot entries are too large, a block takes " + block.size() + " bytes");
+        out.writeInt(entries);
+        out.writeInt(block.size());
+        block.writeTo(out);
+        block.reset();
+    }
+
+    /**
+     * @return entries of the snapshot in ascending key order, decoded window by window with one window read ahead
+     * @throws UncheckedIOException from the iterator if the snapshot is truncated or corrupt
+     */
+    static <Key extends Comparable<Key>, Value> Reader<Key, Value> read(
+            InputStream stream, Codec<Key> keyCodec, Codec<Value> valueCodec) throws IOException {
+        DataInputStream in = new DataInputStream(stream);
+        if (in.readInt() != MAGIC)
+            throw new IOException("Stream is not a BplusTree snapshot");
+        int version = in.readInt();
+        if (version != VERSION)
+            throw new IOException("Unsupported snapshot version " + version);
+
+        return new Reader<>(in, keyCodec, valueCodec);
+    }
+
+    /**
+     * Reads the next window on the common pool while the current one is consumed.
+     * It has to be closed once done with, so the read ahead no longer touches the stream.
+     */
+    static final class Reader<Key extends Comparable<Key>, Value> implements java.util.Iterator<Map.Entry<Key, Value>>, AutoCloseable {
+        private final DataInputStream in;
+        private final Codec<Key> keyCodec;
+        private final Codec<Value> valueCodec;
+        private List<Map.Entry<Key, Value>> window = new ArrayList<>();
+        private CompletableFuture<List<Map.Entry<Key, Value>>> prefetch;
+        private int index = 0;
+        private boolean exhausted = false;
+        private volatile boolean closed = false;
+        // only touched by readWindow, which never runs concurrently with itself
+        private long total = 0;
+        private boolean ended = false;
+
+        private Reader(DataInputStream in, Codec<Key> keyCodec, Codec<Value> valueCodec) {
+            this.in = in;
+            this.keyCodec = keyCodec;
+            this.valueCodec = valueCodec;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (index == window.size() && !exhausted) {
+                window = prefetch == null ? readWindow() : awaitPrefetch();
+                index = 0;
+                exhausted = window.isEmpty();
+                prefetch = exhausted ? null : CompletableFuture.supplyAsync(this::readWindow);
+            }
+            return index < window.size();
+        }
+
+        private List<Map.Entry<Key, Value>> awaitPrefetch() {
+            try {
+                return prefetch.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException)
+                    throw (RuntimeException) e.getCause();
+                throw e;
+            }
+        }
+
+        @Override
+        public Map.Entry<Key, Value> next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            return window.get(index++);
+        }
+
+        /**
+         * Stops the read ahead after the block it is reading and waits for it, whatever its outcome
+         */
+        @Override
+        public void close() {
+            closed = true;
+            exhausted = true;
+            if (prefetch != null) {
+                try {
+                    prefetch.join();
+                } catch (CompletionException ignored) {
+                    // nobody asked for that window anymore
+                }
+                prefetch = null;
+            }
+        }
+
+        /**
+         * @return entries of the next window, empty once the end block was read or the reader was closed
+         */
+        private List<Map.Entry<Key, Value>> readWindow() {
+            try {
+                List<byte[]> blocks = new ArrayList<>();
+                List<Integer> counts = new ArrayList<>();
+                while (blocks.size() < DECODE_WINDOW && !ended) {
+                    if (closed)
+                        return new ArrayList<>();
+
+                    int entries = in.readInt();
+                    int length = in.readInt();
+                    if (entries < 0 || entries > BLOCK_ENTRIES || length < 0 || length > MAX_BLOCK_BYTES
+                            || (entries == 0 && length != 0))
+                        throw new IOException("Snapshot block of " + entries + " entries in " + length + " bytes is corrupt");
+                    if (entries == 0) {
+                        if (in.readLong() != total)
+                            throw new IOException("Snapshot entry count doesn't match its blocks");
+                        ended = true;
+                        break;
+                    }
+                    byte[] bytes = new byte[length];
+                    in.readFully(bytes);
+                    blocks.add(bytes);
+                    counts.add(entries);
+                    total += entries;
+                }
+
+                List<List<Map.Entry<Key, Value>>> decoded = new ArrayList<>(blocks.size());
+                for (int i = 0; i < blocks.size(); i++)
+                    decoded.add(null);
+                IntStream.range(0, blocks.size()).parallel()
+                        .forEach(i -> decoded.set(i, decode(blocks.get(i), counts.get(i))));
+
+                return decoded.stream().flatMap(List::stream).collect(Collectors.toList());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private List<Map.Entry<Key, Value>> decode(byte[] block, int entries) {
+            DataInputStream blockIn = new DataInputStream(new ByteArrayInputStream(block));
+            List<Map.Entry<Key, Value>> result = new ArrayList<>(entries);
+            try {
+                for (int i = 0; i < entries; i++)
+                    result.add(new AbstractMap.SimpleImmutableEntry<>(keyCodec.read(blockIn), valueCodec.read(blockIn)));
+            } catch (IOException | RuntimeException e) {
+                // codecs can fail on corrupt bytes in any way, restore only reports IOException
+                throw new UncheckedIOException(new IOException("Snapshot block is corrupt", e));
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package bplustree;
+
+import java.util.AbstractMap;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+import static utility.Utils.searchLeftmostKey;
+
+/**
+ * Spliterator over a key range of a BplusTree.
+ * It covers the children [lo, hi) of one node and splits them in halves, descending into a single
+ * remaining child when needed, so every split is made at a child boundary of a branch node.
+ * Once traversal starts it walks the leaf chain up to the last leaf of its children and no longer splits.
+ */
+final class BplusTreeSpliterator<Key extends Comparable<Key>, Value> implements Spliterator<Map.Entry<Key, Value>> {
+    private final Key from, to;
+    private final boolean fromInclusive, toInclusive;
+    private BplusTreeNode<Key, Value> node;
+    private int lo, hi;
+    private long estimate;
+
+    private boolean started = false;
+    private BplusTreeLeafNode<Key, Value> leaf, lastLeaf;
+    private int index;
+
+    BplusTreeSpliterator(BplusTreeNode<Key, Value> root, Key from, boolean fromInclusive, Key to, boolean toInclusive) {
+        this.from = from;
+        this.fromInclusive = fromInclusive;
+        this.to = to;
+        this.toInclusive = toInclusive;
+        cover(root);
+    }
+
+    private BplusTreeSpliterator(BplusTreeSpliterator<Key, Value> parent, int lo, int hi, long estimate) {
+        this.from = parent.from;
+        this.fromInclusive = parent.fromInclusive;
+        this.to = parent.to;
+        this.toInclusive = parent.toInclusive;
+        this.node = parent.node;
+        this.lo = lo;
+        this.hi = hi;
+        this.estimate = estimate;
+    }
+
+    /**
+     * Covers the children of node that may hold keys of the range
+     */
+    private void cover(BplusTreeNode<Key, Value> node) {
+        this.node = node;
+        if (node instanceof BplusTreeBranchNode) {
+            BplusTreeBranchNode<Key, Value> branch = (BplusTreeBranchNode<Key, Value>) node;
+            lo = from == null ? 0 : branch.childIndex(from);
+            hi = to == null ? branch.childCount() : branch.childIndex(to) + 1;
+        } else {
+            lo = 0;
+            hi = node.isEmpty() ? 0 : 1;
+        }
+        estimate = hi > lo ? (hi - lo) * estimateOf(child(lo)) : 0;
+    }
+
+    private BplusTreeNode<Key, Value> child(int i) {
+        if (node instanceof BplusTreeBranchNode)
+            return ((BplusTreeBranchNode<Key, Value>) node).getChild(i);
+        return node;
+    }
+
+    /**
+     * Rough size of a subtree, assuming its siblings look like its leftmost path
+     */
+    private static long estimateOf(BplusTreeNode node) {
+        if (node instanceof BplusTreeBranchNode) {
+            BplusTreeBranchNode branch = (BplusTreeBranchNode) node;
+            return branch.childCount() * estimateOf(branch.getChild(0));
+        }
+        return ((BplusTreeLeafNode) node).size();
+    }
+
+    @Override
+    public Spliterator<Map.Entry<Key, Value>> trySplit() {
+        if (started)
+            return null;
+
+        while (hi - lo == 1 && child(lo) instanceof BplusTreeBranchNode)
+            cover(child(lo));
+        if (hi - lo < 2)
+            return null;
+
+        int mid = (lo + hi) >>> 1;
+        long prefixEstimate = estimate * (mid - lo) / (hi - lo);
+        BplusTreeSpliterator<Key, Value> prefix = new BplusTreeSpliterator<>(this, lo, mid, prefixEstimate);
+        lo = mid;
+        estimate -= prefixEstimate;
+        return prefix;
+    }
+
+    private void start() {
+        started = true;
+        if (lo >= hi)
+            return;
+
+        BplusTreeNode<Key, Value> first = child(lo);
+        if (from == null) {
+            leaf = first.firstLeaf();
+            index = 0;
+        } else {
+            leaf = first.findLeaf(from);
+            index = searchLeftmostKey(leaf.keys, from, leaf.size());
+            if (index < 0)
+                index = -(index + 1);
+            else if (!fromInclusive)
+                ++index;
+        }
+        lastLeaf = child(hi - 1).lastLeaf();
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super Map.Entry<Key, Value>> action) {
+        if (!started)
+            start();
+
+        while (leaf != null && index >= leaf.size()) {
+            leaf = leaf == lastLeaf ? null : leaf.getNext();
+            index = 0;
+        }
+        if (leaf == null)
+            return false;
+
+        Key key = leaf.getKey(index);
+        if (!belowTo(key)) {
+            leaf = null;
+            return false;
+        }
+
+        action.accept(new AbstractMap.SimpleImmutableEntry<>(key, leaf.getValue(index)));
+        ++index;
+        return true;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super Map.Entry<Key, Value>> action) {
+        while (tryAdvance(action)) ;
+    }
+
+    @Override
+    public long estimateSize() {
+        return estimate;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | DISTINCT | SORTED | NONNULL;
+    }
+
+    @Override
+    public Comparator<? super Map.Entry<Key, Value>> getComparator() {
+        return Map.Entry.comparingByKey();
+    }
+
+    private boolean belowTo(Key key) {
+        if (to == null)
+            return true;
+        int cmp = key.compareTo(to);
+        return cmp < 0 || (cmp == 0 && toInclusive);
+    }
+}
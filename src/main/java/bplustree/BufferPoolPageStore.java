@@ -0,0 +1,232 @@
+package bplustree;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Pages of a file cached in a fixed number of frames of one direct buffer, so memory use is bounded by the pool size.
+ * A missing page is read into a frame chosen by the CLOCK algorithm: the hand clears the reference bit of
+ * recently used frames and evicts the first unpinned frame whose bit is already clear, writing it back if dirty.
+ */
+class BufferPoolPageStore extends PageStore {
+    static final int MIN_FRAMES = 4;
+    private static final long NO_PAGE = -1;
+
+    private final FileChannel channel;
+    private final ByteBuffer frames;
+    private final long[] framePage;
+    private final boolean[] referenced, dirty;
+    private final int[] pinCount;
+    private final HashMap<Long, Integer> pageTable;
+    private int hand = 0;
+    private long lastPage = NO_PAGE;
+    private int lastFrame;
+    private long hits = 0, misses = 0, evictions = 0;
+
+    BufferPoolPageStore(FileChannel channel, int pageSize, int frameCount) {
+        super(pageSize);
+        if (frameCount < MIN_FRAMES)
+            throw new IllegalArgumentException("Buffer pool needs at least " + MIN_FRAMES + " frames");
+
+        this.channel = channel;
+        this.frames = ByteBuffer.allocateDirect(pageSize * frameCount);
+        this.framePage = new long[frameCount];
+        this.referenced = new boolean[frameCount];
+        this.dirty = new boolean[frameCount];
+        this.pinCount = new int[frameCount];
+        this.pageTable = new HashMap<>(frameCount * 2);
+        Arrays.fill(framePage, NO_PAGE);
+    }
+
+    /**
+     * Opens the page file, creating it if needed. The page size of an existing file is read from its header.
+     *
+     * @param pageSize  page size of a new file
+     * @param frameCount  number of pages kept in memory
+     * @throws IOException if the file can't be opened or its header is not a page file header
+     */
+    static BufferPoolPageStore open(Path file, int pageSize, int frameCount) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            if (channel.size() > 0)
+                pageSize = readPageSize(channel);
+            return new BufferPoolPageStore(channel, pageSize, frameCount);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    @Override
+    long getHits() {
+        return hits;
+    }
+
+    @Override
+    long getMisses() {
+        return misses;
+    }
+
+    @Override
+    long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * @return byte position of offset inside the frame buffer, loading its page if needed
+     */
+    private int positionOf(long offset) {
+        long page = offset - offset % pageSize;
+        if (page != lastPage) {
+            Integer frame = pageTable.get(page);
+            if (frame == null) {
+                ++misses;
+                frame = load(page);
+            } else {
+                ++hits;
+            }
+            lastPage = page;
+            lastFrame = frame;
+        }
+
+        referenced[lastFrame] = true;
+        return lastFrame * pageSize + (int) (offset - lastPage);
+    }
+
+    private int load(long page) {
+        int frame = victim();
+        ByteBuffer target = frameBuffer(frame);
+        try {
+            while (target.hasRemaining() && channel.read(target, page + target.position()) > 0) ;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        while (target.hasRemaining())
+            target.put((byte) 0);
+
+        framePage[frame] = page;
+        pageTable.put(page, frame);
+        return frame;
+    }
+
+    /**
+     * @return a free frame, evicting the page of the first unpinned frame the CLOCK hand finds unreferenced
+     */
+    private int victim() {
+        for (int step = 0; step <= 2 * framePage.length; step++) {
+            int frame = hand;
+            hand = (hand + 1) % framePage.length;
+
+            if (framePage[frame] == NO_PAGE)
+                return frame;
+            if (pinCount[frame] > 0)
+                continue;
+            if (referenced[frame]) {
+                referenced[frame] = false;
+                continue;
+            }
+
+            writeBack(frame);
+            pageTable.remove(framePage[frame]);
+            if (lastPage == framePage[frame])
+                lastPage = NO_PAGE;
+            framePage[frame] = NO_PAGE;
+            ++evictions;
+            return frame;
+        }
+        throw new IllegalStateException("All " + framePage.length + " buffer pool frames are pinned");
+    }
+
+    private void writeBack(int frame) {
+        if (!dirty[frame])
+            return;
+
+        ByteBuffer source = frameBuffer(frame);
+        try {
+            while (source.hasRemaining())
+                channel.write(source, framePage[frame] + source.position());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        dirty[frame] = false;
+    }
+
+    /**
+     * @return view of the frame whose position counts from the start of the page
+     */
+    private ByteBuffer frameBuffer(int frame) {
+        ByteBuffer buffer = frames.duplicate();
+        buffer.position(frame * pageSize).limit((frame + 1) * pageSize);
+        return buffer.slice();
+    }
+
+    @Override
+    void pin(long page) {
+        positionOf(page);
+        ++pinCount[lastFrame];
+    }
+
+    @Override
+    void unpin(long page) {
+        Integer frame = pageTable.get(page);
+        if (frame == null || pinCount[frame] == 0)
+            throw new IllegalStateException("Page " + page + " is not pinned");
+        --pinCount[frame];
+    }
+
+    @Override
+    long getLong(long offset) {
+        return frames.getLong(positionOf(offset));
+    }
+
+    @Override
+    void putLong(long offset, long value) {
+        frames.putLong(positionOf(offset), value);
+        dirty[lastFrame] = true;
+    }
+
+    @Override
+    int getInt(long offset) {
+        return frames.getInt(positionOf(offset));
+    }
+
+    @Override
+    void putInt(long offset, int value) {
+        frames.putInt(positionOf(offset), value);
+        dirty[lastFrame] = true;
+    }
+
+    /**
+     * Pages beyond the end of the file read as zeros, the file grows when they are written back
+     */
+    @Override
+    protected void ensureCapacity(long bytes) {
+    }
+
+    @Override
+    void flush() throws IOException {
+        try {
+            for (int frame = 0; frame < framePage.length; frame++)
+                if (framePage[frame] != NO_PAGE)
+                    writeBack(frame);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        channel.force(false);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+}
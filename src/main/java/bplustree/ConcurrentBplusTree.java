@@ -0,0 +1,518 @@
+package bplustree;
+
+import utility.CircularFifoQueue;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.BiConsumer;
+
+import static utility.Utils.searchLeftmostKey;
+import static utility.Utils.searchRightmostKey;
+
+/**
+ * Thread-safe BplusTree where every node carries its own read/write latch.
+ * Readers couple latches down the tree, releasing a parent as soon as its child is latched.
+ * Writers first descend the same way and latch only the leaf for writing, which is enough when the leaf
+ * can't split or empty. Otherwise they restart with write latches, releasing all ancestors whenever
+ * the latched child is safe from splitting or emptying.
+ * <p>
+ * With optimistic reads, readers take no latch at all. The version kept by every latch changes whenever a writer
+ * holds it, around inserts, splits and child removals, and readers retry when a visited node's version changed.
+ * <p>
+ * Separators are only lower bounds of their children and the first separator of a branch is never read,
+ * so removing the smallest key of a node never updates its ancestors, and nodes keep no parent or sibling pointers.
+ */
+public class ConcurrentBplusTree<Key extends Comparable<Key>, Value> {
+    private final int leafCapacity, branchCapacity;
+    private static final int OPTIMISTIC_ATTEMPTS = 8;
+    private final boolean optimisticReads;
+    private final StampedLock rootLatch = new StampedLock();
+    private volatile Node<Key, Value> _root;
+
+    public ConcurrentBplusTree() {
+        this(false);
+    }
+
+    public ConcurrentBplusTree(boolean optimisticReads) {
+        this(BplusTreeNode.DEFAULT_CAPACITY, BplusTreeNode.DEFAULT_CAPACITY, optimisticReads);
+    }
+
+    public ConcurrentBplusTree(int leafCapacity, int branchCapacity) {
+        this(leafCapacity, branchCapacity, false);
+    }
+
+    /**
+     * @param optimisticReads  whether readers validate node versions instead of taking read latches
+     * @throws IllegalArgumentException if a capacity is smaller than 3
+     */
+    public ConcurrentBplusTree(int leafCapacity, int branchCapacity, boolean optimisticReads) {
+        if (leafCapacity < BplusTreeNode.MIN_CAPACITY || branchCapacity < BplusTreeNode.MIN_CAPACITY)
+            throw new IllegalArgumentException("Node capacity must be at least " + BplusTreeNode.MIN_CAPACITY);
+
+        this.leafCapacity = leafCapacity;
+        this.branchCapacity = branchCapacity;
+        this.optimisticReads = optimisticReads;
+        this._root = new LeafNode<>(leafCapacity);
+    }
+
+    public boolean isEmpty() {
+        return peekKey() == null;
+    }
+
+    /**
+     * @return the value stored for key, or null if key is not present
+     */
+    public Value find(Key key) throws BTreeException {
+        if (key == null)
+            throw new BTreeException("Can't search on null key");
+
+        return read(key, (leaf, upper) -> {
+            int idx = searchLeftmostKey(leaf.keys, key, leaf.keys.size());
+            return idx < 0 ? null : leaf.values.get(idx);
+        });
+    }
+
+    /**
+     * @return the smallest key, or null if the tree is empty
+     */
+    public Key peekKey() {
+        return read(null, (leaf, upper) -> leaf.keys.isEmpty() ? null : leaf.keys.peekFront());
+    }
+
+    /**
+     * @return the value of the smallest key, or null if the tree is empty
+     */
+    public Value peekValue() {
+        return read(null, (leaf, upper) -> leaf.values.isEmpty() ? null : leaf.values.peekFront());
+    }
+
+    /**
+     * Passes the entries of [from, to) to action in ascending key order, a null bound leaves that side open.
+     * Every leaf is copied atomically and the scan continues from the lower bound of the following leaf,
+     * so entries modified concurrently in leaves not reached yet may or may not be seen.
+     */
+    public void scan(Key from, Key to, BiConsumer<? super Key, ? super Value> action) {
+        Key lower = from;
+        while (true) {
+            final Key leafFrom = lower;
+            LeafCopy<Key, Value> copy = read(leafFrom, (leaf, upper) -> new LeafCopy<>(leaf, leafFrom, to, upper));
+
+            for (int i = 0; i < copy.size; i++)
+                action.accept((Key) copy.keys[i], (Value) copy.values[i]);
+
+            if (copy.upper == null || (to != null && copy.upper.compareTo(to) >= 0))
+                return;
+            lower = copy.upper;
+        }
+    }
+
+    public void add(Key key, Value value) throws BTreeException {
+        if (key == null)
+            throw new BTreeException("Can't add null keys");
+
+        LeafNode<Key, Value> leaf = writeLeaf(key);
+        try {
+            if (leaf.keys.size() < leafCapacity - 1) {
+                leaf.add(key, value);
+                return;
+            }
+        } finally {
+            leaf.latch.unlockWrite(leaf.writeStamp);
+        }
+
+        modifyWithCrabbing(key, value, Operation.ADD);
+    }
+
+    public void remove(Key key) throws BTreeException {
+        if (key == null)
+            throw new BTreeException("Can't delete null key");
+
+        LeafNode<Key, Value> leaf = writeLeaf(key);
+        try {
+            if (leaf.keys.size() > 1) {
+                leaf.remove(key);
+                return;
+            }
+        } finally {
+            leaf.latch.unlockWrite(leaf.writeStamp);
+        }
+
+        modifyWithCrabbing(key, null, Operation.REMOVE);
+    }
+
+    /**
+     * Removes the smallest key
+     *
+     * @return its value, or null if the tree is empty
+     */
+    public Value pop() throws BTreeException {
+        LeafNode<Key, Value> leaf = writeLeaf(null);
+        try {
+            if (leaf.keys.size() > 1)
+                return leaf.pop();
+            if (leaf.keys.isEmpty())
+                return null;
+        } finally {
+            leaf.latch.unlockWrite(leaf.writeStamp);
+        }
+
+        return modifyWithCrabbing(null, null, Operation.POP);
+    }
+
+    /**
+     * Runs reader on the leaf holding key, or on the first leaf if key is null, along with the lower bound
+     * of the following leaf. With optimistic reads the descent writes no shared memory: it only records
+     * the version of every node and retries when a node changed under it, so reader must have no side effects
+     * and may observe a torn node. After a few failed attempts it falls back to coupling read latches.
+     */
+    private <T> T read(Key key, LeafReader<Key, Value, T> reader) {
+        for (int attempt = 0; optimisticReads && attempt < OPTIMISTIC_ATTEMPTS; attempt++) {
+            try {
+                long rootStamp = rootLatch.tryOptimisticRead();
+                Node<Key, Value> node = _root;
+                long stamp = node.latch.tryOptimisticRead();
+                if (!rootLatch.validate(rootStamp))
+                    continue;
+
+                Key upper = null;
+                while (stamp != 0 && node instanceof BranchNode) {
+                    BranchNode<Key, Value> branch = (BranchNode<Key, Value>) node;
+                    int idx = branch.routeIndex(key);
+                    if (idx + 1 < branch.keys.size())
+                        upper = branch.keys.get(idx + 1);
+                    Node<Key, Value> child = branch.children.get(idx);
+
+                    long childStamp = child.latch.tryOptimisticRead();
+                    if (!node.latch.validate(stamp))
+                        childStamp = 0;
+                    node = child;
+                    stamp = childStamp;
+                }
+                if (stamp == 0)
+                    continue;
+
+                T result = reader.read((LeafNode<Key, Value>) node, upper);
+                if (node.latch.validate(stamp))
+                    return result;
+            } catch (RuntimeException e) {
+                // a writer modified a node while it was read, its version no longer validates either
+            }
+        }
+
+        long rootStamp = rootLatch.readLock();
+        Node<Key, Value> node = _root;
+        long stamp = node.latch.readLock();
+        rootLatch.unlockRead(rootStamp);
+
+        Key upper = null;
+        while (node instanceof BranchNode) {
+            BranchNode<Key, Value> branch = (BranchNode<Key, Value>) node;
+            int idx = branch.routeIndex(key);
+            if (idx + 1 < branch.keys.size())
+                upper = branch.keys.get(idx + 1);
+            Node<Key, Value> child = branch.children.get(idx);
+
+            long childStamp = child.latch.readLock();
+            node.latch.unlockRead(stamp);
+            node = child;
+            stamp = childStamp;
+        }
+
+        try {
+            return reader.read((LeafNode<Key, Value>) node, upper);
+        } finally {
+            node.latch.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Couples read latches down the branches and write latches only the leaf holding key,
+     * or the first leaf if key is null
+     *
+     * @return the leaf, write latched
+     */
+    private LeafNode<Key, Value> writeLeaf(Key key) {
+        long rootStamp = rootLatch.readLock();
+        Node<Key, Value> node = _root;
+        long stamp = node instanceof LeafNode ? node.latch.writeLock() : node.latch.readLock();
+        rootLatch.unlockRead(rootStamp);
+
+        while (node instanceof BranchNode) {
+            Node<Key, Value> child = ((BranchNode<Key, Value>) node).route(key);
+            long childStamp = child instanceof LeafNode ? child.latch.writeLock() : child.latch.readLock();
+            node.latch.unlockRead(stamp);
+            node = child;
+            stamp = childStamp;
+        }
+
+        LeafNode<Key, Value> leaf = (LeafNode<Key, Value>) node;
+        leaf.writeStamp = stamp;
+        return leaf;
+    }
+
+    /**
+     * Descends with write latches, keeping latched only the ancestors that the operation may modify,
+     * then applies the operation at the leaf and propagates splits or emptied nodes upwards.
+     */
+    private Value modifyWithCrabbing(Key key, Value value, Operation operation) throws BTreeException {
+        ArrayDeque<Node<Key, Value>> latched = new ArrayDeque<>();
+        long rootStamp = rootLatch.writeLock();
+        boolean rootLatched = true;
+
+        try {
+            Node<Key, Value> node = _root;
+            node.writeStamp = node.latch.writeLock();
+            latched.push(node);
+            if (operation.isSafe(node)) {
+                rootLatch.unlockWrite(rootStamp);
+                rootLatched = false;
+            }
+
+            while (node instanceof BranchNode) {
+                node = ((BranchNode<Key, Value>) node).route(key);
+                node.writeStamp = node.latch.writeLock();
+                if (operation.isSafe(node)) {
+                    unlockAll(latched);
+                    if (rootLatched) {
+                        rootLatch.unlockWrite(rootStamp);
+                        rootLatched = false;
+                    }
+                }
+                latched.push(node);
+            }
+
+            LeafNode<Key, Value> leaf = (LeafNode<Key, Value>) node;
+            Value result = null;
+            switch (operation) {
+                case ADD:
+                    leaf.add(key, value);
+                    break;
+                case REMOVE:
+                    leaf.remove(key);
+                    break;
+                case POP:
+                    if (leaf.keys.isEmpty())
+                        return null;
+                    result = leaf.pop();
+                    break;
+            }
+
+            propagate(latched, key);
+            return result;
+        } finally {
+            unlockAll(latched);
+            if (rootLatched)
+                rootLatch.unlockWrite(rootStamp);
+        }
+    }
+
+    /**
+     * Walks the latched path bottom-up, splitting full nodes and removing emptied ones from their parent.
+     * The root latch is still held whenever the root itself has to be replaced.
+     */
+    private void propagate(ArrayDeque<Node<Key, Value>> latched, Key key) {
+        java.util.Iterator<Node<Key, Value>> path = latched.iterator();
+        Node<Key, Value> node = path.next();
+
+        while (true) {
+            BranchNode<Key, Value> parent = path.hasNext() ? (BranchNode<Key, Value>) path.next() : null;
+
+            if (node.isFull()) {
+                Node<Key, Value> rest = node.split();
+                if (parent == null) {
+                    _root = new BranchNode<>(branchCapacity, node, rest);
+                    return;
+                }
+                parent.insertChild(rest);
+            } else if (node.isEmpty()) {
+                if (parent == null) {
+                    if (node instanceof BranchNode)
+                        _root = new LeafNode<>(leafCapacity);
+                    return;
+                }
+                parent.removeChild(parent.routeIndex(key));
+            } else {
+                return;
+            }
+
+            node = parent;
+        }
+    }
+
+    private static void unlockAll(ArrayDeque<? extends Node> latched) {
+        while (!latched.isEmpty()) {
+            Node node = latched.pollLast();
+            node.latch.unlockWrite(node.writeStamp);
+        }
+    }
+
+    private interface LeafReader<Key extends Comparable<Key>, Value, T> {
+        T read(LeafNode<Key, Value> leaf, Key upper);
+    }
+
+    /**
+     * Entries of one leaf within a scanned range, with the lower bound of the following leaf
+     */
+    private static final class LeafCopy<Key extends Comparable<Key>, Value> {
+        final Object[] keys, values;
+        final int size;
+        final Key upper;
+
+        LeafCopy(LeafNode<Key, Value> leaf, Key from, Key to, Key upper) {
+            int begin = 0, end = leaf.keys.size();
+            if (from != null) {
+                begin = searchLeftmostKey(leaf.keys, from, end);
+                begin = begin < 0 ? -(begin + 1) : begin;
+            }
+            if (to != null) {
+                int idx = searchLeftmostKey(leaf.keys, to, end);
+                end = idx < 0 ? -(idx + 1) : idx;
+            }
+
+            this.size = Math.max(0, end - begin);
+            this.keys = new Object[size];
+            this.values = new Object[size];
+            for (int i = 0; i < size; i++) {
+                keys[i] = leaf.keys.get(begin + i);
+                values[i] = leaf.values.get(begin + i);
+            }
+            this.upper = upper;
+        }
+    }
+
+    private enum Operation {
+        ADD, REMOVE, POP;
+
+        /**
+         * @return whether applying the operation below node can't split or empty it
+         */
+        boolean isSafe(Node node) {
+            return this == ADD ? node.size() < node.capacity() - 1 : node.size() > 1;
+        }
+    }
+
+    private abstract static class Node<Key extends Comparable<Key>, Value> {
+        final StampedLock latch = new StampedLock();
+        final CircularFifoQueue<Key> keys;
+
+        /** Stamp of the write latch, only touched by the thread holding it */
+        long writeStamp;
+
+        Node(CircularFifoQueue<Key> keys) {
+            this.keys = keys;
+        }
+
+        int size() {
+            return keys.size();
+        }
+
+        int capacity() {
+            return keys.maxSize();
+        }
+
+        boolean isFull() {
+            return keys.isAtFullCapacity();
+        }
+
+        boolean isEmpty() {
+            return keys.isEmpty();
+        }
+
+        /**
+         * Moves the upper half of a full node into a new right sibling
+         */
+        abstract Node<Key, Value> split();
+    }
+
+    private static final class BranchNode<Key extends Comparable<Key>, Value> extends Node<Key, Value> {
+        private final CircularFifoQueue<Node<Key, Value>> children;
+
+        BranchNode(int capacity, Node<Key, Value> left, Node<Key, Value> right) {
+            this(new CircularFifoQueue<>(capacity), new CircularFifoQueue<>(capacity));
+            keys.pushBack(left.keys.peekFront());
+            children.pushBack(left);
+            keys.pushBack(right.keys.peekFront());
+            children.pushBack(right);
+        }
+
+        BranchNode(CircularFifoQueue<Key> keys, CircularFifoQueue<Node<Key, Value>> children) {
+            super(keys);
+            this.children = children;
+        }
+
+        /**
+         * The binary search never compares key against keys[0], so a stale first separator is harmless
+         *
+         * @return index of the child holding key, the first child if key is null
+         */
+        int routeIndex(Key key) {
+            if (key == null)
+                return 0;
+            int idx = searchRightmostKey(keys, key, keys.size());
+            return idx < 0 ? -(idx + 1) : idx;
+        }
+
+        Node<Key, Value> route(Key key) {
+            return children.get(routeIndex(key));
+        }
+
+        void insertChild(Node<Key, Value> child) {
+            Key separator = child.keys.peekFront();
+            int idx = routeIndex(separator) + 1;
+            keys.insert(separator, idx);
+            children.insert(child, idx);
+        }
+
+        void removeChild(int idx) {
+            keys.remove(idx);
+            children.remove(idx);
+        }
+
+        @Override
+        Node<Key, Value> split() {
+            return new BranchNode<>(keys.split(), children.split());
+        }
+    }
+
+    private static final class LeafNode<Key extends Comparable<Key>, Value> extends Node<Key, Value> {
+        private final CircularFifoQueue<Value> values;
+
+        LeafNode(int capacity) {
+            this(new CircularFifoQueue<>(capacity), new CircularFifoQueue<>(capacity));
+        }
+
+        LeafNode(CircularFifoQueue<Key> keys, CircularFifoQueue<Value> values) {
+            super(keys);
+            this.values = values;
+        }
+
+        void add(Key key, Value value) throws BTreeException {
+            int idx = searchLeftmostKey(keys, key, keys.size());
+            if (idx >= 0)
+                throw new BTreeException("Can't add currently present key " + key.toString());
+
+            idx = -(idx + 1);
+            keys.insert(key, idx);
+            values.insert(value, idx);
+        }
+
+        void remove(Key key) throws BTreeException {
+            int idx = searchLeftmostKey(keys, key, keys.size());
+            if (idx < 0)
+                throw new BTreeException("Can't delete non-existent key " + key.toString());
+
+            keys.remove(idx);
+            values.remove(idx);
+        }
+
+        Value pop() {
+            keys.popFront();
+            return values.popFront();
+        }
+
+        @Override
+        Node<Key, Value> split() {
+            return new LeafNode<>(keys.split(), values.split());
+        }
+    }
+}
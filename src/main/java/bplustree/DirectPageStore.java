@@ -0,0 +1,54 @@
+package bplustree;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+
+/**
+ * Pages kept off-heap in direct ByteBuffer slabs, the heap only holds one buffer object per slab
+ */
+class DirectPageStore extends PageStore {
+    private static final int PAGES_PER_SLAB = 256;
+    private final int slabBytes;
+    private final ArrayList<ByteBuffer> slabs = new ArrayList<>();
+
+    DirectPageStore(int pageSize) {
+        super(pageSize);
+        this.slabBytes = pageSize * PAGES_PER_SLAB;
+        ensureCapacity(pageSize);
+    }
+
+    private ByteBuffer slabOf(long offset) {
+        return slabs.get((int) (offset / slabBytes));
+    }
+
+    @Override
+    long getLong(long offset) {
+        return slabOf(offset).getLong((int) (offset % slabBytes));
+    }
+
+    @Override
+    void putLong(long offset, long value) {
+        slabOf(offset).putLong((int) (offset % slabBytes), value);
+    }
+
+    @Override
+    int getInt(long offset) {
+        return slabOf(offset).getInt((int) (offset % slabBytes));
+    }
+
+    @Override
+    void putInt(long offset, int value) {
+        slabOf(offset).putInt((int) (offset % slabBytes), value);
+    }
+
+    @Override
+    protected void ensureCapacity(long bytes) {
+        while ((long) slabs.size() * slabBytes < bytes)
+            slabs.add(ByteBuffer.allocateDirect(slabBytes));
+    }
+
+    @Override
+    public void close() {
+        slabs.clear();
+    }
+}
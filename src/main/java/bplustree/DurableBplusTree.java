@@ -0,0 +1,306 @@
+package bplustree;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.NoSuchElementException;
+
+/**
+ * Thread-safe BplusTree whose mutations are recorded in a {@link WriteAheadLog}.
+ * A mutation is appended under the tree lock and made durable outside of it, so concurrent writers are
+ * group committed with one fsync per batch instead of one per call. Mutations are applied to the tree in log
+ * order once their records are on disk, so the tree never holds a change the log would not replay, and none
+ * is accepted at all after the log failed. A mutation is durable and visible once its method returns.
+ * <p>
+ * Opening the log replays it into the tree restored from the last {@link #checkpoint()}. A record that could not
+ * be applied live, like a duplicate add logged behind other pending mutations, is skipped on replay the same way.
+ */
+public class DurableBplusTree<Key extends Comparable<Key>, Value> implements Closeable {
+    private static final byte ADD = 1, REMOVE = 2, REMOVE_FROM = 3, POP = 4, GENERATION = 5;
+    private static final double CHECKPOINT_FILL_FACTOR = 0.7;
+
+    private final BplusTree<Key, Value> tree;
+    private final Codec<Key> keyCodec;
+    private final Codec<Value> valueCodec;
+    private final Path checkpointFile;
+    private final ArrayDeque<Mutation> unapplied = new ArrayDeque<>();
+    private long generation, logGeneration = 0;
+    private final WriteAheadLog log;
+
+    private DurableBplusTree(BplusTree<Key, Value> tree, Codec<Key> keyCodec, Codec<Value> valueCodec, Path logFile) throws IOException {
+        this.tree = tree;
+        this.keyCodec = keyCodec;
+        this.valueCodec = valueCodec;
+        this.checkpointFile = logFile.resolveSibling(logFile.getFileName() + ".checkpoint");
+        this.generation = restoreCheckpoint();
+        this.log = WriteAheadLog.open(logFile, this::replay);
+
+        if (logGeneration < generation) {
+            try {
+                log.reset(generationRecord(generation));
+            } catch (IOException e) {
+                log.close();
+                throw e;
+            }
+        } else {
+            generation = logGeneration;
+        }
+    }
+
+    /**
+     * Opens the tree recorded in logFile and its checkpoint, creating an empty log if it does not exist
+     *
+     * @throws IOException if the checkpoint or the log can't be read
+     */
+    public static <Key extends Comparable<Key>, Value> DurableBplusTree<Key, Value> open(
+            Path logFile, Codec<Key> keyCodec, Codec<Value> valueCodec) throws IOException {
+        try {
+            return new DurableBplusTree<>(new BplusTree<>(), keyCodec, valueCodec, logFile);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * A checkpoint holds the generation of the log that continues it, followed by a snapshot of the tree
+     *
+     * @return generation of the checkpoint, 0 if there is none
+     */
+    private long restoreCheckpoint() throws IOException {
+        if (!Files.exists(checkpointFile))
+            return 0;
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(checkpointFile)))) {
+            long checkpointGeneration = in.readLong();
+            tree.restore(in, keyCodec, valueCodec, CHECKPOINT_FILL_FACTOR);
+            return checkpointGeneration;
+        } catch (BTreeException e) {
+            throw new IOException("Checkpoint can't be restored", e);
+        }
+    }
+
+    /**
+     * Records of a log older than the checkpoint are already part of it, which happens when a crash
+     * came between writing the checkpoint and resetting the log
+     */
+    private void replay(ByteBuffer record) {
+        try {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(record.array()));
+            byte operation = in.readByte();
+            if (operation == GENERATION) {
+                logGeneration = in.readLong();
+                return;
+            }
+            if (operation < ADD || operation > POP)
+                throw new IOException("Unknown log record type " + operation);
+            if (logGeneration < generation)
+                return;
+
+            Key key = operation == POP ? null : keyCodec.read(in);
+            Value value = operation == ADD ? valueCodec.read(in) : null;
+            try {
+                apply(operation, key, value);
+            } catch (BTreeException | NoSuchElementException ignored) {
+                // failed the same way when it was logged
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Value apply(byte operation, Key key, Value value) throws BTreeException {
+        switch (operation) {
+            case ADD:
+                tree.add(key, value);
+                return null;
+            case REMOVE:
+                tree.remove(key);
+                return null;
+            case REMOVE_FROM:
+                tree.removeFrom(key);
+                return null;
+            default:
+                return tree.pop();
+        }
+    }
+
+    private byte[] record(byte operation, Key key, Value value) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(operation);
+        if (key != null)
+            keyCodec.write(key, out);
+        if (value != null)
+            valueCodec.write(value, out);
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private static byte[] generationRecord(long generation) {
+        return ByteBuffer.allocate(1 + Long.BYTES).put(GENERATION).putLong(generation).array();
+    }
+
+    /**
+     * Mutation waiting for its record to become durable, applied by whichever writer first sees it on disk
+     */
+    private final class Mutation {
+        private final byte operation;
+        private final Key key;
+        private final Value value;
+        private long seq;
+        private Value result;
+        private BTreeException error;
+        private NoSuchElementException empty;
+
+        private Mutation(byte operation, Key key, Value value) {
+            this.operation = operation;
+            this.key = key;
+            this.value = value;
+        }
+
+        private void apply() {
+            try {
+                result = DurableBplusTree.this.apply(operation, key, value);
+            } catch (BTreeException e) {
+                error = e;
+            } catch (NoSuchElementException e) {
+                empty = e;
+            }
+        }
+
+        private Value outcome() throws BTreeException {
+            if (error != null)
+                throw error;
+            if (empty != null)
+                throw empty;
+            return result;
+        }
+    }
+
+    /**
+     * While no mutation is pending the tree is up to date with the log, so a mutation bound to fail
+     * is rejected before it is logged
+     */
+    private void check(byte operation, Key key) throws BTreeException {
+        if (operation == ADD && tree.contains(key))
+            throw new BTreeException("Can't add currently present key " + key.toString());
+        if (operation == REMOVE && !tree.contains(key))
+            throw new BTreeException("Can't delete non-existent key " + key.toString());
+        if (operation == POP && tree.isEmpty())
+            throw new NoSuchElementException("Tree is empty");
+    }
+
+    private Value mutate(byte operation, Key key, Value value) throws BTreeException, IOException {
+        byte[] record = record(operation, key, value);
+        Mutation mutation = new Mutation(operation, key, value);
+        synchronized (this) {
+            log.checkFailure();
+            if (unapplied.isEmpty())
+                check(operation, key);
+            mutation.seq = log.append(record);
+            unapplied.add(mutation);
+        }
+
+        log.sync(mutation.seq);
+        synchronized (this) {
+            applyDurable();
+        }
+        return mutation.outcome();
+    }
+
+    private void applyDurable() {
+        long durable = log.durable();
+        while (!unapplied.isEmpty() && unapplied.peekFirst().seq <= durable)
+            unapplied.pollFirst().apply();
+    }
+
+    public void add(Key key, Value value) throws BTreeException, IOException {
+        if (key == null || value == null)
+            throw new BTreeException("Can't work with null key or value");
+        mutate(ADD, key, value);
+    }
+
+    public void remove(Key key) throws BTreeException, IOException {
+        if (key == null)
+            throw new BTreeException("Can't work with null key");
+        mutate(REMOVE, key, null);
+    }
+
+    public void removeFrom(Key key) throws BTreeException, IOException {
+        if (key == null)
+            throw new BTreeException("Can't work with null key");
+        mutate(REMOVE_FROM, key, null);
+    }
+
+    /**
+     * @throws java.util.NoSuchElementException if the tree is empty
+     */
+    public Value pop() throws BTreeException, IOException {
+        return mutate(POP, null, null);
+    }
+
+    /**
+     * Writes the whole tree to a checkpoint file next to the log and starts the log over,
+     * which bounds both the size of the log and the time to replay it on open.
+     * Writers wait while the checkpoint is written.
+     */
+    public synchronized void checkpoint() throws IOException {
+        log.sync(log.appended());
+        applyDurable();
+
+        Path temporary = checkpointFile.resolveSibling(checkpointFile.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+            out.writeLong(generation + 1);
+            tree.snapshot(out, keyCodec, valueCodec);
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(temporary, checkpointFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+        log.reset(generationRecord(++generation));
+    }
+
+    public synchronized Value find(Key key) throws BTreeException {
+        return tree.find(key);
+    }
+
+    public synchronized Key peekKey() {
+        return tree.peekKey();
+    }
+
+    public synchronized Value peekValue() {
+        return tree.peekValue();
+    }
+
+    public synchronized boolean isEmpty() {
+        return tree.isEmpty();
+    }
+
+    /**
+     * @return number of fsyncs of the log since it was opened
+     */
+    public long getLogSyncs() {
+        return log.getSyncs();
+    }
+
+    @Override
+    public void close() throws IOException {
+        log.close();
+    }
+}
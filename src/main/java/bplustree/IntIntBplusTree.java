@@ -0,0 +1,345 @@
+package bplustree;
+
+import utility.CircularFifoQueue;
+import utility.IntCircularFifoQueue;
+
+import static utility.Utils.searchLeftmostKey;
+import static utility.Utils.searchRightmostKey;
+
+/**
+ * BplusTree specialized for primitive int keys and int values.
+ * Nodes keep keys and values in {@link IntCircularFifoQueue}s, so add, find, remove and pop never box.
+ */
+public class IntIntBplusTree {
+    private final int leafCapacity, branchCapacity;
+    private Node _root;
+
+    public IntIntBplusTree() {
+        this(BplusTreeNode.DEFAULT_CAPACITY, BplusTreeNode.DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @throws IllegalArgumentException if a capacity is smaller than 3
+     */
+    public IntIntBplusTree(int leafCapacity, int branchCapacity) {
+        if (leafCapacity < BplusTreeNode.MIN_CAPACITY || branchCapacity < BplusTreeNode.MIN_CAPACITY)
+            throw new IllegalArgumentException("Node capacity must be at least " + BplusTreeNode.MIN_CAPACITY);
+
+        this.leafCapacity = leafCapacity;
+        this.branchCapacity = branchCapacity;
+        this._root = newRoot();
+    }
+
+    private Node newRoot() {
+        return new LeafNode(null, leafCapacity, branchCapacity);
+    }
+
+    public boolean isEmpty() {
+        return _root.isEmpty();
+    }
+
+    public void add(int key, int value) throws BTreeException {
+        _root.add(key, value);
+
+        if (_root.parent != null)
+            _root = _root.parent;
+    }
+
+    public void remove(int key) throws BTreeException {
+        _root.remove(key);
+
+        if (_root.isEmpty())
+            _root = newRoot();
+    }
+
+    public void removeFrom(int key) throws BTreeException {
+        _root.removeFrom(key);
+
+        if (_root.isEmpty())
+            _root = newRoot();
+    }
+
+    public boolean contains(int key) {
+        LeafNode leaf = _root.findLeaf(key);
+        return searchLeftmostKey(leaf.keys, key, leaf.keys.size()) >= 0;
+    }
+
+    /**
+     * @return the value stored for key, or {@code notFound} if key is not present
+     */
+    public int find(int key, int notFound) {
+        LeafNode leaf = _root.findLeaf(key);
+        int idx = searchLeftmostKey(leaf.keys, key, leaf.keys.size());
+        return idx < 0 ? notFound : leaf.values.get(idx);
+    }
+
+    /**
+     * @throws java.util.NoSuchElementException if the tree is empty
+     */
+    public int peekKey() {
+        return _root.firstLeaf().keys.peekFront();
+    }
+
+    /**
+     * @throws java.util.NoSuchElementException if the tree is empty
+     */
+    public int peekValue() {
+        return _root.firstLeaf().values.peekFront();
+    }
+
+    /**
+     * @throws java.util.NoSuchElementException if the tree is empty
+     */
+    public int pop() throws BTreeException {
+        int poppedVal = _root.firstLeaf().pop();
+        if (_root.isEmpty())
+            _root = newRoot();
+
+        return poppedVal;
+    }
+
+    private abstract static class Node {
+        protected BranchNode parent;
+        protected IntCircularFifoQueue keys;
+        protected int leftRangeKey;
+
+        abstract boolean isEmpty();
+        abstract void split() throws BTreeException;
+        abstract void add(int key, int value) throws BTreeException;
+        abstract void remove(int key) throws BTreeException;
+        abstract void removeFrom(int thresholdKey) throws BTreeException;
+        abstract LeafNode findLeaf(int key);
+        abstract LeafNode firstLeaf();
+
+        /**
+         * Currently rebalance is called only when the node is emptied
+         */
+        void rebalance() throws BTreeException {
+            if (parent != null)
+                parent.removeNode(leftRangeKey);
+        }
+    }
+
+    private static final class BranchNode extends Node {
+        private final CircularFifoQueue<Node> children;
+
+        BranchNode(int capacity) {
+            this(new IntCircularFifoQueue(capacity), new CircularFifoQueue<>(capacity), null);
+        }
+
+        BranchNode(IntCircularFifoQueue keys, CircularFifoQueue<Node> children, BranchNode parent) {
+            this.keys = keys;
+            this.children = children;
+            this.parent = parent;
+            if (!keys.isEmpty())
+                this.leftRangeKey = keys.peekFront();
+        }
+
+        @Override
+        boolean isEmpty() {
+            return children.isEmpty();
+        }
+
+        private int childIndex(int key) {
+            int idx = searchRightmostKey(keys, key, keys.size());
+            return idx < 0 ? -(idx + 1) : idx;
+        }
+
+        @Override
+        void split() throws BTreeException {
+            if (parent == null) {
+                parent = new BranchNode(keys.maxSize());
+                parent.addNode(this, leftRangeKey);
+            }
+
+            IntCircularFifoQueue restOfKeys = keys.split();
+            CircularFifoQueue<Node> restOfChildren = children.split();
+
+            BranchNode rest = new BranchNode(restOfKeys, restOfChildren, parent);
+            for (Node node : restOfChildren)
+                node.parent = rest;
+
+            parent.addNode(rest, rest.leftRangeKey);
+        }
+
+        void addNode(Node child, int key) throws BTreeException {
+            int idx = searchLeftmostKey(keys, key, keys.size());
+            if (idx >= 0)
+                throw new BTreeException("Can't add node when it exists");
+
+            idx = -(idx + 1);
+            keys.insert(key, idx);
+            children.insert(child, idx);
+
+            if (idx == 0) {
+                if (parent != null)
+                    parent.updateKeyOfNode(key, leftRangeKey);
+
+                leftRangeKey = key;
+            }
+            if (keys.isAtFullCapacity())
+                split();
+        }
+
+        void removeNode(int key) throws BTreeException {
+            int idx = childIndex(key);
+
+            keys.remove(idx);
+            children.remove(idx);
+
+            if (isEmpty())
+                rebalance();
+        }
+
+        void updateKeyOfNode(int newKey, int currKey) throws BTreeException {
+            int idx = searchLeftmostKey(keys, currKey, keys.size());
+            if (idx < 0)
+                throw new BTreeException("Key does not exist to be updated");
+
+            keys.set(idx, newKey);
+
+            if (idx == 0) {
+                if (parent != null)
+                    parent.updateKeyOfNode(newKey, leftRangeKey);
+
+                leftRangeKey = newKey;
+            }
+        }
+
+        @Override
+        void add(int key, int value) throws BTreeException {
+            children.get(childIndex(key)).add(key, value);
+        }
+
+        @Override
+        void remove(int key) throws BTreeException {
+            children.get(childIndex(key)).remove(key);
+        }
+
+        @Override
+        void removeFrom(int thresholdKey) throws BTreeException {
+            int idx = searchRightmostKey(keys, thresholdKey, keys.size());
+
+            if (idx < 0) {
+                idx = -(idx + 1);
+                keys.removeFrom(idx + 1);
+                children.removeFrom(idx + 1);
+                children.get(idx).removeFrom(thresholdKey);
+            } else {
+                keys.removeFrom(idx);
+                children.removeFrom(idx);
+
+                if (isEmpty())
+                    rebalance();
+            }
+        }
+
+        @Override
+        LeafNode findLeaf(int key) {
+            return children.get(childIndex(key)).findLeaf(key);
+        }
+
+        @Override
+        LeafNode firstLeaf() {
+            return children.get(0).firstLeaf();
+        }
+    }
+
+    private static final class LeafNode extends Node {
+        private final IntCircularFifoQueue values;
+        private final int branchCapacity;
+
+        LeafNode(BranchNode parent, int capacity, int branchCapacity) {
+            this(new IntCircularFifoQueue(capacity), new IntCircularFifoQueue(capacity), parent, branchCapacity);
+        }
+
+        LeafNode(IntCircularFifoQueue keys, IntCircularFifoQueue values, BranchNode parent, int branchCapacity) {
+            this.keys = keys;
+            this.values = values;
+            this.parent = parent;
+            this.branchCapacity = branchCapacity;
+            if (!keys.isEmpty())
+                this.leftRangeKey = keys.peekFront();
+        }
+
+        @Override
+        boolean isEmpty() {
+            return values.isEmpty();
+        }
+
+        @Override
+        void split() throws BTreeException {
+            if (parent == null) {
+                parent = new BranchNode(branchCapacity);
+                parent.addNode(this, leftRangeKey);
+            }
+
+            LeafNode rest = new LeafNode(keys.split(), values.split(), parent, branchCapacity);
+            parent.addNode(rest, rest.leftRangeKey);
+        }
+
+        @Override
+        void add(int key, int value) throws BTreeException {
+            int idx = searchLeftmostKey(keys, key, keys.size());
+            if (idx >= 0)
+                throw new BTreeException("Can't add currently present key " + key);
+
+            idx = -(idx + 1);
+            if (idx == 0) {
+                if (parent != null)
+                    parent.updateKeyOfNode(key, leftRangeKey);
+                leftRangeKey = key;
+            }
+
+            keys.insert(key, idx);
+            values.insert(value, idx);
+
+            if (keys.isAtFullCapacity())
+                split();
+        }
+
+        @Override
+        void remove(int key) throws BTreeException {
+            int idx = searchLeftmostKey(keys, key, keys.size());
+            if (idx < 0)
+                throw new BTreeException("Can't delete non-existent key " + key);
+
+            keys.remove(idx);
+            values.remove(idx);
+
+            if (isEmpty())
+                rebalance();
+        }
+
+        @Override
+        void removeFrom(int thresholdKey) throws BTreeException {
+            int idx = searchLeftmostKey(keys, thresholdKey, keys.size());
+            idx = idx < 0 ? -(idx + 1) : idx;
+
+            keys.removeFrom(idx);
+            values.removeFrom(idx);
+
+            if (isEmpty())
+                rebalance();
+        }
+
+        @Override
+        LeafNode findLeaf(int key) {
+            return this;
+        }
+
+        @Override
+        LeafNode firstLeaf() {
+            return this;
+        }
+
+        int pop() throws BTreeException {
+            int result = values.popFront();
+            keys.popFront();
+
+            if (isEmpty())
+                rebalance();
+            return result;
+        }
+    }
+}
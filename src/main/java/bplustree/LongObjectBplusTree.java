@@ -0,0 +1,339 @@
+package bplustree;
+
+import utility.CircularFifoQueue;
+import utility.LongCircularFifoQueue;
+
+import static utility.Utils.searchLeftmostKey;
+import static utility.Utils.searchRightmostKey;
+
+/**
+ * BplusTree specialized for primitive long keys and arbitrary values.
+ * Nodes keep keys in {@link LongCircularFifoQueue}s, so add, find, remove and pop never box the key.
+ */
+public class LongObjectBplusTree<Value> {
+    private final int leafCapacity, branchCapacity;
+    private Node<Value> _root;
+
+    public LongObjectBplusTree() {
+        this(BplusTreeNode.DEFAULT_CAPACITY, BplusTreeNode.DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @throws IllegalArgumentException if a capacity is smaller than 3
+     */
+    public LongObjectBplusTree(int leafCapacity, int branchCapacity) {
+        if (leafCapacity < BplusTreeNode.MIN_CAPACITY || branchCapacity < BplusTreeNode.MIN_CAPACITY)
+            throw new IllegalArgumentException("Node capacity must be at least " + BplusTreeNode.MIN_CAPACITY);
+
+        this.leafCapacity = leafCapacity;
+        this.branchCapacity = branchCapacity;
+        this._root = newRoot();
+    }
+
+    private Node<Value> newRoot() {
+        return new LeafNode<>(null, leafCapacity, branchCapacity);
+    }
+
+    public boolean isEmpty() {
+        return _root.isEmpty();
+    }
+
+    public void add(long key, Value value) throws BTreeException {
+        _root.add(key, value);
+
+        if (_root.parent != null)
+            _root = _root.parent;
+    }
+
+    public void remove(long key) throws BTreeException {
+        _root.remove(key);
+
+        if (_root.isEmpty())
+            _root = newRoot();
+    }
+
+    public void removeFrom(long key) throws BTreeException {
+        _root.removeFrom(key);
+
+        if (_root.isEmpty())
+            _root = newRoot();
+    }
+
+    public boolean contains(long key) {
+        LeafNode<Value> leaf = _root.findLeaf(key);
+        return searchLeftmostKey(leaf.keys, key, leaf.keys.size()) >= 0;
+    }
+
+    public Value find(long key) {
+        LeafNode<Value> leaf = _root.findLeaf(key);
+        int idx = searchLeftmostKey(leaf.keys, key, leaf.keys.size());
+        return idx < 0 ? null : leaf.values.get(idx);
+    }
+
+    /**
+     * @throws java.util.NoSuchElementException if the tree is empty
+     */
+    public long peekKey() {
+        return _root.firstLeaf().keys.peekFront();
+    }
+
+    public Value peekValue() {
+        return _root.firstLeaf().values.peekFront();
+    }
+
+    /**
+     * @throws java.util.NoSuchElementException if the tree is empty
+     */
+    public Value pop() throws BTreeException {
+        Value poppedVal = _root.firstLeaf().pop();
+        if (_root.isEmpty())
+            _root = newRoot();
+
+        return poppedVal;
+    }
+
+    private abstract static class Node<Value> {
+        protected BranchNode<Value> parent;
+        protected LongCircularFifoQueue keys;
+        protected long leftRangeKey;
+
+        abstract boolean isEmpty();
+        abstract void split() throws BTreeException;
+        abstract void add(long key, Value value) throws BTreeException;
+        abstract void remove(long key) throws BTreeException;
+        abstract void removeFrom(long thresholdKey) throws BTreeException;
+        abstract LeafNode<Value> findLeaf(long key);
+        abstract LeafNode<Value> firstLeaf();
+
+        /**
+         * Currently rebalance is called only when the node is emptied
+         */
+        void rebalance() throws BTreeException {
+            if (parent != null)
+                parent.removeNode(leftRangeKey);
+        }
+    }
+
+    private static final class BranchNode<Value> extends Node<Value> {
+        private final CircularFifoQueue<Node<Value>> children;
+
+        BranchNode(int capacity) {
+            this(new LongCircularFifoQueue(capacity), new CircularFifoQueue<>(capacity), null);
+        }
+
+        BranchNode(LongCircularFifoQueue keys, CircularFifoQueue<Node<Value>> children, BranchNode<Value> parent) {
+            this.keys = keys;
+            this.children = children;
+            this.parent = parent;
+            if (!keys.isEmpty())
+                this.leftRangeKey = keys.peekFront();
+        }
+
+        @Override
+        boolean isEmpty() {
+            return children.isEmpty();
+        }
+
+        private int childIndex(long key) {
+            int idx = searchRightmostKey(keys, key, keys.size());
+            return idx < 0 ? -(idx + 1) : idx;
+        }
+
+        @Override
+        void split() throws BTreeException {
+            if (parent == null) {
+                parent = new BranchNode<>(keys.maxSize());
+                parent.addNode(this, leftRangeKey);
+            }
+
+            LongCircularFifoQueue restOfKeys = keys.split();
+            CircularFifoQueue<Node<Value>> restOfChildren = children.split();
+
+            BranchNode<Value> rest = new BranchNode<>(restOfKeys, restOfChildren, parent);
+            for (Node<Value> node : restOfChildren)
+                node.parent = rest;
+
+            parent.addNode(rest, rest.leftRangeKey);
+        }
+
+        void addNode(Node<Value> child, long key) throws BTreeException {
+            int idx = searchLeftmostKey(keys, key, keys.size());
+            if (idx >= 0)
+                throw new BTreeException("Can't add node when it exists");
+
+            idx = -(idx + 1);
+            keys.insert(key, idx);
+            children.insert(child, idx);
+
+            if (idx == 0) {
+                if (parent != null)
+                    parent.updateKeyOfNode(key, leftRangeKey);
+
+                leftRangeKey = key;
+            }
+            if (keys.isAtFullCapacity())
+                split();
+        }
+
+        void removeNode(long key) throws BTreeException {
+            int idx = childIndex(key);
+
+            keys.remove(idx);
+            children.remove(idx);
+
+            if (isEmpty())
+                rebalance();
+        }
+
+        void updateKeyOfNode(long newKey, long currKey) throws BTreeException {
+            int idx = searchLeftmostKey(keys, currKey, keys.size());
+            if (idx < 0)
+                throw new BTreeException("Key does not exist to be updated");
+
+            keys.set(idx, newKey);
+
+            if (idx == 0) {
+                if (parent != null)
+                    parent.updateKeyOfNode(newKey, leftRangeKey);
+
+                leftRangeKey = newKey;
+            }
+        }
+
+        @Override
+        void add(long key, Value value) throws BTreeException {
+            children.get(childIndex(key)).add(key, value);
+        }
+
+        @Override
+        void remove(long key) throws BTreeException {
+            children.get(childIndex(key)).remove(key);
+        }
+
+        @Override
+        void removeFrom(long thresholdKey) throws BTreeException {
+            int idx = searchRightmostKey(keys, thresholdKey, keys.size());
+
+            if (idx < 0) {
+                idx = -(idx + 1);
+                keys.removeFrom(idx + 1);
+                children.removeFrom(idx + 1);
+                children.get(idx).removeFrom(thresholdKey);
+            } else {
+                keys.removeFrom(idx);
+                children.removeFrom(idx);
+
+                if (isEmpty())
+                    rebalance();
+            }
+        }
+
+        @Override
+        LeafNode<Value> findLeaf(long key) {
+            return children.get(childIndex(key)).findLeaf(key);
+        }
+
+        @Override
+        LeafNode<Value> firstLeaf() {
+            return children.get(0).firstLeaf();
+        }
+    }
+
+    private static final class LeafNode<Value> extends Node<Value> {
+        private final CircularFifoQueue<Value> values;
+        private final int branchCapacity;
+
+        LeafNode(BranchNode<Value> parent, int capacity, int branchCapacity) {
+            this(new LongCircularFifoQueue(capacity), new CircularFifoQueue<>(capacity), parent, branchCapacity);
+        }
+
+        LeafNode(LongCircularFifoQueue keys, CircularFifoQueue<Value> values, BranchNode<Value> parent, int branchCapacity) {
+            this.keys = keys;
+            this.values = values;
+            this.parent = parent;
+            this.branchCapacity = branchCapacity;
+            if (!keys.isEmpty())
+                this.leftRangeKey = keys.peekFront();
+        }
+
+        @Override
+        boolean isEmpty() {
+            return values.isEmpty();
+        }
+
+        @Override
+        void split() throws BTreeException {
+            if (parent == null) {
+                parent = new BranchNode<>(branchCapacity);
+                parent.addNode(this, leftRangeKey);
+            }
+
+            LeafNode<Value> rest = new LeafNode<>(keys.split(), values.split(), parent, branchCapacity);
+            parent.addNode(rest, rest.leftRangeKey);
+        }
+
+        @Override
+        void add(long key, Value value) throws BTreeException {
+            int idx = searchLeftmostKey(keys, key, keys.size());
+            if (idx >= 0)
+                throw new BTreeException("Can't add currently present key " + key);
+
+            idx = -(idx + 1);
+            if (idx == 0) {
+                if (parent != null)
+                    parent.updateKeyOfNode(key, leftRangeKey);
+                leftRangeKey = key;
+            }
+
+            keys.insert(key, idx);
+            values.insert(value, idx);
+
+            if (keys.isAtFullCapacity())
+                split();
+        }
+
+        @Override
+        void remove(long key) throws BTreeException {
+            int idx = searchLeftmostKey(keys, key, keys.size());
+            if (idx < 0)
+                throw new BTreeException("Can't delete non-existent key " + key);
+
+            keys.remove(idx);
+            values.remove(idx);
+
+            if (isEmpty())
+                rebalance();
+        }
+
+        @Override
+        void removeFrom(long thresholdKey) throws BTreeException {
+            int idx = searchLeftmostKey(keys, thresholdKey, keys.size());
+            idx = idx < 0 ? -(idx + 1) : idx;
+
+            keys.removeFrom(idx);
+            values.removeFrom(idx);
+
+            if (isEmpty())
+                rebalance();
+        }
+
+        @Override
+        LeafNode<Value> findLeaf(long key) {
+            return this;
+        }
+
+        @Override
+        LeafNode<Value> firstLeaf() {
+            return this;
+        }
+
+        Value pop() throws BTreeException {
+            Value result = values.popFront();
+            keys.popFront();
+
+            if (isEmpty())
+                rebalance();
+            return result;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package bplustree;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+
+/**
+ * Pages of a file mapped into memory in fixed size chunks, the file grows a chunk at a time.
+ * Only touched pages are resident, the operating system pages the rest in and out,
+ * so the file can be larger than the available memory.
+ */
+class MappedPageStore extends PageStore {
+    private static final int PAGES_PER_CHUNK = 4096;
+    private final FileChannel channel;
+    private final long chunkBytes;
+    private final ArrayList<MappedByteBuffer> chunks = new ArrayList<>();
+
+    MappedPageStore(FileChannel channel, int pageSize) {
+        super(pageSize);
+        this.channel = channel;
+        this.chunkBytes = (long) pageSize * PAGES_PER_CHUNK;
+        ensureCapacity(pageSize);
+    }
+
+    /**
+     * Opens the page file, creating it if needed. The page size of an existing file is read from its header.
+     *
+     * @param pageSize  page size of a new file
+     * @throws IOException if the file can't be opened or its header is not a page file header
+     */
+    static MappedPageStore open(Path file, int pageSize) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            boolean existing = channel.size() > 0;
+            if (existing)
+                pageSize = readPageSize(channel);
+
+            MappedPageStore store = new MappedPageStore(channel, pageSize);
+            if (existing)
+                store.ensureCapacity(channel.size());
+            return store;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private MappedByteBuffer chunkOf(long offset) {
+        return chunks.get((int) (offset / chunkBytes));
+    }
+
+    @Override
+    long getLong(long offset) {
+        return chunkOf(offset).getLong((int) (offset % chunkBytes));
+    }
+
+    @Override
+    void putLong(long offset, long value) {
+        chunkOf(offset).putLong((int) (offset % chunkBytes), value);
+    }
+
+    @Override
+    int getInt(long offset) {
+        return chunkOf(offset).getInt((int) (offset % chunkBytes));
+    }
+
+    @Override
+    void putInt(long offset, int value) {
+        chunkOf(offset).putInt((int) (offset % chunkBytes), value);
+    }
+
+    @Override
+    protected void ensureCapacity(long bytes) {
+        try {
+            while (chunks.size() * chunkBytes < bytes)
+                chunks.add(channel.map(FileChannel.MapMode.READ_WRITE, chunks.size() * chunkBytes, chunkBytes));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    void flush() throws IOException {
+        for (MappedByteBuffer chunk : chunks)
+            chunk.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            chunks.clear();
+            channel.close();
+        }
+    }
+}
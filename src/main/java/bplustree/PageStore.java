@@ -0,0 +1,140 @@
+package bplustree;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Fixed size pages addressed by their byte offset, the offset of a page is the reference stored in place of a node pointer.
+ * The first page is a header holding the root reference, the entry count and the allocation state,
+ * freed pages are chained through their first long.
+ */
+abstract class PageStore implements Closeable {
+    static final long NULL = 0;
+    private static final long MAGIC = 0x42504c5553545245L;
+    private static final int MAGIC_OFFSET = 0, PAGE_SIZE_OFFSET = 8, ROOT_OFFSET = 16, COUNT_OFFSET = 24,
+            FREE_OFFSET = 32, END_OFFSET = 40, HEADER_BYTES = 48;
+
+    protected final int pageSize;
+
+    PageStore(int pageSize) {
+        this.pageSize = pageSize;
+    }
+
+    int getPageSize() {
+        return pageSize;
+    }
+
+    abstract long getLong(long offset);
+    abstract void putLong(long offset, long value);
+    abstract int getInt(long offset);
+    abstract void putInt(long offset, int value);
+
+    /**
+     * Makes offsets up to bytes addressable
+     *
+     * @throws java.io.UncheckedIOException if the backing storage can't grow
+     */
+    protected abstract void ensureCapacity(long bytes);
+
+    /**
+     * Writes the header of an empty store
+     */
+    protected void format() {
+        ensureCapacity(pageSize);
+        putLong(MAGIC_OFFSET, MAGIC);
+        putInt(PAGE_SIZE_OFFSET, pageSize);
+        putLong(ROOT_OFFSET, NULL);
+        putLong(COUNT_OFFSET, 0);
+        putLong(FREE_OFFSET, NULL);
+        putLong(END_OFFSET, pageSize);
+    }
+
+    /**
+     * @return whether the header of the store is intact
+     */
+    protected boolean isFormatted() {
+        return getLong(MAGIC_OFFSET) == MAGIC && getInt(PAGE_SIZE_OFFSET) == pageSize;
+    }
+
+    /**
+     * @return page size recorded in the header of an existing page file
+     * @throws IOException if the file does not start with a page file header
+     */
+    static int readPageSize(FileChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        while (header.hasRemaining() && channel.read(header, header.position()) > 0) ;
+        if (header.hasRemaining() || header.getLong(MAGIC_OFFSET) != MAGIC || header.getInt(PAGE_SIZE_OFFSET) < HEADER_BYTES)
+            throw new IOException("File is not a page file");
+        return header.getInt(PAGE_SIZE_OFFSET);
+    }
+
+    long getRoot() {
+        return getLong(ROOT_OFFSET);
+    }
+
+    void setRoot(long root) {
+        putLong(ROOT_OFFSET, root);
+    }
+
+    long getCount() {
+        return getLong(COUNT_OFFSET);
+    }
+
+    void setCount(long count) {
+        putLong(COUNT_OFFSET, count);
+    }
+
+    long allocate() {
+        long page = getLong(FREE_OFFSET);
+        if (page != NULL) {
+            putLong(FREE_OFFSET, getLong(page));
+            return page;
+        }
+
+        page = getLong(END_OFFSET);
+        ensureCapacity(page + pageSize);
+        putLong(END_OFFSET, page + pageSize);
+        return page;
+    }
+
+    void free(long page) {
+        putLong(page, getLong(FREE_OFFSET));
+        putLong(FREE_OFFSET, page);
+    }
+
+    /**
+     * Page cache statistics, stores that keep every page addressable count no hits or misses
+     */
+    long getHits() {
+        return 0;
+    }
+
+    long getMisses() {
+        return 0;
+    }
+
+    long getEvictions() {
+        return 0;
+    }
+
+    /**
+     * Keeps the page in memory until it is unpinned, only meaningful for stores that evict pages
+     */
+    void pin(long page) {
+    }
+
+    void unpin(long page) {
+    }
+
+    /**
+     * Makes written pages durable, nothing to do for memory only stores
+     */
+    void flush() throws IOException {
+    }
+
+    @Override
+    public void close() throws IOException {
+    }
+}
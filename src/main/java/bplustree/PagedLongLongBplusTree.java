@@ -0,0 +1,457 @@
+package bplustree;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.NoSuchElementException;
+
+/**
+ * BplusTree for primitive long keys and long values whose nodes are fixed size pages of a {@link PageStore}.
+ * A node is referenced by the byte offset of its page, so the tree creates no object per node or entry
+ * and heap usage does not grow with the tree.
+ * <p>
+ * Page layout: node type and entry count as two ints, then capacity keys, then capacity values or child references.
+ * Like {@link ConcurrentBplusTree}, separators are lower bounds of their children and the first one of
+ * a branch is never read, so nodes need no parent pointers and removing a smallest key updates no ancestor.
+ */
+public class PagedLongLongBplusTree implements Closeable {
+    public static final int DEFAULT_PAGE_SIZE = 4096;
+    private static final int TYPE = 0, SIZE = 4, ENTRIES = 8;
+    private static final int LEAF = 1, BRANCH = 2;
+
+    private final PageStore store;
+    private final int capacity;
+
+    PagedLongLongBplusTree(PageStore store) {
+        int capacity = (store.getPageSize() - ENTRIES) / 16;
+        if (capacity < BplusTreeNode.MIN_CAPACITY)
+            throw new IllegalArgumentException("Page size " + store.getPageSize() + " is too small for "
+                    + BplusTreeNode.MIN_CAPACITY + " entries");
+
+        this.store = store;
+        this.capacity = capacity;
+        if (!store.isFormatted()) {
+            store.format();
+            store.setRoot(newNode(LEAF));
+        }
+    }
+
+    /**
+     * @return empty tree whose pages live in direct ByteBuffers, outside of the heap
+     */
+    public static PagedLongLongBplusTree offHeap() {
+        return offHeap(DEFAULT_PAGE_SIZE);
+    }
+
+    /**
+     * @throws IllegalArgumentException if a page can't hold 3 entries
+     */
+    public static PagedLongLongBplusTree offHeap(int pageSize) {
+        return new PagedLongLongBplusTree(new DirectPageStore(pageSize));
+    }
+
+    /**
+     * Opens the tree stored in file, or creates an empty one with {@link #DEFAULT_PAGE_SIZE} pages.
+     * Nodes are read straight from the memory mapped file, so reopening it needs no replay of the entries.
+     */
+    public static PagedLongLongBplusTree open(Path file) throws IOException {
+        return open(file, DEFAULT_PAGE_SIZE);
+    }
+
+    /**
+     * Modifications reach the file when the operating system writes the mapped pages back,
+     * {@link #flush()} and {@link #close()} force them to disk.
+     *
+     * @param pageSize  page size of a new file, an existing file keeps its own
+     * @throws IOException if the file can't be opened or is not a page file
+     */
+    public static PagedLongLongBplusTree open(Path file, int pageSize) throws IOException {
+        MappedPageStore store = MappedPageStore.open(file, pageSize);
+        try {
+            return new PagedLongLongBplusTree(store);
+        } catch (RuntimeException e) {
+            store.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Opens the tree stored in file, or creates an empty one, reading its pages through a buffer pool of
+     * cachedPages frames. Memory use is bounded by the pool whatever the size of the file.
+     * Modified pages reach the file when they are evicted, {@link #flush()} and {@link #close()} write all of them.
+     *
+     * @param pageSize  page size of a new file, an existing file keeps its own
+     * @throws IOException if the file can't be opened or is not a page file
+     * @throws IllegalArgumentException if cachedPages is smaller than 4
+     */
+    public static PagedLongLongBplusTree open(Path file, int pageSize, int cachedPages) throws IOException {
+        BufferPoolPageStore store = BufferPoolPageStore.open(file, pageSize, cachedPages);
+        try {
+            return new PagedLongLongBplusTree(store);
+        } catch (RuntimeException e) {
+            store.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return number of page accesses served by the buffer pool, 0 when pages are not cached
+     */
+    public long getPageHits() {
+        return store.getHits();
+    }
+
+    public long getPageMisses() {
+        return store.getMisses();
+    }
+
+    public long getPageEvictions() {
+        return store.getEvictions();
+    }
+
+    public boolean isEmpty() {
+        return store.getCount() == 0;
+    }
+
+    public long size() {
+        return store.getCount();
+    }
+
+    public void add(long key, long value) throws BTreeException {
+        long root = store.getRoot();
+        long right = insert(root, key, value);
+
+        if (right != PageStore.NULL) {
+            long newRoot = newNode(BRANCH);
+            setKey(newRoot, 0, keyAt(root, 0));
+            setSlot(newRoot, 0, root);
+            setKey(newRoot, 1, keyAt(right, 0));
+            setSlot(newRoot, 1, right);
+            setSize(newRoot, 2);
+            store.setRoot(newRoot);
+        }
+        store.setCount(store.getCount() + 1);
+    }
+
+    public void remove(long key) throws BTreeException {
+        delete(store.getRoot(), key);
+        store.setCount(store.getCount() - 1);
+        shrinkRoot();
+    }
+
+    public void removeFrom(long key) {
+        store.setCount(store.getCount() - truncate(store.getRoot(), key));
+        shrinkRoot();
+    }
+
+    public boolean contains(long key) {
+        long leaf = findLeaf(key);
+        return search(leaf, sizeOf(leaf), key) >= 0;
+    }
+
+    /**
+     * @return key paired with the offset of the page holding it, or null if key is not present
+     */
+    public BTreeKey<Long> locate(long key) {
+        long leaf = findLeaf(key);
+        return search(leaf, sizeOf(leaf), key) >= 0 ? new BTreeKey<>(key, leaf) : null;
+    }
+
+    /**
+     * @return the value stored for key, or {@code notFound} if key is not present
+     */
+    public long find(long key, long notFound) {
+        long leaf = findLeaf(key);
+        int idx = search(leaf, sizeOf(leaf), key);
+        return idx < 0 ? notFound : slotAt(leaf, idx);
+    }
+
+    /**
+     * @throws NoSuchElementException if the tree is empty
+     */
+    public long peekKey() {
+        return keyAt(firstNonEmptyLeaf(), 0);
+    }
+
+    /**
+     * @throws NoSuchElementException if the tree is empty
+     */
+    public long peekValue() {
+        return slotAt(firstNonEmptyLeaf(), 0);
+    }
+
+    /**
+     * @throws NoSuchElementException if the tree is empty
+     */
+    public long pop() {
+        long value = slotAt(firstNonEmptyLeaf(), 0);
+        popFirst(store.getRoot());
+        store.setCount(store.getCount() - 1);
+        shrinkRoot();
+
+        return value;
+    }
+
+    /**
+     * Makes all modifications durable when the pages are backed by a file
+     */
+    public void flush() throws IOException {
+        store.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        store.close();
+    }
+
+    private long findLeaf(long key) {
+        long node = store.getRoot();
+        while (typeOf(node) == BRANCH)
+            node = slotAt(node, route(node, sizeOf(node), key));
+        return node;
+    }
+
+    private long firstNonEmptyLeaf() {
+        if (isEmpty())
+            throw new NoSuchElementException("tree is empty");
+
+        long node = store.getRoot();
+        while (typeOf(node) == BRANCH)
+            node = slotAt(node, 0);
+        return node;
+    }
+
+    /**
+     * @return the new right sibling if node had to split, {@link PageStore#NULL} otherwise
+     */
+    private long insert(long node, long key, long value) throws BTreeException {
+        int size = sizeOf(node);
+        int idx;
+
+        if (typeOf(node) == LEAF) {
+            idx = search(node, size, key);
+            if (idx >= 0)
+                throw new BTreeException("Can't add currently present key " + key);
+            idx = -(idx + 1);
+        } else {
+            int childIdx = route(node, size, key);
+            long right = insert(slotAt(node, childIdx), key, value);
+            if (right == PageStore.NULL)
+                return PageStore.NULL;
+
+            key = keyAt(right, 0);
+            value = right;
+            idx = childIdx + 1;
+        }
+
+        if (size < capacity) {
+            insertAt(node, size, idx, key, value);
+            return PageStore.NULL;
+        }
+
+        long right = split(node);
+        int leftSize = sizeOf(node);
+        if (idx <= leftSize)
+            insertAt(node, leftSize, idx, key, value);
+        else
+            insertAt(right, sizeOf(right), idx - leftSize, key, value);
+        return right;
+    }
+
+    /**
+     * Moves the upper half of a full node into a new right sibling
+     */
+    private long split(long node) {
+        store.pin(node);
+        long right = newNode(typeOf(node));
+        store.pin(right);
+        int leftSize = capacity / 2;
+
+        for (int i = leftSize; i < capacity; i++) {
+            setKey(right, i - leftSize, keyAt(node, i));
+            setSlot(right, i - leftSize, slotAt(node, i));
+        }
+        setSize(right, capacity - leftSize);
+        setSize(node, leftSize);
+
+        store.unpin(right);
+        store.unpin(node);
+        return right;
+    }
+
+    private void delete(long node, long key) throws BTreeException {
+        int size = sizeOf(node);
+
+        if (typeOf(node) == LEAF) {
+            int idx = search(node, size, key);
+            if (idx < 0)
+                throw new BTreeException("Can't delete non-existent key " + key);
+            removeAt(node, size, idx);
+        } else {
+            int idx = route(node, size, key);
+            delete(slotAt(node, idx), key);
+            removeIfEmpty(node, idx);
+        }
+    }
+
+    private void popFirst(long node) {
+        if (typeOf(node) == LEAF) {
+            removeAt(node, sizeOf(node), 0);
+        } else {
+            popFirst(slotAt(node, 0));
+            removeIfEmpty(node, 0);
+        }
+    }
+
+    /**
+     * Removes the keys greater than or equal to thresholdKey below node
+     *
+     * @return number of removed entries
+     */
+    private long truncate(long node, long thresholdKey) {
+        int size = sizeOf(node);
+
+        if (typeOf(node) == LEAF) {
+            int idx = search(node, size, thresholdKey);
+            idx = idx < 0 ? -(idx + 1) : idx;
+            setSize(node, idx);
+            return size - idx;
+        }
+
+        int idx = route(node, size, thresholdKey);
+        long removed = 0;
+        for (int i = idx + 1; i < size; i++)
+            removed += freeSubtree(slotAt(node, i));
+        setSize(node, idx + 1);
+
+        removed += truncate(slotAt(node, idx), thresholdKey);
+        removeIfEmpty(node, idx);
+        return removed;
+    }
+
+    /**
+     * @return number of entries of the freed subtree
+     */
+    private long freeSubtree(long node) {
+        int size = sizeOf(node);
+        long entries = size;
+
+        if (typeOf(node) == BRANCH) {
+            entries = 0;
+            for (int i = 0; i < size; i++)
+                entries += freeSubtree(slotAt(node, i));
+        }
+        store.free(node);
+        return entries;
+    }
+
+    private void removeIfEmpty(long branch, int idx) {
+        long child = slotAt(branch, idx);
+        if (sizeOf(child) == 0) {
+            removeAt(branch, sizeOf(branch), idx);
+            store.free(child);
+        }
+    }
+
+    /**
+     * Replaces an emptied branch root by an empty leaf, and a branch root with a single child by that child
+     */
+    private void shrinkRoot() {
+        long root = store.getRoot();
+        while (typeOf(root) == BRANCH && sizeOf(root) <= 1) {
+            long child = sizeOf(root) == 0 ? newNode(LEAF) : slotAt(root, 0);
+            store.free(root);
+            store.setRoot(child);
+            root = child;
+        }
+    }
+
+    /**
+     * @return index of key, or -(insertion point + 1) if it is not present
+     */
+    private int search(long node, int size, long key) {
+        int low = 0, high = size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long midKey = keyAt(node, mid);
+            if (midKey < key)
+                low = mid + 1;
+            else if (midKey > key)
+                high = mid - 1;
+            else
+                return mid;
+        }
+        return -(low + 1);
+    }
+
+    /**
+     * @return index of the rightmost child whose separator is lower or equal to key, ignoring the first separator
+     */
+    private int route(long node, int size, long key) {
+        int low = 0, high = size - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (keyAt(node, mid) <= key)
+                low = mid;
+            else
+                high = mid - 1;
+        }
+        return low;
+    }
+
+    private void insertAt(long node, int size, int idx, long key, long slot) {
+        for (int i = size; i > idx; i--) {
+            setKey(node, i, keyAt(node, i - 1));
+            setSlot(node, i, slotAt(node, i - 1));
+        }
+        setKey(node, idx, key);
+        setSlot(node, idx, slot);
+        setSize(node, size + 1);
+    }
+
+    private void removeAt(long node, int size, int idx) {
+        for (int i = idx; i < size - 1; i++) {
+            setKey(node, i, keyAt(node, i + 1));
+            setSlot(node, i, slotAt(node, i + 1));
+        }
+        setSize(node, size - 1);
+    }
+
+    private long newNode(int type) {
+        long node = store.allocate();
+        store.putInt(node + TYPE, type);
+        store.putInt(node + SIZE, 0);
+        return node;
+    }
+
+    private int typeOf(long node) {
+        return store.getInt(node + TYPE);
+    }
+
+    private int sizeOf(long node) {
+        return store.getInt(node + SIZE);
+    }
+
+    private void setSize(long node, int size) {
+        store.putInt(node + SIZE, size);
+    }
+
+    private long keyAt(long node, int idx) {
+        return store.getLong(node + ENTRIES + 8L * idx);
+    }
+
+    private void setKey(long node, int idx, long key) {
+        store.putLong(node + ENTRIES + 8L * idx, key);
+    }
+
+    /**
+     * @return value of a leaf entry, or child reference of a branch entry
+     */
+    private long slotAt(long node, int idx) {
+        return store.getLong(node + ENTRIES + 8L * (capacity + idx));
+    }
+
+    private void setSlot(long node, int idx, long slot) {
+        store.putLong(node + ENTRIES + 8L * (capacity + idx), slot);
+    }
+}
@@ -0,0 +1,199 @@
+package bplustree;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Append only log of records, each framed by its length and CRC32.
+ * Appended records are buffered in memory and made durable by {@link #sync(long)} with group commit:
+ * the first caller writes and forces every record buffered so far, callers whose records were part of
+ * that batch just wait for it, so concurrent writers share a single fsync.
+ */
+class WriteAheadLog implements Closeable {
+    private static final int FRAME_BYTES = 8;
+    private final FileChannel channel;
+    private ByteArrayOutputStream pending = new ByteArrayOutputStream();
+    private long appended = 0, durable = 0, syncs = 0;
+    private boolean syncing = false;
+    private IOException failure;
+
+    private WriteAheadLog(FileChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * Opens the log, passing every intact record to replay in order.
+     * A torn record left by a crash and anything after it is cut off.
+     */
+    static WriteAheadLog open(Path file, Consumer<ByteBuffer> replay) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            long end = 0, size = channel.size();
+            ByteBuffer frame = ByteBuffer.allocate(FRAME_BYTES);
+
+            while (end + FRAME_BYTES <= size) {
+                frame.clear();
+                readFully(channel, frame, end);
+                int length = frame.getInt(0);
+                if (length < 0 || end + FRAME_BYTES + length > size)
+                    break;
+
+                ByteBuffer record = ByteBuffer.allocate(length);
+                readFully(channel, record, end + FRAME_BYTES);
+                if (crcOf(record.array()) != frame.getInt(4))
+                    break;
+
+                replay.accept(record);
+                end += FRAME_BYTES + length;
+            }
+
+            channel.truncate(end);
+            channel.position(end);
+            return new WriteAheadLog(channel);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining() && channel.read(buffer, position + buffer.position()) > 0) ;
+        buffer.flip();
+    }
+
+    private static int crcOf(byte[] record) {
+        CRC32 crc = new CRC32();
+        crc.update(record, 0, record.length);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * @return sequence number to pass to {@link #sync(long)}
+     */
+    synchronized long append(byte[] record) {
+        pending.write(frameOf(record), 0, FRAME_BYTES);
+        pending.write(record, 0, record.length);
+        return ++appended;
+    }
+
+    private static byte[] frameOf(byte[] record) {
+        ByteBuffer frame = ByteBuffer.allocate(FRAME_BYTES);
+        frame.putInt(record.length).putInt(crcOf(record));
+        return frame.array();
+    }
+
+    /**
+     * @throws IOException if an earlier sync failed, records appended from then on can never become durable
+     */
+    synchronized void checkFailure() throws IOException {
+        if (failure != null)
+            throw new IOException("Write-ahead log failed", failure);
+    }
+
+    /**
+     * @return sequence number of the last record known to be on disk
+     */
+    synchronized long durable() {
+        return durable;
+    }
+
+    /**
+     * Discards every record and starts the log over with firstRecord, which is on disk once this returns.
+     * The caller has to make sure every appended record was synced and no more are appended meanwhile.
+     */
+    synchronized void reset(byte[] firstRecord) throws IOException {
+        checkFailure();
+        if (appended != durable)
+            throw new IllegalStateException("Can't reset a log with records not synced yet");
+
+        channel.truncate(0);
+        channel.position(0);
+        ByteBuffer buffer = ByteBuffer.allocate(FRAME_BYTES + firstRecord.length);
+        buffer.put(frameOf(firstRecord)).put(firstRecord).flip();
+        while (buffer.hasRemaining())
+            channel.write(buffer);
+        channel.force(false);
+    }
+
+    /**
+     * Returns once the record with sequence number seq and all before it are on disk
+     *
+     * @throws IOException if writing or forcing the log failed, after which the log accepts no more syncs
+     */
+    void sync(long seq) throws IOException {
+        byte[] batch;
+        long batchEnd;
+
+        synchronized (this) {
+            while (durable < seq && syncing && failure == null)
+                waitForBatch();
+            if (durable >= seq)
+                return;
+            checkFailure();
+
+            syncing = true;
+            batch = pending.toByteArray();
+            batchEnd = appended;
+            pending = new ByteArrayOutputStream();
+        }
+
+        IOException error = null;
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(batch);
+            while (buffer.hasRemaining())
+                channel.write(buffer);
+            channel.force(false);
+        } catch (IOException e) {
+            error = e;
+        }
+
+        synchronized (this) {
+            syncing = false;
+            if (error == null) {
+                durable = batchEnd;
+                ++syncs;
+            } else {
+                failure = error;
+            }
+            notifyAll();
+        }
+        if (error != null)
+            throw error;
+    }
+
+    private void waitForBatch() throws IOException {
+        try {
+            wait();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for the write-ahead log", e);
+        }
+    }
+
+    /**
+     * @return number of fsyncs, each covering every record appended before it started
+     */
+    synchronized long getSyncs() {
+        return syncs;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            sync(appended());
+        } finally {
+            channel.close();
+        }
+    }
+
+    synchronized long appended() {
+        return appended;
+    }
+}
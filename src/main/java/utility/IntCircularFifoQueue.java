@@ -0,0 +1,236 @@
+package utility;
+
+import java.util.NoSuchElementException;
+
+/**
+ * IntCircularFifoQueue is the primitive int counterpart of {@link CircularFifoQueue}.
+ * Elements are stored unboxed in a fixed size ring buffer, so none of the operations allocate.
+ */
+public class IntCircularFifoQueue {
+
+    /** Underlying storage array. */
+    private final int[] elements;
+
+    /** Array index of first (oldest) queue element. */
+    private int start = 0;
+
+    /** Number of elements currently stored in the queue. */
+    private int size = 0;
+
+    /** Capacity of the queue. */
+    private final int maxElements;
+
+    /**
+     * Constructor that creates a queue with the specified size.
+     *
+     * @param size  the size of the queue (cannot be changed)
+     * @throws IllegalArgumentException  if the size is &lt; 1
+     */
+    public IntCircularFifoQueue(final int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("The size must be greater than 0");
+        }
+        elements = new int[size];
+        maxElements = size;
+    }
+
+    public IntCircularFifoQueue(final int[] elements, final int size) {
+        if (elements.length < size)
+            throw new IllegalStateException("initial array is smaller than the specified end index");
+
+        this.elements = elements;
+        this.size = size;
+        this.maxElements = elements.length;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean isAtFullCapacity() {
+        return size == maxElements;
+    }
+
+    public int maxSize() {
+        return maxElements;
+    }
+
+    public void clear() {
+        start = 0;
+        size = 0;
+    }
+
+    /**
+     * Returns the element at the specified position in this queue.
+     *
+     * @throws NoSuchElementException if the requested position is outside the range [0, size)
+     */
+    public int get(final int index) {
+        checkIndex(index, size);
+        return elements[physical(index)];
+    }
+
+    /**
+     * Sets the element at the specified position in this queue.
+     *
+     * @throws NoSuchElementException if the requested position is outside the range [0, size)
+     */
+    public void set(final int index, final int element) {
+        checkIndex(index, size);
+        elements[physical(index)] = element;
+    }
+
+    public void pushBack(final int element) {
+        if (isAtFullCapacity()) {
+            throw new IllegalStateException("Can not add when queue is full");
+        }
+
+        elements[physical(size++)] = element;
+    }
+
+    public void pushFront(final int element) {
+        if (isAtFullCapacity()) {
+            throw new IllegalStateException("Can not add when queue is full");
+        }
+
+        start = decrement(start);
+        elements[start] = element;
+        ++size;
+    }
+
+    /**
+     * @throws NoSuchElementException if the queue is empty
+     */
+    public int peekFront() {
+        if (isEmpty()) {
+            throw new NoSuchElementException("queue is empty");
+        }
+        return elements[start];
+    }
+
+    /**
+     * @throws NoSuchElementException if the queue is empty
+     */
+    public int peekBack() {
+        if (isEmpty()) {
+            throw new NoSuchElementException("queue is empty");
+        }
+        return elements[physical(size - 1)];
+    }
+
+    public int popFront() {
+        if (isEmpty()) {
+            throw new NoSuchElementException("queue is empty");
+        }
+
+        final int element = elements[start];
+        start = increment(start);
+        --size;
+
+        return element;
+    }
+
+    public int popBack() {
+        if (isEmpty()) {
+            throw new NoSuchElementException("queue is empty");
+        }
+
+        return elements[physical(--size)];
+    }
+
+    /**
+     * Removes the element at the given position, shifting whichever side of the queue is shorter.
+     */
+    public void remove(final int index) {
+        checkIndex(index, size);
+
+        if (size - index - 1 <= index) {
+            for (int i = index; i < size - 1; i++)
+                elements[physical(i)] = elements[physical(i + 1)];
+        } else {
+            for (int i = index; i > 0; i--)
+                elements[physical(i)] = elements[physical(i - 1)];
+            start = increment(start);
+        }
+        --size;
+    }
+
+    public void removeFrom(int index) {
+        if (index < 0)
+            index = 0;
+        else if (index >= size)
+            return;
+
+        size = index;
+    }
+
+    /**
+     * Inserts the element at the given position, shifting whichever side of the queue is shorter.
+     */
+    public void insert(final int element, final int index) {
+        checkIndex(index, size + 1);
+
+        if (isAtFullCapacity()) {
+            throw new IllegalStateException("Object is currently full");
+        }
+
+        if (size - index <= index) {
+            for (int i = size; i > index; i--)
+                elements[physical(i)] = elements[physical(i - 1)];
+        } else {
+            start = decrement(start);
+            for (int i = 0; i < index; i++)
+                elements[physical(i)] = elements[physical(i + 1)];
+        }
+        elements[physical(index)] = element;
+        ++size;
+    }
+
+    public IntCircularFifoQueue split() {
+        if (!isAtFullCapacity())
+            throw new IllegalStateException("IntCircularFifoQueue should be full before split");
+
+        final int leftLength = maxElements / 2;
+        final int[] restElements = new int[maxElements];
+        for (int i = leftLength; i < size; i++)
+            restElements[i - leftLength] = elements[physical(i)];
+
+        final int restLength = size - leftLength;
+        removeFrom(leftLength);
+
+        return new IntCircularFifoQueue(restElements, restLength);
+    }
+
+    private void checkIndex(final int index, final int bound) {
+        if (index < 0 || index >= bound) {
+            throw new NoSuchElementException(
+                    String.format("The specified index (%1$d) is outside the available range [0, %2$d)",
+                            Integer.valueOf(index), Integer.valueOf(bound)));
+        }
+    }
+
+    private int physical(final int index) {
+        final int idx = start + index;
+        return idx >= maxElements ? idx - maxElements : idx;
+    }
+
+    private int increment(int index) {
+        index++;
+        if (index >= maxElements) {
+            index = 0;
+        }
+        return index;
+    }
+
+    private int decrement(int index) {
+        index--;
+        if (index < 0) {
+            index = maxElements - 1;
+        }
+        return index;
+    }
+}
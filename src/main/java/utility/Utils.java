@@ -45,4 +45,84 @@ public class Utils {
         }
         return ary.get(low).compareTo(key) == 0 ? low : -(low + 1); // key not found.
     }
+
+    /**
+     * @return returns the leftmost value greater than or equal to key
+     */
+    public static int searchLeftmostKey(final LongCircularFifoQueue ary, final long key, final int to) {
+        if (to <= 0)
+            return -1;
+
+        int low = 0;
+        int high = to;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (ary.get(mid) < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low < to && ary.get(low) == key ? low : -(low + 1); // key not found.
+    }
+
+    /**
+     * @return returns the rightmost value lower or equal to key
+     */
+    public static int searchRightmostKey(final LongCircularFifoQueue ary, final long key, final int to) {
+        if (to <= 0)
+            return -1;
+
+        int low = 0;
+        int high = to - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (ary.get(mid) <= key) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return ary.get(low) == key ? low : -(low + 1); // key not found.
+    }
+
+    /**
+     * @return returns the leftmost value greater than or equal to key
+     */
+    public static int searchLeftmostKey(final IntCircularFifoQueue ary, final int key, final int to) {
+        if (to <= 0)
+            return -1;
+
+        int low = 0;
+        int high = to;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (ary.get(mid) < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low < to && ary.get(low) == key ? low : -(low + 1); // key not found.
+    }
+
+    /**
+     * @return returns the rightmost value lower or equal to key
+     */
+    public static int searchRightmostKey(final IntCircularFifoQueue ary, final int key, final int to) {
+        if (to <= 0)
+            return -1;
+
+        int low = 0;
+        int high = to - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (ary.get(mid) <= key) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return ary.get(low) == key ? low : -(low + 1); // key not found.
+    }
 }
@@ -35,14 +35,34 @@ public abstract class AbstractBenchmark {
         return opt;
     }
 
+    /**
+     * Aux counters are only reported in the AverageTime and Throughput modes,
+     * so benchmarks reporting {@link TreeCounters} run in AverageTime too
+     */
+    public Options optionsWithCounters() {
+        return new OptionsBuilder()
+                .parent(defaultOptions())
+                .mode(Mode.SampleTime)
+                .mode(Mode.AverageTime)
+                .build();
+    }
+
     public abstract Options setupBenchmarkAndBuildAdditionalOption();
 
     public abstract String getClassSimpleName();
 
+    /**
+     * The benchmark is run once per thread count, overriding the threads of its options
+     */
+    public int[] threadCounts() {
+        return new int[]{1};
+    }
+
     @Test
     @Tag("benchmark")
     public void runBenchmark()throws RunnerException {
         Options runningOptions = setupBenchmarkAndBuildAdditionalOption();
-        new Runner(runningOptions).run();
+        for (int threads : threadCounts())
+            new Runner(new OptionsBuilder().parent(runningOptions).threads(threads).build()).run();
     }
 }
@@ -14,12 +14,13 @@ public class AddNodeToBtreeBenchmark extends AbstractBenchmark {
     private static final int InitialSize = 35 * 1000, Period = 3500, MaxBatch = 1000 * 1000;
     private BplusTree<Integer, Integer> bplusTree;
     private ArrayList<Integer> list, randomShuffled;
+    private Integer[] batch1k, sortedBatch1k, batch100k;
     private int occCounter[];
     private int indexIterator, periodCounter = 1, listIndex = 0;
 
     @Override
     public Options setupBenchmarkAndBuildAdditionalOption() {
-        return defaultOptions();
+        return optionsWithCounters();
     }
 
     @Override
@@ -27,6 +28,29 @@ public class AddNodeToBtreeBenchmark extends AbstractBenchmark {
         return AddNodeToBtreeBenchmark.class.getSimpleName();
     }
 
+    /**
+     * The tree lives for the whole trial, so its statistics are reported as they stand after each iteration
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class AddCounters extends TreeCounters {
+        public double hits() {
+            return gauge(tree.getHit());
+        }
+
+        public double misses() {
+            return gauge(tree.getMiss());
+        }
+
+        public double sampleDepth() {
+            return gauge(tree.getSampleDepth());
+        }
+
+        public double leafFillFactor() {
+            return gauge(tree.getLeafFillFactor());
+        }
+    }
+
     @Setup
     public void setup() throws BTreeException {
         System.out.println("Begin");
@@ -46,6 +70,10 @@ public class AddNodeToBtreeBenchmark extends AbstractBenchmark {
 
         for (int i = 0; i < MaxBatch; i++) randomShuffled.add(i);
         java.util.Collections.shuffle(randomShuffled);
+        batch1k = randomShuffled.subList(0, 1000).toArray(new Integer[0]);
+        sortedBatch1k = batch1k.clone();
+        java.util.Arrays.sort(sortedBatch1k);
+        batch100k = randomShuffled.subList(0, 100 * 1000).toArray(new Integer[0]);
 
         long endTime = System.nanoTime();
         System.out.println(MessageFormat.format("Initialized @ {0}ns", endTime - startTime));
@@ -72,31 +100,36 @@ public class AddNodeToBtreeBenchmark extends AbstractBenchmark {
     }
 
     @Benchmark
-    public void addNodeInIncrement() throws BTreeException {
+    public void addNodeInIncrement(AddCounters counters) throws BTreeException {
+        counters.track(bplusTree);
         Integer currIndex = getNextIndex();
         bplusTree.add(currIndex, currIndex);
     }
 
     @Benchmark
-    public void addNodeInDecrement() throws BTreeException {
+    public void addNodeInDecrement(AddCounters counters) throws BTreeException {
+        counters.track(bplusTree);
         Integer currIndex = getPrevIndex();
         bplusTree.add(currIndex, currIndex);
     }
 
     @Benchmark
-    public void addNodeRandomPermutation() throws BTreeException {
+    public void addNodeRandomPermutation(AddCounters counters) throws BTreeException {
+        counters.track(bplusTree);
         Integer currIndex = getNextRandPermutationIndex();
         bplusTree.add(currIndex, currIndex);
     }
 
     @Benchmark
-    public void addNodeRandom() throws BTreeException {
+    public void addNodeRandom(AddCounters counters) throws BTreeException {
+        counters.track(bplusTree);
         Integer currIndex = getNextRandIndex();
         bplusTree.add(currIndex, currIndex);
     }
 
     @Benchmark
-    public void addBatch1k() throws BTreeException {
+    public void addBatch1k(AddCounters counters) throws BTreeException {
+        counters.track(bplusTree);
         bplusTree.removeFrom(0);
 
         for (int i = 0; i < 1000; i++)
@@ -104,7 +137,8 @@ public class AddNodeToBtreeBenchmark extends AbstractBenchmark {
     }
 
     @Benchmark
-    public void addBatch100k() throws BTreeException {
+    public void addBatch100k(AddCounters counters) throws BTreeException {
+        counters.track(bplusTree);
         bplusTree.removeFrom(0);
 
         for (int i = 0; i < 100 * 1000; i++)
@@ -112,17 +146,32 @@ public class AddNodeToBtreeBenchmark extends AbstractBenchmark {
     }
 
     @Benchmark
-    public void addBatch1m() throws BTreeException {
+    public void addBatch1m(AddCounters counters) throws BTreeException {
+        counters.track(bplusTree);
         bplusTree.removeFrom(0);
 
         for (int i = 0; i < 1000 * 1000; i++)
             bplusTree.add(randomShuffled.get(i), i);
     }
 
+    @Benchmark
+    public void addAllBatch1k(AddCounters counters) throws BTreeException {
+        counters.track(bplusTree);
+        bplusTree.removeFrom(0);
+        bplusTree.addAll(batch1k, batch1k);
+    }
 
-    @TearDown
-    public void tearDown() {
-        System.out.println(MessageFormat.format("test finished with {0} hits and {1} misses", bplusTree.getHit(), bplusTree.getMiss()));
-        System.out.println(MessageFormat.format("sample depth is {0}", bplusTree.getSampleDepth()));
+    @Benchmark
+    public void addAllSortedBatch1k(AddCounters counters) throws BTreeException {
+        counters.track(bplusTree);
+        bplusTree.removeFrom(0);
+        bplusTree.addAll(sortedBatch1k, sortedBatch1k);
+    }
+
+    @Benchmark
+    public void addAllBatch100k(AddCounters counters) throws BTreeException {
+        counters.track(bplusTree);
+        bplusTree.removeFrom(0);
+        bplusTree.addAll(batch100k, batch100k);
     }
 }
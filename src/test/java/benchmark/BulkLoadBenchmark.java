@@ -0,0 +1,64 @@
+package benchmark;
+
+import bplustree.BTreeException;
+import bplustree.BplusTree;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.options.Options;
+
+import java.util.ArrayList;
+
+@State(Scope.Thread)
+public class BulkLoadBenchmark extends AbstractBenchmark {
+    private Integer[] sortedKeys, shuffledKeys;
+
+    @Param({"100000", "1000000"})
+    private int size;
+
+    @Param({"0.7", "1.0"})
+    private double fillFactor;
+
+    @Override
+    public Options setupBenchmarkAndBuildAdditionalOption() {
+        return defaultOptions();
+    }
+
+    @Override
+    public String getClassSimpleName() {
+        return BulkLoadBenchmark.class.getSimpleName();
+    }
+
+    @Setup
+    public void setup() {
+        ArrayList<Integer> list = new ArrayList<>();
+        for (int i = 0; i < size; i++)
+            list.add(i);
+
+        sortedKeys = list.toArray(new Integer[0]);
+        java.util.Collections.shuffle(list);
+        shuffledKeys = list.toArray(new Integer[0]);
+    }
+
+    @Benchmark
+    public void bulkLoadSorted(Blackhole blackhole) throws BTreeException {
+        BplusTree<Integer, Integer> bplusTree = new BplusTree<>();
+        bplusTree.bulkLoad(sortedKeys, sortedKeys, fillFactor);
+        blackhole.consume(bplusTree);
+    }
+
+    @Benchmark
+    public void addSorted(Blackhole blackhole) throws BTreeException {
+        BplusTree<Integer, Integer> bplusTree = new BplusTree<>();
+        for (Integer key : sortedKeys)
+            bplusTree.add(key, key);
+        blackhole.consume(bplusTree);
+    }
+
+    @Benchmark
+    public void addShuffled(Blackhole blackhole) throws BTreeException {
+        BplusTree<Integer, Integer> bplusTree = new BplusTree<>();
+        for (Integer key : shuffledKeys)
+            bplusTree.add(key, key);
+        blackhole.consume(bplusTree);
+    }
+}
@@ -0,0 +1,101 @@
+package benchmark;
+
+import bplustree.BTreeException;
+import bplustree.BplusTree;
+import bplustree.ConcurrentBplusTree;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Compares the latch coupled ConcurrentBplusTree with a BplusTree behind one global lock,
+ * for 1 up to all available threads
+ */
+@State(Scope.Benchmark)
+public class ConcurrentBplusTreeBenchmark extends AbstractBenchmark {
+    private static final int InitialSize = 1000 * 1000;
+    private ConcurrentBplusTree<Integer, Integer> concurrentTree;
+    private BplusTree<Integer, Integer> lockedTree;
+    private final Object globalLock = new Object();
+    private final AtomicInteger nextKey = new AtomicInteger(InitialSize);
+
+    @Override
+    public Options setupBenchmarkAndBuildAdditionalOption() {
+        return new OptionsBuilder()
+                .parent(defaultOptions())
+                .mode(Mode.Throughput)
+                .timeUnit(TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    @Override
+    public String getClassSimpleName() {
+        return ConcurrentBplusTreeBenchmark.class.getSimpleName();
+    }
+
+    @Override
+    public int[] threadCounts() {
+        int cores = Runtime.getRuntime().availableProcessors();
+        return cores > 4 ? new int[]{1, 2, 4, cores} : new int[]{1, 2, 4};
+    }
+
+    @Setup
+    public void setup() throws BTreeException {
+        concurrentTree = new ConcurrentBplusTree<>();
+        lockedTree = new BplusTree<>();
+        for (int i = 0; i < InitialSize; i++) {
+            concurrentTree.add(i, i);
+            lockedTree.add(i, i);
+        }
+    }
+
+    @Benchmark
+    public void concurrentFind(Blackhole blackhole) throws BTreeException {
+        blackhole.consume(concurrentTree.find(ThreadLocalRandom.current().nextInt(InitialSize)));
+    }
+
+    @Benchmark
+    public void lockedFind(Blackhole blackhole) throws BTreeException {
+        int key = ThreadLocalRandom.current().nextInt(InitialSize);
+        synchronized (globalLock) {
+            blackhole.consume(lockedTree.find(key));
+        }
+    }
+
+    /**
+     * 90% finds, 10% adds of a fresh key followed by its removal
+     */
+    @Benchmark
+    public void concurrentReadMostly(Blackhole blackhole) throws BTreeException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (random.nextInt(10) > 0) {
+            blackhole.consume(concurrentTree.find(random.nextInt(InitialSize)));
+        } else {
+            int key = nextKey.getAndIncrement();
+            concurrentTree.add(key, key);
+            concurrentTree.remove(key);
+        }
+    }
+
+    @Benchmark
+    public void lockedReadMostly(Blackhole blackhole) throws BTreeException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (random.nextInt(10) > 0) {
+            int key = random.nextInt(InitialSize);
+            synchronized (globalLock) {
+                blackhole.consume(lockedTree.find(key));
+            }
+        } else {
+            int key = nextKey.getAndIncrement();
+            synchronized (globalLock) {
+                lockedTree.add(key, key);
+                lockedTree.remove(key);
+            }
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package benchmark;
+
+import bplustree.BTreeException;
+import bplustree.Codec;
+import bplustree.DurableBplusTree;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Durable adds from a growing number of threads, group commit lets them share fsyncs
+ */
+@State(Scope.Benchmark)
+public class DurableBplusTreeBenchmark extends AbstractBenchmark {
+    private DurableBplusTree<Long, Long> bplusTree;
+    private Path logFile;
+    private final AtomicLong nextKey = new AtomicLong();
+
+    @Override
+    public Options setupBenchmarkAndBuildAdditionalOption() {
+        return new OptionsBuilder()
+                .parent(defaultOptions())
+                .mode(Mode.Throughput)
+                .timeUnit(TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    @Override
+    public String getClassSimpleName() {
+        return DurableBplusTreeBenchmark.class.getSimpleName();
+    }
+
+    @Override
+    public int[] threadCounts() {
+        return new int[]{1, 4, 16};
+    }
+
+    @Setup
+    public void setup() throws IOException {
+        logFile = Files.createTempFile(getClassSimpleName(), ".wal");
+        bplusTree = DurableBplusTree.open(logFile, Codec.LONG, Codec.LONG);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        bplusTree.close();
+        Files.delete(logFile);
+    }
+
+    @Benchmark
+    public void durableAdd() throws BTreeException, IOException {
+        long key = nextKey.getAndIncrement();
+        bplusTree.add(key, key);
+    }
+}
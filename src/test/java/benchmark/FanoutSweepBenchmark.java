@@ -0,0 +1,76 @@
+package benchmark;
+
+import bplustree.BTreeException;
+import bplustree.BplusTree;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.options.Options;
+
+import java.util.ArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Sweeps leaf and branch capacities so node sizes can be picked from measurements
+ */
+@State(Scope.Thread)
+public class FanoutSweepBenchmark extends AbstractBenchmark {
+    private static final int InitialSize = 1000 * 1000;
+    private BplusTree<Long, Long> bplusTree;
+    private long nextKey;
+
+    @Param({"16", "32", "64", "128", "256", "512", "1024"})
+    private int leafCapacity;
+
+    @Param({"16", "64", "256", "1024"})
+    private int branchCapacity;
+
+    @Override
+    public Options setupBenchmarkAndBuildAdditionalOption() {
+        return defaultOptions();
+    }
+
+    @Override
+    public String getClassSimpleName() {
+        return FanoutSweepBenchmark.class.getSimpleName();
+    }
+
+    @Setup
+    public void setup() throws BTreeException {
+        bplusTree = new BplusTree<>(leafCapacity, branchCapacity);
+        ArrayList<Long> list = new ArrayList<>();
+
+        for (long i = 0; i < InitialSize; i++)
+            list.add(2 * i);
+        java.util.Collections.shuffle(list);
+
+        for (Long key : list)
+            bplusTree.add(key, key);
+        nextKey = 2L * InitialSize;
+    }
+
+    @Benchmark
+    public void insertRandom() throws BTreeException {
+        long key = 2 * ThreadLocalRandom.current().nextLong(InitialSize, Long.MAX_VALUE / 2) + 1;
+        if (bplusTree.find(key) == null)
+            bplusTree.add(key, key);
+    }
+
+    @Benchmark
+    public void insertInIncrement() throws BTreeException {
+        long key = nextKey++;
+        bplusTree.add(key, key);
+    }
+
+    @Benchmark
+    public void findRandom(Blackhole blackhole) throws BTreeException {
+        long key = 2L * ThreadLocalRandom.current().nextInt(InitialSize);
+        blackhole.consume(bplusTree.find(key));
+    }
+
+    @Benchmark
+    public void popAndAppend(Blackhole blackhole) throws BTreeException {
+        long key = nextKey++;
+        blackhole.consume(bplusTree.pop());
+        bplusTree.add(key, key);
+    }
+}
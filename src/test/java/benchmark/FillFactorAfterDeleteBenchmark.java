@@ -0,0 +1,94 @@
+package benchmark;
+
+import bplustree.BTreeException;
+import bplustree.BplusTree;
+import bplustree.BplusTreeCursor;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.options.Options;
+
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Scans and point lookups over a tree that had most of its entries removed in random order,
+ * reporting the leaf fill factor left behind by the delete-heavy workload, with and without compacting afterwards
+ */
+@State(Scope.Thread)
+public class FillFactorAfterDeleteBenchmark extends AbstractBenchmark {
+    private static final int InitialSize = 1000 * 1000;
+    private BplusTree<Integer, Integer> bplusTree;
+    private int[] remaining;
+
+    @Param({"50", "90"})
+    private int removedPercent;
+
+    @Param({"false", "true"})
+    private boolean compacted;
+
+    @Override
+    public Options setupBenchmarkAndBuildAdditionalOption() {
+        return optionsWithCounters();
+    }
+
+    @Override
+    public String getClassSimpleName() {
+        return FillFactorAfterDeleteBenchmark.class.getSimpleName();
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class FillFactorCounters extends TreeCounters {
+        public double leafFillFactor() {
+            return gauge(tree.getLeafFillFactor());
+        }
+    }
+
+    @Setup
+    public void setup() throws BTreeException {
+        Random random = new Random(14);
+        int[] keys = new int[InitialSize];
+        for (int i = 0; i < InitialSize; i++)
+            keys[i] = i;
+        for (int i = InitialSize - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int tmp = keys[i];
+            keys[i] = keys[j];
+            keys[j] = tmp;
+        }
+
+        bplusTree = new BplusTree<>();
+        for (int key : keys)
+            bplusTree.add(key, key);
+
+        int removed = InitialSize / 100 * removedPercent;
+        for (int i = 0; i < removed; i++)
+            bplusTree.remove(keys[i]);
+
+        if (compacted)
+            bplusTree.compact(1.0);
+
+        remaining = new int[InitialSize - removed];
+        System.arraycopy(keys, removed, remaining, 0, remaining.length);
+    }
+
+    @Benchmark
+    public void scanAll(Blackhole blackhole, FillFactorCounters counters) {
+        counters.track(bplusTree);
+        BplusTreeCursor<Integer, Integer> cursor = bplusTree.cursor(null, null);
+
+        if (cursor.isValid()) {
+            blackhole.consume(cursor.getValue());
+            while (cursor.hasNext()) {
+                cursor.goToNext();
+                blackhole.consume(cursor.getValue());
+            }
+        }
+    }
+
+    @Benchmark
+    public Integer findRemaining(FillFactorCounters counters) throws BTreeException {
+        counters.track(bplusTree);
+        return bplusTree.find(remaining[ThreadLocalRandom.current().nextInt(remaining.length)]);
+    }
+}
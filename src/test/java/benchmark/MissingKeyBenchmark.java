@@ -0,0 +1,82 @@
+package benchmark;
+
+import bplustree.BTreeException;
+import bplustree.BplusTree;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.options.Options;
+
+import java.util.Random;
+
+/**
+ * Inserts and deletes on random keys where 20% of them end up as a duplicate insert or a delete of
+ * an absent key, handled through caught exceptions and through the non-throwing methods
+ */
+@State(Scope.Thread)
+public class MissingKeyBenchmark extends AbstractBenchmark {
+    private static final int InitialSize = 1000 * 1000;
+    private static final int KeyCount = 1024 * 1024;
+    private static final int MissPercent = 20;
+    private BplusTree<Integer, Integer> bplusTree;
+    private int[] keys;
+    private boolean[] removes;
+    private int next;
+
+    @Override
+    public Options setupBenchmarkAndBuildAdditionalOption() {
+        return defaultOptions();
+    }
+
+    @Override
+    public String getClassSimpleName() {
+        return MissingKeyBenchmark.class.getSimpleName();
+    }
+
+    /**
+     * Even keys are present. Operations come in pairs, a remove of an even key and adding it back,
+     * or for a miss a remove of the odd key above it and a duplicate add of the even key,
+     * so the tree stays as it was loaded.
+     */
+    @Setup(Level.Iteration)
+    public void setup() throws BTreeException {
+        bplusTree = new BplusTree<>();
+        for (int i = 0; i < 2 * InitialSize; i += 2)
+            bplusTree.add(i, i);
+
+        Random random = new Random(0);
+        keys = new int[KeyCount];
+        removes = new boolean[KeyCount];
+        for (int i = 0; i < KeyCount; i += 2) {
+            int key = 2 * random.nextInt(InitialSize);
+            boolean miss = random.nextInt(100) < MissPercent;
+            keys[i] = miss ? key + 1 : key;
+            keys[i + 1] = key;
+            removes[i] = true;
+            removes[i + 1] = false;
+        }
+        next = 0;
+    }
+
+    @Benchmark
+    public boolean exceptions() {
+        int idx = next++ & (KeyCount - 1);
+        Integer key = keys[idx];
+        try {
+            if (removes[idx])
+                bplusTree.remove(key);
+            else
+                bplusTree.add(key, key);
+            return true;
+        } catch (BTreeException e) {
+            return false;
+        }
+    }
+
+    @Benchmark
+    public boolean nonThrowing() throws BTreeException {
+        int idx = next++ & (KeyCount - 1);
+        Integer key = keys[idx];
+        if (removes[idx])
+            return bplusTree.removeIfPresent(key) != null;
+        return bplusTree.tryAdd(key, key);
+    }
+}
@@ -0,0 +1,88 @@
+package benchmark;
+
+import bplustree.BTreeException;
+import bplustree.BplusTree;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.options.Options;
+
+/**
+ * Two ingest streams writing and reading back interleaved key regions, the pattern that makes a single cached
+ * leaf miss on every operation
+ */
+@State(Scope.Thread)
+public class MultiFingerCacheBenchmark extends AbstractBenchmark {
+    private static final int InitialSize = 1000 * 1000;
+    private static final int StreamDistance = InitialSize / 2;
+    private BplusTree<Integer, Integer> bplusTree;
+    private int next;
+
+    @Param({"0", "1", "4"})
+    private int fingers;
+
+    @Override
+    public Options setupBenchmarkAndBuildAdditionalOption() {
+        return optionsWithCounters();
+    }
+
+    @Override
+    public String getClassSimpleName() {
+        return MultiFingerCacheBenchmark.class.getSimpleName();
+    }
+
+    @Setup(Level.Iteration)
+    public void setup() throws BTreeException {
+        bplusTree = new BplusTree<>(31, 31, fingers);
+        for (int i = 0; i < InitialSize; i += 2)
+            bplusTree.add(i, i);
+        next = 1;
+    }
+
+    /**
+     * Hits and misses of every iteration's fresh tree, and how many fingers took hits at which highest level
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class FingerCounters extends TreeCounters {
+        public int hits() {
+            return tree == null ? 0 : tree.getHit();
+        }
+
+        public int misses() {
+            return tree == null ? 0 : tree.getMiss();
+        }
+
+        public double fingersHit() {
+            int hit = 0;
+            for (int finger = 0; tree != null && finger < tree.getFingerCount(); finger++)
+                if (tree.getHit(finger) > 0)
+                    ++hit;
+            return gauge(hit);
+        }
+
+        public double highestFingerLevel() {
+            int level = 0;
+            for (int finger = 0; tree != null && finger < tree.getFingerCount(); finger++)
+                level = Math.max(level, tree.getFingerLevel(finger));
+            return gauge(level);
+        }
+    }
+
+    @Benchmark
+    public Integer interleavedStreams(FingerCounters counters) throws BTreeException {
+        counters.track(bplusTree);
+        if (next >= StreamDistance)
+            next = 1;
+
+        int first = next, second = next + StreamDistance;
+        next += 2;
+
+        if (bplusTree.find(first) == null) {
+            bplusTree.add(first, first);
+            bplusTree.add(second, second);
+        } else {
+            bplusTree.remove(first);
+            bplusTree.remove(second);
+        }
+        return bplusTree.find(second);
+    }
+}
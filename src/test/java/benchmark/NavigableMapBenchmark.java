@@ -0,0 +1,95 @@
+package benchmark;
+
+import bplustree.BplusTreeMap;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.options.Options;
+
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * BplusTreeMap against the JDK sorted maps it is meant to replace, through the NavigableMap interface only
+ */
+@State(Scope.Thread)
+public class NavigableMapBenchmark extends AbstractBenchmark {
+    private static final int InitialSize = 1000 * 1000;
+    private static final int KeyCount = 1024 * 1024;
+    private static final int ScanLength = 1000;
+    private NavigableMap<Integer, Integer> map;
+    private int[] keys;
+    private int next;
+
+    @Param({"BplusTreeMap", "TreeMap", "ConcurrentSkipListMap"})
+    private String implementation;
+
+    @Override
+    public Options setupBenchmarkAndBuildAdditionalOption() {
+        return defaultOptions();
+    }
+
+    @Override
+    public String getClassSimpleName() {
+        return NavigableMapBenchmark.class.getSimpleName();
+    }
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        switch (implementation) {
+            case "TreeMap":
+                map = new TreeMap<>();
+                break;
+            case "ConcurrentSkipListMap":
+                map = new ConcurrentSkipListMap<>();
+                break;
+            default:
+                map = new BplusTreeMap<>();
+        }
+
+        Random random = new Random(0);
+        keys = new int[KeyCount];
+        for (int i = 0; i < KeyCount; i++)
+            keys[i] = random.nextInt(2 * InitialSize);
+        for (int i = 0; i < 2 * InitialSize; i += 2)
+            map.put(i, i);
+        next = 0;
+    }
+
+    private Integer nextKey() {
+        return keys[next++ & (KeyCount - 1)];
+    }
+
+    @Benchmark
+    public Integer put() {
+        Integer key = nextKey();
+        return map.put(key, key);
+    }
+
+    @Benchmark
+    public Integer get() {
+        return map.get(nextKey());
+    }
+
+    @Benchmark
+    public void iterate(Blackhole blackhole) {
+        int scanned = 0;
+        for (Map.Entry<Integer, Integer> entry : map.tailMap(nextKey(), true).entrySet()) {
+            blackhole.consume(entry.getValue());
+            if (++scanned == ScanLength)
+                break;
+        }
+    }
+
+    /**
+     * Every poll is paid back with a put past the largest key, so the map keeps its size
+     */
+    @Benchmark
+    public Map.Entry<Integer, Integer> pollFirst() {
+        Map.Entry<Integer, Integer> entry = map.pollFirstEntry();
+        map.put(entry.getKey() + 2 * InitialSize, entry.getValue());
+        return entry;
+    }
+}
@@ -0,0 +1,97 @@
+package benchmark;
+
+import bplustree.BTreeException;
+import bplustree.LongLongBplusTree;
+import bplustree.PagedLongLongBplusTree;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.options.Options;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ThreadLocalRandom;
+
+@State(Scope.Thread)
+public class OffHeapBplusTreeBenchmark extends AbstractBenchmark {
+    private static final int InitialSize = 1000 * 1000;
+    private LongLongBplusTree heapTree;
+    private PagedLongLongBplusTree offHeapTree;
+    private PagedLongLongBplusTree mappedTree;
+    private PagedLongLongBplusTree pooledTree;
+    private Path mappedFile, pooledFile;
+    private long nextKey;
+
+    @Override
+    public Options setupBenchmarkAndBuildAdditionalOption() {
+        return defaultOptions();
+    }
+
+    @Override
+    public String getClassSimpleName() {
+        return OffHeapBplusTreeBenchmark.class.getSimpleName();
+    }
+
+    @Setup
+    public void setup() throws BTreeException, IOException {
+        heapTree = new LongLongBplusTree();
+        offHeapTree = PagedLongLongBplusTree.offHeap();
+        mappedFile = Files.createTempFile(getClassSimpleName(), ".pages");
+        mappedTree = PagedLongLongBplusTree.open(mappedFile);
+        pooledFile = Files.createTempFile(getClassSimpleName(), ".pages");
+        Files.delete(pooledFile);
+        pooledTree = PagedLongLongBplusTree.open(pooledFile, PagedLongLongBplusTree.DEFAULT_PAGE_SIZE, 1024);
+
+        for (long i = 0; i < InitialSize; i++) {
+            heapTree.add(2 * i, i);
+            offHeapTree.add(2 * i, i);
+            mappedTree.add(2 * i, i);
+            pooledTree.add(2 * i, i);
+        }
+        nextKey = 2L * InitialSize;
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        offHeapTree.close();
+        mappedTree.close();
+        Files.delete(mappedFile);
+        pooledTree.close();
+        Files.delete(pooledFile);
+    }
+
+    @Benchmark
+    public void heapAddInIncrement() throws BTreeException {
+        long key = nextKey++;
+        heapTree.add(key, key);
+    }
+
+    @Benchmark
+    public void offHeapAddInIncrement() throws BTreeException {
+        long key = nextKey++;
+        offHeapTree.add(key, key);
+    }
+
+    @Benchmark
+    public void heapFindRandom(Blackhole blackhole) {
+        blackhole.consume(heapTree.find(ThreadLocalRandom.current().nextInt(2 * InitialSize), -1));
+    }
+
+    @Benchmark
+    public void offHeapFindRandom(Blackhole blackhole) {
+        blackhole.consume(offHeapTree.find(ThreadLocalRandom.current().nextInt(2 * InitialSize), -1));
+    }
+
+    @Benchmark
+    public void mappedFindRandom(Blackhole blackhole) {
+        blackhole.consume(mappedTree.find(ThreadLocalRandom.current().nextInt(2 * InitialSize), -1));
+    }
+
+    /**
+     * The pool holds 1024 of the roughly 6000 pages of the tree
+     */
+    @Benchmark
+    public void pooledFindRandom(Blackhole blackhole) {
+        blackhole.consume(pooledTree.find(ThreadLocalRandom.current().nextInt(2 * InitialSize), -1));
+    }
+}
@@ -0,0 +1,81 @@
+package benchmark;
+
+import bplustree.BTreeException;
+import bplustree.ConcurrentBplusTree;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Readers running finds with latch coupling or optimistic version checks, while one background writer keeps
+ * adding and removing keys
+ */
+@State(Scope.Benchmark)
+public class OptimisticReadBenchmark extends AbstractBenchmark {
+    private static final int InitialSize = 1000 * 1000;
+    private ConcurrentBplusTree<Integer, Integer> bplusTree;
+    private Thread writer;
+    private volatile boolean writing;
+
+    @Param({"false", "true"})
+    private boolean optimisticReads;
+
+    @Override
+    public Options setupBenchmarkAndBuildAdditionalOption() {
+        return new OptionsBuilder()
+                .parent(defaultOptions())
+                .mode(Mode.Throughput)
+                .timeUnit(TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    @Override
+    public String getClassSimpleName() {
+        return OptimisticReadBenchmark.class.getSimpleName();
+    }
+
+    @Override
+    public int[] threadCounts() {
+        int cores = Runtime.getRuntime().availableProcessors();
+        return cores > 5 ? new int[]{1, 2, 4, cores - 1} : new int[]{1, 2, 4};
+    }
+
+    @Setup
+    public void setup() throws BTreeException {
+        bplusTree = new ConcurrentBplusTree<>(optimisticReads);
+        for (int i = 0; i < InitialSize; i += 2)
+            bplusTree.add(i, i);
+    }
+
+    @Setup(Level.Iteration)
+    public void startWriter() {
+        writing = true;
+        writer = new Thread(() -> {
+            try {
+                while (writing) {
+                    int key = 2 * ThreadLocalRandom.current().nextInt(InitialSize / 2) + 1;
+                    bplusTree.add(key, key);
+                    bplusTree.remove(key);
+                }
+            } catch (BTreeException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        writer.start();
+    }
+
+    @TearDown(Level.Iteration)
+    public void stopWriter() throws InterruptedException {
+        writing = false;
+        writer.join();
+    }
+
+    @Benchmark
+    public void find(Blackhole blackhole) throws BTreeException {
+        blackhole.consume(bplusTree.find(ThreadLocalRandom.current().nextInt(InitialSize)));
+    }
+}
@@ -0,0 +1,43 @@
+package benchmark;
+
+import bplustree.BTreeException;
+import bplustree.BplusTree;
+import bplustree.BplusTreeRange;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.options.Options;
+
+import java.util.Map;
+
+@State(Scope.Thread)
+public class ParallelRangeScanBenchmark extends AbstractBenchmark {
+    private static final int InitialSize = 4 * 1000 * 1000;
+    private BplusTreeRange<Integer, Integer> range;
+
+    @Override
+    public Options setupBenchmarkAndBuildAdditionalOption() {
+        return defaultOptions();
+    }
+
+    @Override
+    public String getClassSimpleName() {
+        return ParallelRangeScanBenchmark.class.getSimpleName();
+    }
+
+    @Setup
+    public void setup() throws BTreeException {
+        BplusTree<Integer, Integer> bplusTree = new BplusTree<>();
+        for (int i = 0; i < InitialSize; i++)
+            bplusTree.add(i, i);
+        range = bplusTree.subMap(InitialSize / 8, InitialSize - InitialSize / 8);
+    }
+
+    @Benchmark
+    public long sumSequential() {
+        return range.stream().mapToLong(Map.Entry::getValue).sum();
+    }
+
+    @Benchmark
+    public long sumParallel() {
+        return range.parallelStream().mapToLong(Map.Entry::getValue).sum();
+    }
+}
@@ -66,4 +66,27 @@ public class PeekAndPopNodeInBtreeBenchmark extends AbstractBenchmark {
         blackhole.consume(bplusTree.peekKey());
         blackhole.consume(bplusTree.pop());
     }
+
+    @Benchmark
+    public void peekAndPopLastNodeInBtree(Blackhole blackhole) throws BTreeException {
+        blackhole.consume(bplusTree.peekLastKey());
+        blackhole.consume(bplusTree.popLast());
+    }
+
+    @Benchmark
+    public void popThousandLastNodesInBtree(Blackhole blackhole) throws BTreeException {
+        blackhole.consume(bplusTree.popLastN(1000));
+    }
+
+    @Benchmark
+    public void popThousandNodesInBtree(Blackhole blackhole) throws BTreeException {
+        blackhole.consume(bplusTree.popN(1000));
+    }
+
+    @Benchmark
+    public void drainThousandDueNodesInBtree(Blackhole blackhole) throws BTreeException {
+        ArrayList<Integer> due = new ArrayList<>(1000);
+        bplusTree.drainTo(due, bplusTree.peekKey() + 999);
+        blackhole.consume(due);
+    }
 }
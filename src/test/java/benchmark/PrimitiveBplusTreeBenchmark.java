@@ -0,0 +1,81 @@
+package benchmark;
+
+import bplustree.BTreeException;
+import bplustree.BplusTree;
+import bplustree.LongLongBplusTree;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.options.Options;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+@State(Scope.Thread)
+public class PrimitiveBplusTreeBenchmark extends AbstractBenchmark {
+    private static final int InitialSize = 1000 * 1000;
+    private BplusTree<Long, Long> boxedTree;
+    private LongLongBplusTree primitiveTree;
+    private long nextKey;
+
+    @Override
+    public Options setupBenchmarkAndBuildAdditionalOption() {
+        return defaultOptions();
+    }
+
+    @Override
+    public String getClassSimpleName() {
+        return PrimitiveBplusTreeBenchmark.class.getSimpleName();
+    }
+
+    @Setup
+    public void setup() throws BTreeException {
+        boxedTree = new BplusTree<>();
+        primitiveTree = new LongLongBplusTree();
+
+        for (long i = 0; i < InitialSize; i++) {
+            boxedTree.add(2 * i, i);
+            primitiveTree.add(2 * i, i);
+        }
+        nextKey = 2L * InitialSize;
+    }
+
+    @Benchmark
+    public void boxedAddInIncrement() throws BTreeException {
+        long key = nextKey++;
+        boxedTree.add(key, key);
+    }
+
+    @Benchmark
+    public void primitiveAddInIncrement() throws BTreeException {
+        long key = nextKey++;
+        primitiveTree.add(key, key);
+    }
+
+    @Benchmark
+    public void boxedFindRandom(Blackhole blackhole) throws BTreeException {
+        long key = ThreadLocalRandom.current().nextInt(2 * InitialSize);
+        blackhole.consume(boxedTree.find(key));
+    }
+
+    @Benchmark
+    public void primitiveFindRandom(Blackhole blackhole) {
+        long key = ThreadLocalRandom.current().nextInt(2 * InitialSize);
+        blackhole.consume(primitiveTree.find(key, -1));
+    }
+
+    @Benchmark
+    public void boxedPopAndAppend(Blackhole blackhole) throws BTreeException {
+        long key = nextKey++;
+        blackhole.consume(boxedTree.pop());
+        boxedTree.add(key, key);
+    }
+
+    @Benchmark
+    public void primitivePopAndAppend(Blackhole blackhole) throws BTreeException {
+        long key = nextKey++;
+        blackhole.consume(primitiveTree.pop());
+        primitiveTree.add(key, key);
+    }
+}
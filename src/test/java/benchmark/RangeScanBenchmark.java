@@ -0,0 +1,61 @@
+package benchmark;
+
+import bplustree.BTreeException;
+import bplustree.BplusTree;
+import bplustree.BplusTreeCursor;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.options.Options;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+@State(Scope.Thread)
+public class RangeScanBenchmark extends AbstractBenchmark {
+    private static final int InitialSize = 1000 * 1000;
+    private BplusTree<Integer, Integer> bplusTree;
+
+    @Param({"100", "10000"})
+    private int rangeLength;
+
+    @Override
+    public Options setupBenchmarkAndBuildAdditionalOption() {
+        return defaultOptions();
+    }
+
+    @Override
+    public String getClassSimpleName() {
+        return RangeScanBenchmark.class.getSimpleName();
+    }
+
+    @Setup
+    public void setup() throws BTreeException {
+        bplusTree = new BplusTree<>();
+        for (int i = 0; i < InitialSize; i++)
+            bplusTree.add(i, i);
+    }
+
+    private int nextRangeStart() {
+        return ThreadLocalRandom.current().nextInt(InitialSize - rangeLength);
+    }
+
+    @Benchmark
+    public void scanWithCursor(Blackhole blackhole) {
+        int from = nextRangeStart();
+        BplusTreeCursor<Integer, Integer> cursor = bplusTree.cursor(from, from + rangeLength);
+
+        if (cursor.isValid()) {
+            blackhole.consume(cursor.getValue());
+            while (cursor.hasNext()) {
+                cursor.goToNext();
+                blackhole.consume(cursor.getValue());
+            }
+        }
+    }
+
+    @Benchmark
+    public void scanWithFind(Blackhole blackhole) throws BTreeException {
+        int from = nextRangeStart();
+        for (int key = from; key < from + rangeLength; key++)
+            blackhole.consume(bplusTree.find(key));
+    }
+}
@@ -0,0 +1,52 @@
+package benchmark;
+
+import bplustree.BTreeException;
+import bplustree.BplusTree;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.options.Options;
+
+/**
+ * Loads a tree with ascending and with descending keys, the two directions should cost about the same
+ * now that both ends of the tree have a fast path
+ */
+@State(Scope.Thread)
+public class SequentialInsertBenchmark extends AbstractBenchmark {
+    private static final int LoadSize = 100 * 1000;
+    private BplusTree<Integer, Integer> bplusTree;
+
+    @Param({"ascending", "descending"})
+    private String direction;
+
+    @Override
+    public Options setupBenchmarkAndBuildAdditionalOption() {
+        return optionsWithCounters();
+    }
+
+    @Override
+    public String getClassSimpleName() {
+        return SequentialInsertBenchmark.class.getSimpleName();
+    }
+
+    /**
+     * Leaf fill factor of the tree the last load of each iteration built
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class LoadCounters extends TreeCounters {
+        public double leafFillFactor() {
+            return gauge(tree.getLeafFillFactor());
+        }
+    }
+
+    @Benchmark
+    public BplusTree<Integer, Integer> load(LoadCounters counters) throws BTreeException {
+        bplusTree = new BplusTree<>();
+        boolean ascending = direction.equals("ascending");
+        for (int i = 0; i < LoadSize; i++) {
+            Integer key = ascending ? i : -i;
+            bplusTree.add(key, key);
+        }
+        counters.track(bplusTree);
+        return bplusTree;
+    }
+}
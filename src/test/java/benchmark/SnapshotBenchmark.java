@@ -0,0 +1,62 @@
+package benchmark;
+
+import bplustree.BTreeException;
+import bplustree.BplusTree;
+import bplustree.Codec;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.options.Options;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+@State(Scope.Thread)
+public class SnapshotBenchmark extends AbstractBenchmark {
+    private static final int InitialSize = 1000 * 1000;
+    private BplusTree<Integer, String> bplusTree;
+    private byte[] snapshot;
+
+    @Override
+    public Options setupBenchmarkAndBuildAdditionalOption() {
+        return defaultOptions();
+    }
+
+    @Override
+    public String getClassSimpleName() {
+        return SnapshotBenchmark.class.getSimpleName();
+    }
+
+    @Setup
+    public void setup() throws BTreeException, IOException {
+        bplusTree = new BplusTree<>();
+        for (int i = 0; i < InitialSize; i++)
+            bplusTree.add(i, Integer.toString(i));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        bplusTree.snapshot(out, Codec.INTEGER, Codec.STRING);
+        snapshot = out.toByteArray();
+    }
+
+    @Benchmark
+    public void writeSnapshot(Blackhole blackhole) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(snapshot.length);
+        bplusTree.snapshot(out, Codec.INTEGER, Codec.STRING);
+        blackhole.consume(out);
+    }
+
+    @Benchmark
+    public void restoreSnapshot(Blackhole blackhole) throws BTreeException, IOException {
+        BplusTree<Integer, String> restored = new BplusTree<>();
+        restored.restore(new ByteArrayInputStream(snapshot), Codec.INTEGER, Codec.STRING, 0.7);
+        blackhole.consume(restored);
+    }
+
+    @Benchmark
+    public void rebuildWithAdd(Blackhole blackhole) throws BTreeException {
+        BplusTree<Integer, String> rebuilt = new BplusTree<>();
+        for (int i = 0; i < InitialSize; i++)
+            rebuilt.add(i, Integer.toString(i));
+        blackhole.consume(rebuilt);
+    }
+}
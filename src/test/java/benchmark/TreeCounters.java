@@ -0,0 +1,36 @@
+package benchmark;
+
+import bplustree.BplusTree;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.BenchmarkParams;
+
+/**
+ * Base of the {@link org.openjdk.jmh.annotations.AuxCounters} states reporting statistics of a benchmarked tree
+ * next to its timings, see {@link AbstractBenchmark#optionsWithCounters()}.
+ * JMH sums counters over the measurement iterations, so a gauge like the leaf fill factor is reported
+ * as its share of that sum, which adds up to its average over them.
+ */
+@State(Scope.Thread)
+public abstract class TreeCounters {
+    protected BplusTree<?, ?> tree;
+    private int iterations = 1;
+
+    @Setup(Level.Trial)
+    public void countIterations(BenchmarkParams params) {
+        iterations = params.getMeasurement().getCount();
+    }
+
+    /**
+     * Called from every benchmark method, JMH rejects injecting counters into the setup of the benchmark itself
+     */
+    void track(BplusTree<?, ?> tree) {
+        this.tree = tree;
+    }
+
+    protected double gauge(double value) {
+        return tree == null ? 0 : value / iterations;
+    }
+}
@@ -0,0 +1,78 @@
+package benchmark;
+
+import bplustree.BTreeException;
+import bplustree.BplusTree;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.options.Options;
+
+import java.util.Random;
+
+/**
+ * Counter increments on random keys, half of them present, done with find, remove and add
+ * against the single descent of put, merge and compute
+ */
+@State(Scope.Thread)
+public class UpsertBenchmark extends AbstractBenchmark {
+    private static final int InitialSize = 1000 * 1000;
+    private static final int KeyCount = 2 * 1024 * 1024;
+    private BplusTree<Integer, Integer> bplusTree;
+    private int[] keys;
+    private int next;
+
+    @Override
+    public Options setupBenchmarkAndBuildAdditionalOption() {
+        return defaultOptions();
+    }
+
+    @Override
+    public String getClassSimpleName() {
+        return UpsertBenchmark.class.getSimpleName();
+    }
+
+    @Setup(Level.Iteration)
+    public void setup() throws BTreeException {
+        bplusTree = new BplusTree<>();
+        for (int i = 0; i < 2 * InitialSize; i += 2)
+            bplusTree.add(i, 0);
+
+        Random random = new Random(0);
+        keys = new int[KeyCount];
+        for (int i = 0; i < KeyCount; i++)
+            keys[i] = random.nextInt(2 * InitialSize);
+        next = 0;
+    }
+
+    private Integer nextKey() {
+        return keys[next++ & (KeyCount - 1)];
+    }
+
+    @Benchmark
+    public Integer findRemoveAdd() throws BTreeException {
+        Integer key = nextKey();
+        Integer count = bplusTree.find(key);
+        if (count != null)
+            bplusTree.remove(key);
+        count = count == null ? 1 : count + 1;
+        bplusTree.add(key, count);
+        return count;
+    }
+
+    @Benchmark
+    public Integer put() throws BTreeException {
+        Integer key = nextKey();
+        Integer count = bplusTree.find(key);
+        count = count == null ? 1 : count + 1;
+        bplusTree.put(key, count);
+        return count;
+    }
+
+    @Benchmark
+    public Integer merge() throws BTreeException {
+        return bplusTree.merge(nextKey(), 1, Integer::sum);
+    }
+
+    @Benchmark
+    public Integer compute() throws BTreeException {
+        return bplusTree.compute(nextKey(), (key, count) -> count == null ? 1 : count + 1);
+    }
+}
@@ -0,0 +1,98 @@
+package bplustree;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.NoSuchElementException;
+
+class BplusTreeCursorTest {
+    private static final int MAXN = 30 * 1000;
+    private BplusTree<Integer, Integer> bplusTree;
+
+    @BeforeEach
+    void setUp() throws BTreeException {
+        bplusTree = new BplusTree<>(16, 8);
+        for (int i = 0; i < MAXN; i++)
+            bplusTree.add(2 * i, i);
+    }
+
+    private void assertForward(BplusTreeCursor<Integer, Integer> cursor, int firstKey, int lastKey) {
+        Assertions.assertTrue(cursor.isValid());
+        for (int key = firstKey; key < lastKey; key += 2) {
+            Assertions.assertEquals(Integer.valueOf(key), cursor.getKey());
+            Assertions.assertEquals(Integer.valueOf(key / 2), cursor.getValue());
+            Assertions.assertTrue(cursor.hasNext());
+            cursor.goToNext();
+        }
+        Assertions.assertEquals(Integer.valueOf(lastKey), cursor.getKey());
+        Assertions.assertFalse(cursor.hasNext());
+        Assertions.assertThrows(NoSuchElementException.class, cursor::goToNext);
+    }
+
+    @Test
+    void shouldScanWholeTree() {
+        assertForward(bplusTree.cursor(null, null), 0, 2 * (MAXN - 1));
+    }
+
+    @Test
+    void shouldRespectBounds() {
+        assertForward(bplusTree.cursor(100, 200), 100, 198);
+        assertForward(bplusTree.cursor(100, false, 200, true), 102, 200);
+        assertForward(bplusTree.cursor(99, true, 201, false), 100, 200);
+        assertForward(bplusTree.cursor(-5, 7), 0, 6);
+        assertForward(bplusTree.cursor(2 * MAXN - 10, null), 2 * MAXN - 10, 2 * (MAXN - 1));
+    }
+
+    @Test
+    void shouldScanBackward() {
+        BplusTreeCursor<Integer, Integer> cursor = bplusTree.cursor(1000, false, 3000, true);
+        while (cursor.hasNext())
+            cursor.goToNext();
+        Assertions.assertEquals(Integer.valueOf(3000), cursor.getKey());
+
+        for (int key = 3000; key > 1002; key -= 2) {
+            Assertions.assertEquals(Integer.valueOf(key), cursor.getKey());
+            Assertions.assertTrue(cursor.hasPrev());
+            cursor.goToPrev();
+        }
+        Assertions.assertEquals(Integer.valueOf(1002), cursor.getKey());
+        Assertions.assertFalse(cursor.hasPrev());
+        Assertions.assertThrows(NoSuchElementException.class, cursor::goToPrev);
+    }
+
+    @Test
+    void shouldBeInvalidOnEmptyRange() {
+        BplusTreeCursor<Integer, Integer> cursor = bplusTree.cursor(101, 102);
+        Assertions.assertFalse(cursor.isValid());
+        Assertions.assertFalse(cursor.hasNext());
+        Assertions.assertFalse(cursor.hasPrev());
+
+        cursor = bplusTree.cursor(2 * MAXN, null);
+        Assertions.assertFalse(cursor.isValid());
+        Assertions.assertThrows(NoSuchElementException.class, cursor::getKey);
+
+        Assertions.assertFalse(new BplusTree<Integer, Integer>().cursor(null, null).isValid());
+    }
+
+    @Test
+    void shouldFollowLeafChainAfterRemovals() throws BTreeException {
+        for (int i = 0; i < MAXN; i++)
+            if (i % 100 < 90)
+                bplusTree.remove(2 * i);
+        bplusTree.removeFrom(MAXN);
+
+        BplusTreeCursor<Integer, Integer> cursor = bplusTree.cursor(null, null);
+        int count = 0;
+        for (int i = 0; i < MAXN / 2; i++) {
+            if (i % 100 < 90)
+                continue;
+            Assertions.assertEquals(Integer.valueOf(2 * i), cursor.getKey());
+            ++count;
+            if (cursor.hasNext())
+                cursor.goToNext();
+        }
+        Assertions.assertFalse(cursor.hasNext());
+        Assertions.assertEquals(MAXN / 2 / 10, count);
+    }
+}
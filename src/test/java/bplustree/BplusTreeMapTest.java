@@ -0,0 +1,138 @@
+package bplustree;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.TreeMap;
+
+class BplusTreeMapTest {
+    private static final int MAXN = 30 * 1000;
+    private BplusTreeMap<Integer, Integer> map;
+    private TreeMap<Integer, Integer> expected;
+
+    @BeforeEach
+    void setUp() {
+        map = new BplusTreeMap<>(4, 4);
+        expected = new TreeMap<>();
+        Random random = new Random(25);
+        for (int i = 0; i < MAXN / 10; i++) {
+            int key = 2 * random.nextInt(MAXN / 5);
+            Assertions.assertEquals(expected.put(key, i), map.put(key, i));
+        }
+        for (int i = 0; i < MAXN / 20; i++) {
+            int key = 2 * random.nextInt(MAXN / 5);
+            Assertions.assertEquals(expected.remove(key), map.remove(key));
+        }
+    }
+
+    @Test
+    void shouldMatchTreeMap() {
+        Assertions.assertEquals(expected.size(), map.size());
+        Assertions.assertEquals(expected, map);
+        Assertions.assertEquals(map, expected);
+        Assertions.assertEquals(expected.hashCode(), map.hashCode());
+        Assertions.assertEquals(new ArrayList<>(expected.keySet()), new ArrayList<>(map.keySet()));
+        Assertions.assertEquals(new ArrayList<>(expected.values()), new ArrayList<>(map.values()));
+        Assertions.assertEquals(new ArrayList<>(expected.descendingKeySet()), new ArrayList<>(map.descendingKeySet()));
+        Assertions.assertEquals(expected.firstEntry(), map.firstEntry());
+        Assertions.assertEquals(expected.lastKey(), map.lastKey());
+        Assertions.assertNull(map.comparator());
+
+        Assertions.assertThrows(NullPointerException.class, () -> map.put(null, 0));
+        Assertions.assertThrows(NullPointerException.class, () -> map.put(0, null));
+        Assertions.assertThrows(NullPointerException.class, () -> map.get(null));
+        Assertions.assertEquals(Integer.valueOf(7), map.merge(-1, 7, Integer::sum));
+        Assertions.assertEquals(Integer.valueOf(14), map.merge(-1, 7, Integer::sum));
+        Assertions.assertEquals(expected.size() + 1, map.size());
+    }
+
+    @Test
+    void shouldNavigateViews() {
+        assertSameView(expected, map);
+        assertSameView(expected.descendingMap(), map.descendingMap());
+        assertSameView(expected.subMap(100, true, MAXN / 4, false), map.subMap(100, true, MAXN / 4, false));
+        assertSameView(expected.headMap(MAXN / 3, true).descendingMap(), map.headMap(MAXN / 3, true).descendingMap());
+        assertSameView(expected.descendingMap().subMap(MAXN / 4, false, 100, true), map.descendingMap().subMap(MAXN / 4, false, 100, true));
+        assertSameView(expected.descendingMap().headMap(MAXN / 2, false), map.descendingMap().headMap(MAXN / 2, false));
+        assertSameView(expected.tailMap(MAXN / 3, false).headMap(MAXN / 3 + 50, true), map.tailMap(MAXN / 3, false).headMap(MAXN / 3 + 50, true));
+        assertSameView(expected.subMap(101, true, 101, false), map.subMap(101, true, 101, false));
+
+        NavigableMap<Integer, Integer> view = map.subMap(100, true, 200, true);
+        Assertions.assertThrows(IllegalArgumentException.class, () -> view.put(201, 0));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> view.headMap(300, true));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> map.subMap(200, 100));
+        Assertions.assertThrows(NoSuchElementException.class, () -> map.subMap(101, 101).firstKey());
+        Assertions.assertNull(view.get(300));
+    }
+
+    @Test
+    void shouldModifyThroughViews() {
+        Iterator<Map.Entry<Integer, Integer>> entries = map.entrySet().iterator();
+        Iterator<Map.Entry<Integer, Integer>> expectedEntries = expected.entrySet().iterator();
+        for (int i = 0; entries.hasNext(); i++) {
+            Map.Entry<Integer, Integer> entry = entries.next();
+            Assertions.assertEquals(expectedEntries.next(), entry);
+            if (i % 3 == 0) {
+                entries.remove();
+                expectedEntries.remove();
+            } else if (i % 3 == 1) {
+                entry.setValue(-i);
+                expected.put(entry.getKey(), -i);
+            }
+        }
+        Assertions.assertThrows(IllegalStateException.class, map.entrySet().iterator()::remove);
+        Assertions.assertEquals(expected, map);
+
+        Iterator<Integer> keys = map.descendingKeySet().iterator();
+        Iterator<Integer> expectedKeys = expected.descendingKeySet().iterator();
+        for (int i = 0; i < 100; i++) {
+            Assertions.assertEquals(expectedKeys.next(), keys.next());
+            keys.remove();
+            expectedKeys.remove();
+        }
+        Assertions.assertEquals(expected, map);
+
+        map.subMap(100, MAXN / 4).clear();
+        expected.subMap(100, MAXN / 4).clear();
+        Assertions.assertEquals(expected, map);
+        Assertions.assertEquals(expected.size(), map.size());
+
+        while (!expected.isEmpty()) {
+            Assertions.assertEquals(expected.pollFirstEntry(), map.pollFirstEntry());
+            Assertions.assertEquals(expected.pollLastEntry(), map.pollLastEntry());
+            Assertions.assertEquals(expected.headMap(MAXN / 2, false).pollLastEntry(), map.headMap(MAXN / 2, false).pollLastEntry());
+            Assertions.assertEquals(expected.navigableKeySet().pollFirst(), map.navigableKeySet().pollFirst());
+        }
+        Assertions.assertTrue(map.isEmpty());
+        Assertions.assertNull(map.pollFirstEntry());
+
+        map.put(1, 1);
+        map.clear();
+        Assertions.assertTrue(map.isEmpty());
+        Assertions.assertEquals(0, map.size());
+    }
+
+    private static void assertSameView(NavigableMap<Integer, Integer> expected, NavigableMap<Integer, Integer> actual) {
+        Assertions.assertEquals(expected.size(), actual.size());
+        Assertions.assertEquals(expected.isEmpty(), actual.isEmpty());
+        Assertions.assertEquals(new ArrayList<>(expected.entrySet()), new ArrayList<>(actual.entrySet()));
+        Assertions.assertEquals(new ArrayList<>(expected.descendingKeySet()), new ArrayList<>(actual.descendingKeySet()));
+        Assertions.assertEquals(expected.firstEntry(), actual.firstEntry());
+        Assertions.assertEquals(expected.lastEntry(), actual.lastEntry());
+
+        for (int key = -3; key <= 2 * MAXN / 5 + 3; key += 7) {
+            Assertions.assertEquals(expected.get(key), actual.get(key));
+            Assertions.assertEquals(expected.floorEntry(key), actual.floorEntry(key));
+            Assertions.assertEquals(expected.ceilingEntry(key), actual.ceilingEntry(key));
+            Assertions.assertEquals(expected.lowerKey(key), actual.lowerKey(key));
+            Assertions.assertEquals(expected.higherKey(key), actual.higherKey(key));
+        }
+    }
+}
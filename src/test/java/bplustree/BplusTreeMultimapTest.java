@@ -0,0 +1,96 @@
+package bplustree;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+
+class BplusTreeMultimapTest {
+    private static final int MAXN = 30 * 1000;
+    private static final int KEYS = MAXN / 10;
+    private BplusTreeMultimap<Integer, Integer> multimap;
+
+    @BeforeEach
+    void setUp() throws BTreeException {
+        multimap = new BplusTreeMultimap<>(8, 8);
+        for (int i = 0; i < MAXN; i++)
+            multimap.addDuplicate(i % KEYS, i);
+    }
+
+    @Test
+    void shouldFindAll() throws BTreeException {
+        Assertions.assertEquals(MAXN, multimap.size());
+        for (int key = 0; key < KEYS; key++) {
+            List<Integer> values = multimap.findAll(key);
+            Assertions.assertEquals(MAXN / KEYS, values.size());
+            for (int i = 0; i < values.size(); i++)
+                Assertions.assertEquals(Integer.valueOf(key + i * KEYS), values.get(i));
+        }
+        Assertions.assertTrue(multimap.findAll(-1).isEmpty());
+        Assertions.assertFalse(multimap.contains(KEYS));
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> multimap.findAll(0).add(0));
+        Assertions.assertThrows(BTreeException.class, () -> multimap.addDuplicate(null, 0));
+        Assertions.assertThrows(BTreeException.class, () -> multimap.addDuplicate(0, null));
+    }
+
+    @Test
+    void shouldRemoveOne() throws BTreeException {
+        Assertions.assertFalse(multimap.removeOne(0, 1));
+        Assertions.assertFalse(multimap.removeOne(-1, 0));
+        Assertions.assertTrue(multimap.removeOne(0, KEYS));
+        Assertions.assertEquals(MAXN - 1, multimap.size());
+        Assertions.assertFalse(multimap.findAll(0).contains(KEYS));
+
+        Assertions.assertEquals(Arrays.asList(1, KEYS + 1), multimap.removeAll(1).subList(0, 2));
+        Assertions.assertFalse(multimap.contains(1));
+        Assertions.assertEquals(Collections.emptyList(), multimap.removeAll(1));
+
+        for (int i = 0; i < MAXN; i++)
+            multimap.removeOne(i % KEYS, i);
+        Assertions.assertTrue(multimap.isEmpty());
+        Assertions.assertEquals(0, multimap.size());
+    }
+
+    @Test
+    void shouldReturnCopiesFromFindAll() throws BTreeException {
+        List<Integer> values = multimap.findAll(0);
+        List<Integer> expected = new ArrayList<>(values);
+
+        for (Integer value : values) {
+            multimap.addDuplicate(0, -value - 1);
+            multimap.removeOne(0, value);
+        }
+        Assertions.assertEquals(expected, values);
+        Assertions.assertFalse(multimap.findAll(0).contains(0));
+        Assertions.assertEquals(MAXN / KEYS, multimap.findAll(0).size());
+    }
+
+    @Test
+    void shouldMatchListsPerKey() throws BTreeException {
+        multimap = new BplusTreeMultimap<>(4, 4);
+        TreeMap<Integer, List<Integer>> expected = new TreeMap<>();
+        Random random = new Random(23);
+        for (int i = 0; i < MAXN; i++) {
+            int key = random.nextInt(100), value = random.nextInt(5);
+            if (random.nextInt(3) > 0) {
+                multimap.addDuplicate(key, value);
+                expected.computeIfAbsent(key, k -> new ArrayList<>()).add(value);
+            } else {
+                List<Integer> run = expected.get(key);
+                boolean removed = run != null && run.remove(Integer.valueOf(value));
+                if (run != null && run.isEmpty())
+                    expected.remove(key);
+                Assertions.assertEquals(removed, multimap.removeOne(key, value));
+            }
+        }
+
+        for (int key = 0; key < 100; key++)
+            Assertions.assertEquals(expected.getOrDefault(key, Collections.emptyList()), multimap.findAll(key));
+    }
+}
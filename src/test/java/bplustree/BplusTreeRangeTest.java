@@ -0,0 +1,96 @@
+package bplustree;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+
+class BplusTreeRangeTest {
+    private static final int MAXN = 30 * 1000;
+    private BplusTree<Integer, Integer> bplusTree;
+
+    @BeforeEach
+    void setUp() throws BTreeException {
+        bplusTree = new BplusTree<>(16, 8);
+        for (int i = 0; i < MAXN; i++)
+            bplusTree.add(2 * i, i);
+    }
+
+    private static List<Integer> keysOf(Iterable<Map.Entry<Integer, Integer>> entries) {
+        List<Integer> keys = new ArrayList<>();
+        for (Map.Entry<Integer, Integer> entry : entries)
+            keys.add(entry.getKey());
+        return keys;
+    }
+
+    private static List<Integer> expectedKeys(int firstKey, int lastKey) {
+        List<Integer> keys = new ArrayList<>();
+        for (int key = firstKey; key <= lastKey; key += 2)
+            keys.add(key);
+        return keys;
+    }
+
+    private static void splitAll(Spliterator<Map.Entry<Integer, Integer>> spliterator, List<Integer> keys) {
+        Spliterator<Map.Entry<Integer, Integer>> prefix = spliterator.trySplit();
+        if (prefix != null)
+            splitAll(prefix, keys);
+        if (prefix != null && spliterator.estimateSize() > 0)
+            splitAll(spliterator, keys);
+        else
+            spliterator.forEachRemaining(entry -> keys.add(entry.getKey()));
+    }
+
+    @Test
+    void shouldIterateRange() {
+        Assertions.assertEquals(expectedKeys(100, 198), keysOf(bplusTree.subMap(100, 200)));
+        Assertions.assertEquals(expectedKeys(102, 200), keysOf(bplusTree.subMap(100, false, 200, true)));
+        Assertions.assertEquals(expectedKeys(0, 20), keysOf(bplusTree.headMap(20, true)));
+        Assertions.assertEquals(expectedKeys(2 * MAXN - 10, 2 * (MAXN - 1)), keysOf(bplusTree.tailMap(2 * MAXN - 11, true)));
+        Assertions.assertTrue(bplusTree.subMap(101, 101).isEmpty());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> bplusTree.subMap(10, 5));
+    }
+
+    @Test
+    void shouldNarrowNestedViews() {
+        BplusTreeRange<Integer, Integer> range = bplusTree.subMap(100, 1000).tailMap(50, true).headMap(300, true);
+        Assertions.assertEquals(expectedKeys(100, 300), keysOf(range));
+        Assertions.assertEquals(expectedKeys(102, 298), keysOf(range.subMap(100, false, 300, false)));
+    }
+
+    @Test
+    void shouldStreamSequentiallyAndInParallel() {
+        BplusTreeRange<Integer, Integer> range = bplusTree.subMap(1001, 50001);
+        long expected = 0;
+        for (int key = 1002; key < 50001; key += 2)
+            expected += key / 2;
+
+        Assertions.assertEquals(expected, range.stream().mapToLong(Map.Entry::getValue).sum());
+        Assertions.assertEquals(expected, range.parallelStream().mapToLong(Map.Entry::getValue).sum());
+        Assertions.assertEquals(expectedKeys(1002, 50000),
+                range.parallelStream().map(Map.Entry::getKey).collect(Collectors.toList()));
+    }
+
+    @Test
+    void shouldSplitIntoOrderedDisjointParts() {
+        List<Integer> keys = new ArrayList<>();
+        splitAll(bplusTree.subMap(777, true, 44444, true).spliterator(), keys);
+        Assertions.assertEquals(expectedKeys(778, 44444), keys);
+
+        keys.clear();
+        splitAll(bplusTree.subMap(null, null).spliterator(), keys);
+        Assertions.assertEquals(expectedKeys(0, 2 * (MAXN - 1)), keys);
+    }
+
+    @Test
+    void shouldHandleEmptyTree() {
+        BplusTree<Integer, Integer> empty = new BplusTree<>();
+        Assertions.assertTrue(empty.subMap(null, null).isEmpty());
+        Assertions.assertEquals(0, empty.subMap(null, null).parallelStream().count());
+        Assertions.assertNull(empty.subMap(null, null).spliterator().trySplit());
+    }
+}
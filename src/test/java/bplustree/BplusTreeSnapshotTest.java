@@ -0,0 +1,167 @@
+package bplustree;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+class BplusTreeSnapshotTest {
+    private static final int MAXN = 30 * 1000;
+
+    private static byte[] snapshotOf(BplusTree<Integer, String> tree) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        tree.snapshot(out, Codec.INTEGER, Codec.STRING);
+        return out.toByteArray();
+    }
+
+    @Test
+    void shouldRestoreSnapshot() throws BTreeException, IOException {
+        BplusTree<Integer, String> tree = new BplusTree<>(16, 8);
+        for (int i = 0; i < MAXN; i++)
+            tree.add(3 * i, Integer.toString(i));
+        tree.removeFrom(3 * (MAXN - 100));
+
+        BplusTree<Integer, String> restored = new BplusTree<>(16, 8);
+        restored.restore(new ByteArrayInputStream(snapshotOf(tree)), Codec.INTEGER, Codec.STRING, 0.7);
+
+        for (int i = 0; i < 3 * MAXN; i++)
+            Assertions.assertEquals(i % 3 == 0 && i < 3 * (MAXN - 100) ? Integer.toString(i / 3) : null, restored.find(i));
+        restored.add(1, "x");
+        Assertions.assertEquals("x", restored.find(1));
+        Assertions.assertThrows(BTreeException.class,
+                () -> restored.restore(new ByteArrayInputStream(snapshotOf(tree)), Codec.INTEGER, Codec.STRING, 1));
+    }
+
+    @Test
+    void shouldRestoreEmptySnapshot() throws BTreeException, IOException {
+        BplusTree<Integer, String> restored = new BplusTree<>();
+        restored.restore(new ByteArrayInputStream(snapshotOf(new BplusTree<>())), Codec.INTEGER, Codec.STRING, 1);
+        Assertions.assertTrue(restored.isEmpty());
+    }
+
+    @Test
+    void shouldRejectCorruptSnapshot() throws BTreeException, IOException {
+        BplusTree<Integer, String> tree = new BplusTree<>();
+        for (int i = 0; i < MAXN; i++)
+            tree.add(i, Integer.toString(i));
+        byte[] snapshot = snapshotOf(tree);
+
+        BplusTree<Integer, String> restored = new BplusTree<>();
+        Assertions.assertThrows(IOException.class, () -> restored.restore(
+                new ByteArrayInputStream(Arrays.copyOf(snapshot, snapshot.length / 2)), Codec.INTEGER, Codec.STRING, 1));
+        Assertions.assertTrue(restored.isEmpty());
+
+        snapshot[0] ^= 1;
+        Assertions.assertThrows(IOException.class, () -> restored.restore(
+                new ByteArrayInputStream(snapshot), Codec.INTEGER, Codec.STRING, 1));
+    }
+
+    @Test
+    void shouldRejectCorruptBlockLength() throws BTreeException, IOException {
+        byte[] snapshot = snapshotOf(new BplusTree<>());
+        for (int length : new int[]{-1, Integer.MAX_VALUE}) {
+            ByteBuffer corrupt = ByteBuffer.allocate(snapshot.length + 8);
+            corrupt.put(snapshot, 0, 8).putInt(1).putInt(length).put(snapshot, 8, snapshot.length - 8);
+
+            BplusTree<Integer, String> restored = new BplusTree<>();
+            Assertions.assertThrows(IOException.class, () -> restored.restore(
+                    new ByteArrayInputStream(corrupt.array()), Codec.INTEGER, Codec.STRING, 1));
+            Assertions.assertTrue(restored.isEmpty());
+        }
+    }
+
+    @Test
+    void shouldRejectCorruptStringLength() throws BTreeException, IOException {
+        BplusTree<Integer, String> tree = new BplusTree<>();
+        for (int i = 0; i < 100; i++)
+            tree.add(i, Integer.toString(i));
+        byte[] snapshot = snapshotOf(tree);
+
+        // length of the first value, after the header, the block's entry count and length and the first key
+        for (int length : new int[]{-1, Integer.MAX_VALUE, snapshot.length}) {
+            ByteBuffer.wrap(snapshot).putInt(20, length);
+            BplusTree<Integer, String> restored = new BplusTree<>();
+            Assertions.assertThrows(IOException.class, () -> restored.restore(
+                    new ByteArrayInputStream(snapshot), Codec.INTEGER, Codec.STRING, 1));
+            Assertions.assertTrue(restored.isEmpty());
+        }
+
+        Codec<String> failing = new Codec<String>() {
+            @Override
+            public void write(String value, DataOutput out) throws IOException {
+                Codec.STRING.write(value, out);
+            }
+
+            @Override
+            public String read(DataInput in) {
+                throw new IllegalStateException("Unexpected bytes");
+            }
+        };
+        BplusTree<Integer, String> restored = new BplusTree<>();
+        Assertions.assertThrows(IOException.class, () -> restored.restore(
+                new ByteArrayInputStream(snapshotOf(tree)), Codec.INTEGER, failing, 1));
+    }
+
+    /**
+     * Slows down every read past the first window, so the read ahead is still going when the load fails,
+     * and records reads once the restore returned
+     */
+    private static class SlowStream extends ByteArrayInputStream {
+        private static final int FIRST_WINDOW_BYTES = 64 * 4096 * 8;
+        private volatile boolean restored = false, readAfterRestore = false;
+
+        SlowStream(byte[] bytes) {
+            super(bytes);
+        }
+
+        private void beforeRead() {
+            if (restored)
+                readAfterRestore = true;
+            if (pos > FIRST_WINDOW_BYTES) {
+                try {
+                    Thread.sleep(1);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        @Override
+        public synchronized int read() {
+            beforeRead();
+            return super.read();
+        }
+
+        @Override
+        public synchronized int read(byte[] b, int off, int len) {
+            beforeRead();
+            return super.read(b, off, len);
+        }
+    }
+
+    @Test
+    void shouldStopReadingAheadWhenRestoreFails() throws BTreeException, IOException, InterruptedException {
+        BplusTree<Integer, Integer> tree = new BplusTree<>();
+        for (int i = 0; i < 3 * 64 * 4096; i++)
+            tree.add(i, i);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        tree.snapshot(out, Codec.INTEGER, Codec.INTEGER);
+        byte[] snapshot = out.toByteArray();
+        // first key of the first block, after the header and the block's entry count and length
+        ByteBuffer.wrap(snapshot).putInt(16, Integer.MAX_VALUE);
+
+        SlowStream stream = new SlowStream(snapshot);
+        BplusTree<Integer, Integer> restored = new BplusTree<>();
+        Assertions.assertThrows(BTreeException.class, () -> restored.restore(stream, Codec.INTEGER, Codec.INTEGER, 1));
+        stream.restored = true;
+        Thread.sleep(200);
+        Assertions.assertFalse(stream.readAfterRestore);
+        Assertions.assertTrue(restored.isEmpty());
+    }
+}
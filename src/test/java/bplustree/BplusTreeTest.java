@@ -6,6 +6,11 @@ import utility.CircularFifoQueue;
 
 import java.lang.reflect.Field;
 import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
 
 import static java.lang.Math.min;
 
@@ -219,6 +224,215 @@ class BplusTreeTest {
         }
     }
 
+    @Test
+    void shouldIgnoreFingersOnEmptyLeaves() throws BTreeException {
+        BplusTreeLeafNode<Integer, Integer> empty = new BplusTreeLeafNode<>(null, null, null, bplusTree);
+        Assertions.assertFalse(empty.isInRange(0));
+
+        BplusTreeFingers<Integer, Integer> fingers = new BplusTreeFingers<>(2);
+        fingers.touch(empty);
+        Assertions.assertNull(fingers.lookup(0));
+        fingers.clearFrom(0);
+        Assertions.assertNull(fingers.recentLeaf());
+    }
+
+    @Test
+    void shouldDropFingersWhenPoppingEmptyTree() throws BTreeException {
+        bplusTree = new BplusTree<>();
+        bplusTree.find(1);
+        Assertions.assertTrue(bplusTree.popN(1).isEmpty());
+        Assertions.assertTrue(bplusTree.popLastN(1).isEmpty());
+        Assertions.assertEquals(0, bplusTree.drainTo(new ArrayList<>(), 1));
+
+        for (int i = 0; i < 1000; i++)
+            bplusTree.add(i, i);
+        bplusTree.removeFrom(500);
+        Assertions.assertEquals(Integer.valueOf(499), bplusTree.peekLastKey());
+        Assertions.assertEquals(Integer.valueOf(250), bplusTree.find(250));
+    }
+
+    @Test
+    void shouldPopNAndDrain() throws BTreeException {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> bplusTree.popN(-1));
+        Assertions.assertThrows(BTreeException.class, () -> bplusTree.drainTo(new ArrayList<>(), null));
+        Assertions.assertTrue(bplusTree.popN(0).isEmpty());
+
+        List<Integer> popped = bplusTree.popN(1000);
+        Assertions.assertEquals(1000, popped.size());
+        for (int i = 0; i < 1000; i++)
+            Assertions.assertEquals(Integer.valueOf(2 * i), popped.get(i));
+        Assertions.assertEquals(Integer.valueOf(1000), bplusTree.peekKey());
+        Assertions.assertEquals(Integer.valueOf(2000), bplusTree.peekValue());
+
+        List<Integer> drained = new ArrayList<>();
+        Assertions.assertEquals(0, bplusTree.drainTo(drained, 999));
+        Assertions.assertEquals(9001, bplusTree.drainTo(drained, 10000));
+        Assertions.assertEquals(Integer.valueOf(2000), drained.get(0));
+        Assertions.assertEquals(Integer.valueOf(20000), drained.get(9000));
+        Assertions.assertEquals(Integer.valueOf(10001), bplusTree.peekKey());
+        Assertions.assertNull(bplusTree.find(10000));
+        Assertions.assertEquals(Integer.valueOf(20002), bplusTree.find(10001));
+
+        bplusTree.add(5, 10);
+        Assertions.assertEquals(Integer.valueOf(5), bplusTree.peekKey());
+        Assertions.assertEquals(Integer.valueOf(10), bplusTree.popN(1).get(0));
+
+        Assertions.assertEquals(MAXN - 10001, bplusTree.drainTo(drained, MAXN));
+        Assertions.assertTrue(bplusTree.isEmpty());
+        Assertions.assertTrue(bplusTree.popN(10).isEmpty());
+
+        bplusTree.add(1, 1);
+        bplusTree.add(2, 2);
+        Assertions.assertEquals(Arrays.asList(1, 2), bplusTree.popN(5));
+        Assertions.assertTrue(bplusTree.isEmpty());
+    }
+
+    @Test
+    void shouldPopFromBothEnds() throws BTreeException {
+        Assertions.assertEquals(Integer.valueOf(MAXN - 1), bplusTree.peekLastKey());
+        Assertions.assertEquals(Integer.valueOf(2 * (MAXN - 1)), bplusTree.peekLastValue());
+        Assertions.assertEquals(Integer.valueOf(2 * (MAXN - 1)), bplusTree.popLast());
+        Assertions.assertEquals(Integer.valueOf(MAXN - 2), bplusTree.peekLastKey());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> bplusTree.popLastN(-1));
+
+        List<Integer> popped = bplusTree.popLastN(1000);
+        Assertions.assertEquals(1000, popped.size());
+        for (int i = 0; i < 1000; i++)
+            Assertions.assertEquals(Integer.valueOf(2 * (MAXN - 2 - i)), popped.get(i));
+        Assertions.assertNull(bplusTree.find(MAXN - 2));
+
+        int low = 0, high = MAXN - 1002, round = 0;
+        while (low <= high) {
+            Assertions.assertEquals(Integer.valueOf(low), bplusTree.peekKey());
+            Assertions.assertEquals(Integer.valueOf(high), bplusTree.peekLastKey());
+            Assertions.assertEquals(Integer.valueOf(2 * high--), bplusTree.popLast());
+            if (low <= high)
+                Assertions.assertEquals(Integer.valueOf(2 * low++), bplusTree.pop());
+            if (++round % 1000 == 0) {
+                bplusTree.add(++high, 2 * high);
+                Assertions.assertEquals(Integer.valueOf(high), bplusTree.peekLastKey());
+            }
+        }
+        Assertions.assertTrue(bplusTree.isEmpty());
+        Assertions.assertNull(bplusTree.peekLastKey());
+        Assertions.assertThrows(java.util.NoSuchElementException.class, () -> bplusTree.popLast());
+
+        for (int i = 0; i < 100; i++)
+            bplusTree.add(i, i);
+        Assertions.assertEquals(100, bplusTree.popLastN(1000).size());
+        Assertions.assertTrue(bplusTree.isEmpty());
+    }
+
+    @org.junit.jupiter.api.Test
+    void shouldReportMissingAndDuplicateKeys() throws BTreeException {
+        Assertions.assertFalse(bplusTree.tryAdd(0, 1));
+        Assertions.assertFalse(bplusTree.tryAdd(MAXN / 2, 1));
+        Assertions.assertEquals(Integer.valueOf(MAXN), bplusTree.find(MAXN / 2));
+        Assertions.assertTrue(bplusTree.tryAdd(MAXN, 1));
+        Assertions.assertTrue(bplusTree.tryAdd(-1, 1));
+        Assertions.assertThrows(BTreeException.class, () -> bplusTree.tryAdd(null, 0));
+
+        Assertions.assertEquals(Integer.valueOf(4), bplusTree.removeIfPresent(2));
+        Assertions.assertNull(bplusTree.removeIfPresent(2));
+        Assertions.assertFalse(bplusTree.contains(2));
+        Assertions.assertTrue(bplusTree.contains(3));
+        Assertions.assertEquals(Integer.valueOf(-7), bplusTree.find(2, -7));
+        Assertions.assertEquals(Integer.valueOf(6), bplusTree.find(3, -7));
+        Assertions.assertThrows(BTreeException.class, () -> bplusTree.removeIfPresent(null));
+
+        for (int i = -1; i <= MAXN; i++)
+            bplusTree.removeIfPresent(i);
+        Assertions.assertTrue(bplusTree.isEmpty());
+        Assertions.assertTrue(bplusTree.tryAdd(0, 0));
+        Assertions.assertEquals(Integer.valueOf(0), bplusTree.peekKey());
+    }
+
+    @org.junit.jupiter.api.Test
+    void shouldFindNearestEntries() throws BTreeException {
+        Assertions.assertEquals(Integer.valueOf(MAXN - 1), bplusTree.floorEntry(MAXN + 5).getKey());
+        Assertions.assertEquals(Integer.valueOf(2 * (MAXN - 1)), bplusTree.floorEntry(MAXN + 5).getValue());
+        Assertions.assertNull(bplusTree.floorEntry(-1));
+        Assertions.assertNull(bplusTree.lowerEntry(0));
+        Assertions.assertNull(bplusTree.ceilingEntry(MAXN));
+        Assertions.assertNull(bplusTree.higherEntry(MAXN - 1));
+        Assertions.assertEquals(Integer.valueOf(0), bplusTree.ceilingEntry(-5).getKey());
+        Assertions.assertThrows(BTreeException.class, () -> bplusTree.floorEntry(null));
+
+        bplusTree = new BplusTree<>(4, 4);
+        TreeMap<Integer, Integer> expected = new TreeMap<>();
+        Random random = new Random(24);
+        for (int i = 0; i < MAXN / 10; i++) {
+            int key = 3 * random.nextInt(MAXN / 5);
+            expected.put(key, i);
+            bplusTree.put(key, i);
+        }
+        for (int i = 0; i < MAXN / 20; i++) {
+            int key = 3 * random.nextInt(MAXN / 5);
+            expected.remove(key);
+            bplusTree.removeIfPresent(key);
+        }
+
+        for (int key = -2; key <= 3 * MAXN / 5 + 2; key++) {
+            Assertions.assertEquals(expected.floorEntry(key), bplusTree.floorEntry(key));
+            Assertions.assertEquals(expected.ceilingEntry(key), bplusTree.ceilingEntry(key));
+            Assertions.assertEquals(expected.lowerEntry(key), bplusTree.lowerEntry(key));
+            Assertions.assertEquals(expected.higherEntry(key), bplusTree.higherEntry(key));
+        }
+
+        bplusTree.removeFrom(Integer.MIN_VALUE);
+        Assertions.assertNull(bplusTree.floorEntry(0));
+        Assertions.assertNull(bplusTree.higherEntry(0));
+    }
+
+    @org.junit.jupiter.api.Test
+    void shouldUpsertInPlace() throws BTreeException {
+        Assertions.assertEquals(Integer.valueOf(10), bplusTree.put(5, -5));
+        Assertions.assertEquals(Integer.valueOf(-5), bplusTree.find(5));
+        Assertions.assertNull(bplusTree.put(MAXN, 0));
+        Assertions.assertEquals(Integer.valueOf(MAXN), bplusTree.peekLastKey());
+        Assertions.assertNull(bplusTree.putIfAbsent(-1, 1));
+        Assertions.assertEquals(Integer.valueOf(1), bplusTree.putIfAbsent(-1, 2));
+        Assertions.assertEquals(Integer.valueOf(-1), bplusTree.peekKey());
+
+        Assertions.assertEquals(Integer.valueOf(17), bplusTree.merge(7, 3, Integer::sum));
+        Assertions.assertEquals(Integer.valueOf(4), bplusTree.merge(MAXN + 1, 4, Integer::sum));
+        Assertions.assertNull(bplusTree.merge(8, 0, (a, b) -> null));
+        Assertions.assertNull(bplusTree.find(8));
+        Assertions.assertThrows(BTreeException.class, () -> bplusTree.merge(9, null, Integer::sum));
+        Assertions.assertThrows(BTreeException.class, () -> bplusTree.put(null, 0));
+
+        Assertions.assertEquals(Integer.valueOf(18), bplusTree.compute(9, (k, v) -> v));
+        Assertions.assertNull(bplusTree.compute(MAXN + 2, (k, v) -> v));
+        Assertions.assertNull(bplusTree.find(MAXN + 2));
+        Assertions.assertEquals(Integer.valueOf(0), bplusTree.compute(MAXN + 2, (k, v) -> v == null ? 0 : v + 1));
+        Assertions.assertEquals(Integer.valueOf(1), bplusTree.compute(MAXN + 2, (k, v) -> v == null ? 0 : v + 1));
+
+        bplusTree = new BplusTree<>(8, 8);
+        TreeMap<Integer, Integer> expected = new TreeMap<>();
+        Random random = new Random(21);
+        for (int i = 0; i < MAXN; i++) {
+            int key = random.nextInt(MAXN / 10), delta = random.nextInt(7) - 3;
+            switch (random.nextInt(4)) {
+                case 0:
+                    Assertions.assertEquals(expected.put(key, delta), bplusTree.put(key, delta));
+                    break;
+                case 1:
+                    Assertions.assertEquals(expected.putIfAbsent(key, delta), bplusTree.putIfAbsent(key, delta));
+                    break;
+                case 2:
+                    Assertions.assertEquals(expected.merge(key, delta, (a, b) -> a + b == 0 ? null : a + b),
+                            bplusTree.merge(key, delta, (a, b) -> a + b == 0 ? null : a + b));
+                    break;
+                default:
+                    Assertions.assertEquals(expected.compute(key, (k, v) -> v == null || v > 0 ? delta : null),
+                            bplusTree.compute(key, (k, v) -> v == null || v > 0 ? delta : null));
+            }
+        }
+        assertMinimumOccupancy(expected);
+        for (Integer key : expected.keySet())
+            Assertions.assertEquals(expected.get(key), bplusTree.find(key));
+    }
+
     @org.junit.jupiter.api.Test
     void shouldDisableCache() throws BTreeException {
         bplusTree = new BplusTree<>(true);
@@ -287,11 +501,13 @@ class BplusTreeTest {
     @org.junit.jupiter.api.Test
     void shouldCacheHitAdd() throws BTreeException {
         if (bplusTree.cacheEnabled()) {
-            bplusTree.add(-2, -2);
+            bplusTree.remove(MAXN / 2);
+            bplusTree.remove(MAXN / 2 + 1);
+            bplusTree.add(MAXN / 2, MAXN / 2);
             int initialHit = bplusTree.getHit();
             int initialMiss = bplusTree.getMiss();
 
-            bplusTree.add(-1, -1);
+            bplusTree.add(MAXN / 2 + 1, MAXN / 2 + 1);
             Assertions.assertEquals(1, bplusTree.getHit() - initialHit);
             Assertions.assertEquals(0, bplusTree.getMiss() - initialMiss);
         }
@@ -299,17 +515,59 @@ class BplusTreeTest {
 
     @org.junit.jupiter.api.Test
     void shouldCacheMissAdd() throws BTreeException {
+        bplusTree = new BplusTree<>(8, 8);
+        for (int i = 0; i < MAXN; i += 2)
+            bplusTree.add(i, i);
+
         if (bplusTree.cacheEnabled()) {
-            bplusTree.add(MAXN, MAXN);
+            bplusTree.add(MAXN / 2 + 1, MAXN);
             int initialHit = bplusTree.getHit();
             int initialMiss = bplusTree.getMiss();
 
-            bplusTree.add(-1, -1);
+            bplusTree.add(MAXN / 4 + 1, 1);
             Assertions.assertEquals(0, bplusTree.getHit() - initialHit);
             Assertions.assertEquals(1, bplusTree.getMiss() - initialMiss);
         }
     }
 
+    @Test
+    void shouldKeepFingerPerHotRegion() throws BTreeException {
+        int[] hits = new int[2];
+        for (int fingers = 1; fingers <= 4; fingers += 3) {
+            bplusTree = new BplusTree<>(8, 8, fingers);
+            for (int i = 0; i < MAXN; i++)
+                bplusTree.add(i, 2 * i);
+
+            int initialHit = bplusTree.getHit();
+            for (int i = 1000; i < 3000; i++) {
+                Assertions.assertEquals(Integer.valueOf(2 * i), bplusTree.find(i));
+                Assertions.assertEquals(Integer.valueOf(2 * (i + MAXN / 2)), bplusTree.find(i + MAXN / 2));
+                bplusTree.remove(i);
+                bplusTree.remove(i + MAXN / 2);
+            }
+            hits[fingers / 4] = bplusTree.getHit() - initialHit;
+
+            int fingerHits = 0, usedFingers = 0;
+            for (int finger = 0; finger < bplusTree.getFingerCount(); finger++) {
+                fingerHits += bplusTree.getHit(finger);
+                usedFingers += bplusTree.getHit(finger) > 0 ? 1 : 0;
+            }
+            Assertions.assertEquals(bplusTree.getHit(), fingerHits);
+            Assertions.assertTrue(usedFingers >= (fingers > 1 ? 2 : 0));
+        }
+        Assertions.assertTrue(hits[1] > 2 * hits[0], hits[1] + " hits with four fingers, " + hits[0] + " with one");
+
+        Assertions.assertEquals(Integer.valueOf(0), bplusTree.pop());
+        Assertions.assertEquals(Integer.valueOf(2), bplusTree.pop());
+
+        bplusTree.find(100);
+        bplusTree.removeFrom(MAXN / 2);
+        int initialHit = bplusTree.getHit();
+        Assertions.assertEquals(Integer.valueOf(202), bplusTree.find(101));
+        Assertions.assertEquals(initialHit + 1, bplusTree.getHit());
+        Assertions.assertNull(bplusTree.find(MAXN - 1));
+    }
+
     @org.junit.jupiter.api.Test
     void shouldCheckSampleDepth() {
         Assertions.assertEquals(3, bplusTree.getSampleDepth());
@@ -332,4 +590,327 @@ class BplusTreeTest {
         Assertions.assertEquals(0, iterator.getValue());
         Assertions.assertFalse(iterator.hasNext());
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldRejectTinyCapacity() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new BplusTree<Integer, Integer>(2, 16));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new BplusTree<Integer, Integer>(16, 2));
+    }
+
+    @Test
+    void shouldWorkWithCustomCapacity() throws BTreeException {
+        for (int[] capacity : new int[][]{{3, 3}, {4, 17}, {1024, 5}}) {
+            bplusTree = new BplusTree<>(capacity[0], capacity[1]);
+            Assertions.assertEquals(capacity[0], bplusTree.getLeafCapacity());
+            Assertions.assertEquals(capacity[1], bplusTree.getBranchCapacity());
+
+            for (int i = 0; i < MAXN; i++)
+                bplusTree.add((i * 7919) % MAXN, i);
+            for (int i = 0; i < MAXN; i += 2)
+                bplusTree.remove((i * 7919) % MAXN);
+            for (int i = 0; i < MAXN; i++)
+                Assertions.assertEquals(i % 2 == 0 ? null : Integer.valueOf(i), bplusTree.find((i * 7919) % MAXN));
+        }
+    }
+
+    @Test
+    void shouldBulkLoad() throws BTreeException {
+        for (double fillFactor : new double[]{0.01, 0.5, 0.7, 1}) {
+            Integer[] keys = new Integer[MAXN];
+            Integer[] values = new Integer[MAXN];
+            for (int i = 0; i < MAXN; i++) {
+                keys[i] = 2 * i;
+                values[i] = i;
+            }
+
+            for (int size = 1; size < 300; size++) {
+                bplusTree = new BplusTree<>(16, 8);
+                bplusTree.bulkLoad(Arrays.copyOf(keys, size), Arrays.copyOf(values, size), fillFactor);
+                assertNodesAtMinimumOccupancy(bplusTree.getRoot());
+                Assertions.assertEquals(Integer.valueOf(2 * (size - 1)), bplusTree.peekLastKey());
+            }
+
+            bplusTree = new BplusTree<>(16, 8);
+            bplusTree.bulkLoad(keys, values, fillFactor);
+            assertNodesAtMinimumOccupancy(bplusTree.getRoot());
+
+            for (int i = 0; i < MAXN; i++) {
+                Assertions.assertEquals(Integer.valueOf(i), bplusTree.find(2 * i));
+                Assertions.assertNull(bplusTree.find(2 * i + 1));
+            }
+
+            BplusTreeLeafNode.BplusTreeIterator iterator = bplusTree.peekLast();
+            for (int i = MAXN - 1; i > 0; i--) {
+                Assertions.assertEquals(2 * i, iterator.getKey());
+                iterator.goToNext();
+            }
+            Assertions.assertFalse(iterator.hasNext());
+
+            for (int i = 0; i < MAXN; i++)
+                bplusTree.add(2 * i + 1, -i);
+            for (int i = 0; i < MAXN; i++) {
+                Assertions.assertEquals(Integer.valueOf(2 * i), bplusTree.peekKey());
+                Assertions.assertEquals(Integer.valueOf(i), bplusTree.pop());
+                Assertions.assertEquals(Integer.valueOf(-i), bplusTree.pop());
+            }
+            Assertions.assertTrue(bplusTree.isEmpty());
+        }
+    }
+
+    private void assertNodesAtMinimumOccupancy(BplusTreeNode<Integer, Integer> node) {
+        if (node instanceof BplusTreeLeafNode) {
+            int size = ((BplusTreeLeafNode<Integer, Integer>) node).size();
+            Assertions.assertTrue(node.getParent() == null || size >= BplusTreeNode.minOccupancy(bplusTree.getLeafCapacity()),
+                    "leaf holds " + size + " entries");
+            return;
+        }
+
+        BplusTreeBranchNode<Integer, Integer> branch = (BplusTreeBranchNode<Integer, Integer>) node;
+        Assertions.assertTrue(branch.getParent() == null ? branch.childCount() >= 2 : !branch.underflows(),
+                "branch holds " + branch.childCount() + " children");
+        for (int i = 0; i < branch.childCount(); i++)
+            assertNodesAtMinimumOccupancy(branch.getChild(i));
+    }
+
+    @Test
+    void shouldRejectInvalidBulkLoad() throws BTreeException {
+        Assertions.assertThrows(BTreeException.class, () -> bplusTree.bulkLoad(new Integer[]{MAXN}, new Integer[]{0}, 1));
+
+        BplusTree<Integer, Integer> emptyTree = new BplusTree<>();
+        Assertions.assertThrows(BTreeException.class, () -> emptyTree.bulkLoad(new Integer[]{1, 1}, new Integer[]{0, 0}, 1));
+        Assertions.assertThrows(BTreeException.class, () -> emptyTree.bulkLoad(new Integer[]{2, null}, new Integer[]{0, 0}, 1));
+        Assertions.assertThrows(BTreeException.class, () -> emptyTree.bulkLoad(new Integer[]{1}, new Integer[]{1, 2}, 1));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> emptyTree.bulkLoad(new Integer[]{1}, new Integer[]{1}, 0));
+        Assertions.assertTrue(emptyTree.isEmpty());
+
+        emptyTree.bulkLoad(new Integer[0], new Integer[0], 1);
+        Assertions.assertTrue(emptyTree.isEmpty());
+        emptyTree.add(1, 1);
+        Assertions.assertEquals(Integer.valueOf(1), emptyTree.find(1));
+    }
+
+    @Test
+    void shouldAddAll() throws BTreeException {
+        Random random = new Random(11);
+        for (int[] capacity : new int[][]{{3, 3}, {8, 5}, {127, 127}}) {
+            bplusTree = new BplusTree<>(capacity[0], capacity[1]);
+            TreeMap<Integer, Integer> expected = new TreeMap<>();
+
+            for (int batch = 0; batch < 200; batch++) {
+                int size = random.nextInt(300);
+                TreeMap<Integer, Integer> entries = new TreeMap<>();
+                while (entries.size() < size) {
+                    int key = random.nextInt(10 * MAXN) - MAXN;
+                    if (!expected.containsKey(key))
+                        entries.put(key, random.nextInt());
+                }
+
+                Integer[] keys = entries.keySet().toArray(new Integer[0]);
+                Integer[] values = entries.values().toArray(new Integer[0]);
+                if (batch % 2 == 0) {
+                    java.util.Collections.reverse(java.util.Arrays.asList(keys));
+                    java.util.Collections.reverse(java.util.Arrays.asList(values));
+                }
+                bplusTree.addAll(keys, values);
+                expected.putAll(entries);
+
+                for (int i = 0; i < 100; i++) {
+                    Integer key = expected.ceilingKey(random.nextInt(10 * MAXN) - MAXN);
+                    if (key != null) {
+                        bplusTree.remove(key);
+                        expected.remove(key);
+                    }
+                }
+            }
+
+            for (Integer key : expected.keySet())
+                Assertions.assertEquals(expected.get(key), bplusTree.find(key));
+            while (!expected.isEmpty()) {
+                Assertions.assertEquals(expected.firstKey(), bplusTree.peekKey());
+                Assertions.assertEquals(expected.pollFirstEntry().getValue(), bplusTree.pop());
+            }
+            Assertions.assertTrue(bplusTree.isEmpty());
+        }
+    }
+
+    @Test
+    void shouldRejectInvalidAddAll() {
+        Assertions.assertThrows(BTreeException.class, () -> bplusTree.addAll(new Integer[]{-2, -1, 0}, new Integer[]{0, 0, 0}));
+        Assertions.assertThrows(BTreeException.class, () -> bplusTree.addAll(new Integer[]{-5, -4, -5}, new Integer[]{0, 0, 0}));
+        Assertions.assertThrows(BTreeException.class, () -> bplusTree.addAll(new Integer[]{-5, null}, new Integer[]{0, 0}));
+        Assertions.assertThrows(BTreeException.class, () -> bplusTree.addAll(new Integer[]{-5}, new Integer[]{0, 0}));
+    }
+
+    @Test
+    void shouldFillLeavesWhenAppending() throws BTreeException {
+        Assertions.assertTrue(bplusTree.getLeafFillFactor() > 0.99);
+
+        bplusTree = new BplusTree<>(4, 4);
+        TreeMap<Integer, Integer> expected = new TreeMap<>();
+        for (int i = 0; i < MAXN; i += 2) {
+            bplusTree.add(i, i);
+            expected.put(i, i);
+        }
+        Assertions.assertTrue(bplusTree.getLeafFillFactor() > 0.99);
+        Assertions.assertThrows(BTreeException.class, () -> bplusTree.add(MAXN - 2, 0));
+
+        for (int i = 1; i < MAXN; i += 20) {
+            bplusTree.add(i, i);
+            expected.put(i, i);
+        }
+        assertMinimumOccupancy(expected);
+        for (Integer key : expected.keySet())
+            Assertions.assertEquals(expected.get(key), bplusTree.find(key));
+    }
+
+    @Test
+    void shouldFillLeavesWhenPrepending() throws BTreeException {
+        Random random = new Random(18);
+        bplusTree = new BplusTree<>(4, 4);
+        TreeMap<Integer, Integer> expected = new TreeMap<>();
+        for (int i = 0; i < MAXN; i += 2) {
+            bplusTree.add(-i, i);
+            expected.put(-i, i);
+            if (i % 1000 == 0)
+                Assertions.assertEquals(expected.firstKey(), bplusTree.peekKey());
+        }
+        Assertions.assertTrue(bplusTree.getLeafFillFactor() > 0.99);
+        Assertions.assertThrows(BTreeException.class, () -> bplusTree.add(2 - MAXN, 0));
+
+        for (int i = 0; i < MAXN; i++) {
+            int key = random.nextInt(2 * MAXN) - 3 * MAXN / 2;
+            if (expected.containsKey(key)) {
+                bplusTree.remove(key);
+                expected.remove(key);
+            } else {
+                bplusTree.add(key, i);
+                expected.put(key, i);
+            }
+        }
+        assertMinimumOccupancy(expected);
+        for (Integer key : expected.keySet())
+            Assertions.assertEquals(expected.get(key), bplusTree.find(key));
+        while (!expected.isEmpty())
+            Assertions.assertEquals(expected.pollFirstEntry().getValue(), bplusTree.pop());
+    }
+
+    @org.junit.jupiter.api.Test
+    void shouldKeepPrependedKeysOnRemoveFrom() throws BTreeException {
+        bplusTree = new BplusTree<>();
+        for (int i = 20; i < 1000; i++)
+            bplusTree.add(i, i);
+        bplusTree.pop();
+        bplusTree.add(5, 5);
+        bplusTree.removeFrom(20);
+
+        Assertions.assertFalse(bplusTree.isEmpty());
+        Assertions.assertEquals(Integer.valueOf(5), bplusTree.find(5));
+        Assertions.assertNull(bplusTree.find(21));
+        Assertions.assertEquals(Integer.valueOf(5), bplusTree.peekLastKey());
+    }
+
+    @Test
+    void shouldKeepMinimumOccupancyAfterRemoves() throws BTreeException {
+        Random random = new Random(14);
+        for (int[] capacities : new int[][]{{4, 4}, {8, 6}, {31, 5}}) {
+            bplusTree = new BplusTree<>(capacities[0], capacities[1]);
+            TreeMap<Integer, Integer> expected = new TreeMap<>();
+            for (int i = 0; i < MAXN; i++) {
+                int key = random.nextInt(4 * MAXN);
+                if (!expected.containsKey(key)) {
+                    bplusTree.add(key, i);
+                    expected.put(key, i);
+                }
+            }
+
+            while (expected.size() > 10) {
+                Integer key = expected.ceilingKey(random.nextInt(4 * MAXN));
+                if (key == null)
+                    key = expected.firstKey();
+                bplusTree.remove(key);
+                expected.remove(key);
+
+                if (expected.size() % 1000 == 0)
+                    assertMinimumOccupancy(expected);
+            }
+            assertMinimumOccupancy(expected);
+
+            for (Integer key : expected.keySet())
+                Assertions.assertEquals(expected.get(key), bplusTree.find(key));
+            while (!expected.isEmpty())
+                Assertions.assertEquals(expected.pollFirstEntry().getValue(), bplusTree.pop());
+            Assertions.assertTrue(bplusTree.isEmpty());
+        }
+    }
+
+    @Test
+    void shouldCompact() throws BTreeException {
+        Random random = new Random(15);
+        for (int[] capacities : new int[][]{{4, 4}, {8, 6}, {64, 16}}) {
+            bplusTree = new BplusTree<>(capacities[0], capacities[1]);
+            TreeMap<Integer, Integer> expected = new TreeMap<>();
+            for (int i = 0; i < MAXN; i++) {
+                int key = random.nextInt(4 * MAXN);
+                if (!expected.containsKey(key)) {
+                    bplusTree.add(key, i);
+                    expected.put(key, i);
+                }
+            }
+            for (int i = 0; i < MAXN / 2; i++) {
+                Integer key = expected.ceilingKey(random.nextInt(4 * MAXN));
+                if (key != null) {
+                    bplusTree.remove(key);
+                    expected.remove(key);
+                }
+            }
+
+            int height = bplusTree.getRoot().firstLeaf().getDepth();
+            bplusTree.compact(1.0);
+            assertMinimumOccupancy(expected);
+            Assertions.assertTrue(bplusTree.getLeafFillFactor() > 0.95);
+            Assertions.assertTrue(bplusTree.getRoot().firstLeaf().getDepth() <= height);
+
+            for (int i = 0; i < MAXN; i++) {
+                int key = random.nextInt(4 * MAXN);
+                if (expected.containsKey(key)) {
+                    bplusTree.remove(key);
+                    expected.remove(key);
+                } else {
+                    bplusTree.add(key, i);
+                    expected.put(key, i);
+                }
+                if (i % 100 == 0)
+                    bplusTree.compactStep(0.75, 5);
+            }
+            while (!bplusTree.compactStep(0.75, 5));
+            assertMinimumOccupancy(expected);
+
+            for (Integer key : expected.keySet())
+                Assertions.assertEquals(expected.get(key), bplusTree.find(key));
+        }
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> bplusTree.compact(0));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> bplusTree.compactStep(1.5, 1));
+        bplusTree.removeFrom(Integer.MIN_VALUE);
+        bplusTree.compact(1.0);
+        Assertions.assertTrue(bplusTree.isEmpty());
+    }
+
+    private void assertMinimumOccupancy(TreeMap<Integer, Integer> expected) {
+        int min = BplusTreeNode.minOccupancy(bplusTree.getLeafCapacity());
+        BplusTreeLeafNode<Integer, Integer> leaf = bplusTree.getRoot().firstLeaf();
+        BplusTreeLeafNode<Integer, Integer> prev = null;
+        java.util.Iterator<Integer> keys = expected.keySet().iterator();
+
+        for (; leaf != null; prev = leaf, leaf = leaf.getNext()) {
+            if (leaf.getParent() != null && leaf.getPrev() != null && leaf.getNext() != null)
+                Assertions.assertTrue(leaf.size() >= min, "leaf holds " + leaf.size() + " entries");
+            Assertions.assertSame(prev, leaf.getPrev());
+            for (int i = 0; i < leaf.size(); i++)
+                Assertions.assertEquals(keys.next(), leaf.getKey(i));
+        }
+        Assertions.assertFalse(keys.hasNext());
+        if (bplusTree.getRoot() instanceof BplusTreeBranchNode)
+            Assertions.assertTrue(bplusTree.getLeafFillFactor() >= (double) min / (bplusTree.getLeafCapacity() - 1));
+    }
+}
@@ -0,0 +1,93 @@
+package bplustree;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+class BufferPoolPageStoreTest {
+    private static final int PAGE_SIZE = 64;
+    private static final int FRAMES = 4;
+    private Path file;
+    private BufferPoolPageStore store;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        file = Files.createTempFile("bufferpool", ".pages");
+        Files.delete(file);
+        store = BufferPoolPageStore.open(file, PAGE_SIZE, FRAMES);
+        store.format();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        store.close();
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    void shouldEvictAndReloadDirtyPages() throws IOException {
+        long[] pages = new long[4 * FRAMES];
+        for (int i = 0; i < pages.length; i++) {
+            pages[i] = store.allocate();
+            store.putLong(pages[i] + 8, i);
+        }
+        Assertions.assertTrue(store.getEvictions() > 0);
+
+        long misses = store.getMisses();
+        for (int i = 0; i < pages.length; i++)
+            Assertions.assertEquals(i, store.getLong(pages[i] + 8));
+        Assertions.assertTrue(store.getMisses() > misses);
+
+        store.close();
+        store = BufferPoolPageStore.open(file, PAGE_SIZE, FRAMES);
+        Assertions.assertTrue(store.isFormatted());
+        for (int i = 0; i < pages.length; i++)
+            Assertions.assertEquals(i, store.getLong(pages[i] + 8));
+    }
+
+    @Test
+    void shouldCountHitsOnCachedPages() {
+        long page = store.allocate();
+        store.putLong(page, 1);
+        store.getLong(0);
+        long hits = store.getHits();
+
+        store.getLong(page);
+        store.getLong(page + 8);
+        Assertions.assertEquals(hits + 1, store.getHits());
+    }
+
+    @Test
+    void shouldKeepPinnedPages() {
+        long[] pages = new long[FRAMES - 1];
+        for (int i = 0; i < pages.length; i++) {
+            pages[i] = store.allocate();
+            store.putLong(pages[i], i);
+            store.pin(pages[i]);
+        }
+
+        for (int i = 0; i < 10; i++)
+            store.putLong(store.allocate(), i);
+        long misses = store.getMisses();
+        for (int i = 0; i < pages.length; i++)
+            Assertions.assertEquals(i, store.getLong(pages[i]));
+        Assertions.assertEquals(misses, store.getMisses());
+
+        store.pin(0);
+        Assertions.assertThrows(IllegalStateException.class, () -> store.getLong(pages[0] + 100 * PAGE_SIZE));
+        store.unpin(0);
+        for (long page : pages)
+            store.unpin(page);
+        Assertions.assertThrows(IllegalStateException.class, () -> store.unpin(pages[0]));
+    }
+
+    @Test
+    void shouldRejectTinyPool() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> BufferPoolPageStore.open(file, PAGE_SIZE, FRAMES - 1));
+    }
+}
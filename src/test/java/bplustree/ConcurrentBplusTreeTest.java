@@ -0,0 +1,178 @@
+package bplustree;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+class ConcurrentBplusTreeTest {
+    private static final int MAXN = 30 * 1000;
+    private static final int THREADS = 4;
+
+    private interface Task {
+        void run(int thread) throws Exception;
+    }
+
+    private static void runInParallel(Task task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            final int thread = i;
+            futures.add(executor.submit(() -> {
+                task.run(thread);
+                return null;
+            }));
+        }
+        for (Future<?> future : futures)
+            future.get();
+        executor.shutdown();
+        Assertions.assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void shouldMatchTreeMapOnRandomOperations() throws BTreeException {
+        ConcurrentBplusTree<Integer, Integer> bplusTree = new ConcurrentBplusTree<>(4, 4);
+        TreeMap<Integer, Integer> expected = new TreeMap<>();
+        Random random = new Random(7);
+
+        for (int i = 0; i < MAXN; i++) {
+            int key = random.nextInt(MAXN / 10);
+            if (expected.containsKey(key)) {
+                bplusTree.remove(key);
+                expected.remove(key);
+            } else {
+                bplusTree.add(key, i);
+                expected.put(key, i);
+            }
+            if (i % 7 == 0 && !expected.isEmpty()) {
+                Assertions.assertEquals(expected.firstKey(), bplusTree.peekKey());
+                Assertions.assertEquals(expected.pollFirstEntry().getValue(), bplusTree.pop());
+            }
+        }
+
+        for (int key = 0; key < MAXN / 10; key++)
+            Assertions.assertEquals(expected.get(key), bplusTree.find(key));
+        while (!expected.isEmpty())
+            Assertions.assertEquals(expected.pollFirstEntry().getValue(), bplusTree.pop());
+        Assertions.assertTrue(bplusTree.isEmpty());
+        Assertions.assertNull(bplusTree.pop());
+    }
+
+    @Test
+    void shouldRejectInvalidKeys() throws BTreeException {
+        ConcurrentBplusTree<Integer, Integer> bplusTree = new ConcurrentBplusTree<>();
+        bplusTree.add(1, 1);
+        Assertions.assertThrows(BTreeException.class, () -> bplusTree.add(1, 1));
+        Assertions.assertThrows(BTreeException.class, () -> bplusTree.remove(2));
+        Assertions.assertThrows(BTreeException.class, () -> bplusTree.add(null, 1));
+        Assertions.assertThrows(BTreeException.class, () -> bplusTree.find(null));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new ConcurrentBplusTree<Integer, Integer>(2, 8));
+    }
+
+    @Test
+    void shouldAddAndRemoveFromManyThreads() throws Exception {
+        ConcurrentBplusTree<Integer, Integer> bplusTree = new ConcurrentBplusTree<>(5, 4);
+
+        runInParallel(thread -> {
+            for (int i = thread; i < MAXN; i += THREADS)
+                bplusTree.add(i, i);
+            for (int i = thread; i < MAXN; i += 2 * THREADS)
+                bplusTree.remove(i);
+        });
+
+        for (int i = 0; i < MAXN; i++)
+            Assertions.assertEquals(i % (2 * THREADS) < THREADS ? null : Integer.valueOf(i), bplusTree.find(i));
+    }
+
+    private void readWhileOthersWrite(boolean optimisticReads) throws Exception {
+        ConcurrentBplusTree<Integer, Integer> bplusTree = new ConcurrentBplusTree<>(6, 4, optimisticReads);
+        for (int i = 0; i < MAXN; i += 2)
+            bplusTree.add(i, i);
+        AtomicBoolean writing = new AtomicBoolean(true);
+
+        runInParallel(thread -> {
+            if (thread == 0) {
+                for (int round = 0; round < 3; round++) {
+                    for (int i = 1; i < MAXN; i += 2)
+                        bplusTree.add(i, i);
+                    for (int i = 1; i < MAXN; i += 2)
+                        bplusTree.remove(i);
+                }
+                writing.set(false);
+            } else if (thread == 1) {
+                while (writing.get()) {
+                    List<Integer> evenKeys = new ArrayList<>();
+                    int[] lastKey = {-1};
+                    bplusTree.scan(1000, 3000, (key, value) -> {
+                        Assertions.assertTrue(key > lastKey[0]);
+                        lastKey[0] = key;
+                        if (key % 2 == 0)
+                            evenKeys.add(key);
+                    });
+                    Assertions.assertEquals(1000, evenKeys.size());
+                }
+            } else {
+                Random random = new Random(thread);
+                while (writing.get()) {
+                    int key = 2 * random.nextInt(MAXN / 2);
+                    Assertions.assertEquals(Integer.valueOf(key), bplusTree.find(key));
+                }
+            }
+        });
+    }
+
+    @Test
+    void shouldReadWhileOthersWrite() throws Exception {
+        readWhileOthersWrite(false);
+    }
+
+    @Test
+    void shouldReadOptimisticallyWhileOthersWrite() throws Exception {
+        readWhileOthersWrite(true);
+    }
+
+    @Test
+    void shouldScanRange() throws BTreeException {
+        ConcurrentBplusTree<Integer, Integer> bplusTree = new ConcurrentBplusTree<>(4, 4, true);
+        for (int i = 0; i < MAXN; i += 3)
+            bplusTree.add(i, i);
+
+        List<Integer> keys = new ArrayList<>();
+        bplusTree.scan(10, 100, (key, value) -> keys.add(key));
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 12; i < 100; i += 3)
+            expected.add(i);
+        Assertions.assertEquals(expected, keys);
+
+        keys.clear();
+        bplusTree.scan(null, null, (key, value) -> keys.add(key));
+        Assertions.assertEquals(MAXN / 3, keys.size());
+        Assertions.assertEquals(Integer.valueOf(MAXN - 3), keys.get(keys.size() - 1));
+    }
+
+    @Test
+    void shouldPopEveryKeyOnceFromManyThreads() throws Exception {
+        ConcurrentBplusTree<Integer, Integer> bplusTree = new ConcurrentBplusTree<>(4, 4);
+        for (int i = 0; i < MAXN; i++)
+            bplusTree.add(i, i);
+        ConcurrentHashMap<Integer, Boolean> popped = new ConcurrentHashMap<>();
+
+        runInParallel(thread -> {
+            Integer value;
+            while ((value = bplusTree.pop()) != null)
+                Assertions.assertNull(popped.put(value, true));
+        });
+
+        Assertions.assertEquals(MAXN, popped.size());
+        Assertions.assertTrue(bplusTree.isEmpty());
+    }
+}
@@ -0,0 +1,158 @@
+package bplustree;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+class DurableBplusTreeTest {
+    private static final int MAXN = 10 * 1000;
+    private static final int THREADS = 4;
+    private Path logFile;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        logFile = Files.createTempFile("bplustree", ".wal");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        Files.deleteIfExists(logFile);
+        Files.deleteIfExists(logFile.resolveSibling(logFile.getFileName() + ".checkpoint"));
+    }
+
+    private DurableBplusTree<Integer, String> open() throws IOException {
+        return DurableBplusTree.open(logFile, Codec.INTEGER, Codec.STRING);
+    }
+
+    @Test
+    void shouldReplayMutations() throws BTreeException, IOException {
+        try (DurableBplusTree<Integer, String> tree = open()) {
+            for (int i = 0; i < MAXN; i++)
+                tree.add(i, Integer.toString(i));
+            for (int i = 0; i < MAXN; i += 3)
+                tree.remove(i);
+            tree.removeFrom(MAXN / 2);
+            Assertions.assertEquals("1", tree.pop());
+            Assertions.assertThrows(BTreeException.class, () -> tree.add(2, "2"));
+        }
+
+        try (DurableBplusTree<Integer, String> tree = open()) {
+            for (int i = 0; i < MAXN; i++) {
+                boolean present = i > 1 && i % 3 != 0 && i < MAXN / 2;
+                Assertions.assertEquals(present ? Integer.toString(i) : null, tree.find(i));
+            }
+            Assertions.assertEquals(Integer.valueOf(2), tree.peekKey());
+        }
+    }
+
+    @Test
+    void shouldReplayOnTopOfCheckpoint() throws BTreeException, IOException {
+        try (DurableBplusTree<Integer, String> tree = open()) {
+            for (int i = 0; i < MAXN; i++)
+                tree.add(i, Integer.toString(i));
+            long logSize = Files.size(logFile);
+            tree.checkpoint();
+            Assertions.assertTrue(Files.size(logFile) < logSize / 100);
+
+            for (int i = 0; i < MAXN; i += 2)
+                tree.remove(i);
+            tree.checkpoint();
+            tree.add(-1, "-1");
+            tree.removeFrom(MAXN / 2);
+        }
+
+        try (DurableBplusTree<Integer, String> tree = open()) {
+            Assertions.assertEquals("-1", tree.pop());
+            for (int i = 0; i < MAXN; i++) {
+                boolean present = i % 2 == 1 && i < MAXN / 2;
+                Assertions.assertEquals(present ? Integer.toString(i) : null, tree.find(i));
+            }
+        }
+    }
+
+    @Test
+    void shouldSkipLogOlderThanCheckpoint() throws BTreeException, IOException {
+        try (DurableBplusTree<Integer, String> tree = open()) {
+            for (int i = 0; i < 100; i++)
+                tree.add(i, Integer.toString(i));
+        }
+        byte[] staleLog = Files.readAllBytes(logFile);
+        try (DurableBplusTree<Integer, String> tree = open()) {
+            tree.checkpoint();
+            tree.remove(0);
+        }
+        // crash after the checkpoint was written but before the log was started over
+        Files.write(logFile, staleLog);
+
+        try (DurableBplusTree<Integer, String> tree = open()) {
+            for (int i = 0; i < 100; i++)
+                Assertions.assertEquals(Integer.toString(i), tree.find(i));
+            tree.remove(0);
+        }
+        try (DurableBplusTree<Integer, String> tree = open()) {
+            Assertions.assertNull(tree.find(0));
+            Assertions.assertEquals("1", tree.find(1));
+        }
+    }
+
+    @Test
+    void shouldCutTornTail() throws BTreeException, IOException {
+        try (DurableBplusTree<Integer, String> tree = open()) {
+            for (int i = 0; i < 100; i++)
+                tree.add(i, Integer.toString(i));
+        }
+        long intactSize = Files.size(logFile);
+        Files.write(logFile, new byte[]{0, 0, 0, 42, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        try (DurableBplusTree<Integer, String> tree = open()) {
+            Assertions.assertEquals(intactSize, Files.size(logFile));
+            for (int i = 0; i < 100; i++)
+                Assertions.assertEquals(Integer.toString(i), tree.find(i));
+            tree.add(100, "100");
+        }
+
+        try (DurableBplusTree<Integer, String> tree = open()) {
+            Assertions.assertEquals("100", tree.find(100));
+        }
+    }
+
+    @Test
+    void shouldGroupCommitConcurrentWriters() throws Exception {
+        try (DurableBplusTree<Integer, String> tree = open()) {
+            List<Thread> threads = new ArrayList<>();
+            List<Throwable> failures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                final int offset = t;
+                threads.add(new Thread(() -> {
+                    try {
+                        for (int i = offset; i < MAXN; i += THREADS)
+                            tree.add(i, Integer.toString(i));
+                    } catch (Exception e) {
+                        synchronized (failures) {
+                            failures.add(e);
+                        }
+                    }
+                }));
+            }
+            threads.forEach(Thread::start);
+            for (Thread thread : threads)
+                thread.join();
+
+            Assertions.assertTrue(failures.isEmpty());
+            Assertions.assertTrue(tree.getLogSyncs() <= MAXN);
+        }
+
+        try (DurableBplusTree<Integer, String> tree = open()) {
+            for (int i = 0; i < MAXN; i++)
+                Assertions.assertEquals(Integer.toString(i), tree.find(i));
+        }
+    }
+}
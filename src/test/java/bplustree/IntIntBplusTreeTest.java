@@ -0,0 +1,49 @@
+package bplustree;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class IntIntBplusTreeTest {
+    private static final int MAXN = 30 * 1000;
+    private static final int MISSING = Integer.MIN_VALUE;
+    private IntIntBplusTree bplusTree;
+
+    @BeforeEach
+    void setUp() throws BTreeException {
+        bplusTree = new IntIntBplusTree();
+        for (int i = 0; i < MAXN; i++) {
+            int key = (i * 7919) % MAXN;
+            bplusTree.add(key, 2 * key);
+        }
+    }
+
+    @Test
+    void shouldFind() {
+        for (int i = 0; i < MAXN; i++)
+            Assertions.assertEquals(2 * i, bplusTree.find(i, MISSING));
+        Assertions.assertEquals(MISSING, bplusTree.find(-1, MISSING));
+        Assertions.assertFalse(bplusTree.contains(MAXN));
+    }
+
+    @Test
+    void shouldRemove() throws BTreeException {
+        Assertions.assertThrows(BTreeException.class, () -> bplusTree.add(1, 1));
+
+        for (int i = MAXN - 1; i >= 0; i -= 2)
+            bplusTree.remove(i);
+        for (int i = 0; i < MAXN; i++)
+            Assertions.assertEquals(i % 2 == 0, bplusTree.contains(i));
+        Assertions.assertThrows(BTreeException.class, () -> bplusTree.remove(1));
+    }
+
+    @Test
+    void shouldPop() throws BTreeException {
+        bplusTree.removeFrom(MAXN / 2);
+        for (int i = 0; i < MAXN / 2; i++) {
+            Assertions.assertEquals(i, bplusTree.peekKey());
+            Assertions.assertEquals(2 * i, bplusTree.pop());
+        }
+        Assertions.assertTrue(bplusTree.isEmpty());
+    }
+}
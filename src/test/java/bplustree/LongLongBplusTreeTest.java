@@ -0,0 +1,115 @@
+package bplustree;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.TreeMap;
+
+class LongLongBplusTreeTest {
+    private static final int MAXN = 30 * 1000;
+    private static final long MISSING = Long.MIN_VALUE;
+    private LongLongBplusTree bplusTree;
+
+    @BeforeEach
+    void setUp() throws BTreeException {
+        bplusTree = new LongLongBplusTree();
+        for (int i = 1; i < MAXN; i++) {
+            bplusTree.add(i, 2L * i);
+        }
+        bplusTree.add(0, 0);
+    }
+
+    @Test
+    void shouldFind() {
+        for (int i = 0; i < MAXN; i++) {
+            Assertions.assertEquals(2L * i, bplusTree.find(i, MISSING));
+            Assertions.assertTrue(bplusTree.contains(i));
+        }
+        Assertions.assertEquals(MISSING, bplusTree.find(-1, MISSING));
+        Assertions.assertEquals(MISSING, bplusTree.find(MAXN, MISSING));
+        Assertions.assertFalse(bplusTree.contains(MAXN));
+    }
+
+    @Test
+    void shouldAdd() {
+        Assertions.assertThrows(BTreeException.class, () -> bplusTree.add(0, 0));
+        Assertions.assertThrows(BTreeException.class, () -> bplusTree.add(MAXN - 1, 0));
+        shouldFind();
+    }
+
+    @Test
+    void shouldRemove() throws BTreeException {
+        Assertions.assertThrows(BTreeException.class, () -> bplusTree.remove(-1));
+
+        for (int i = 0; i < MAXN; i += 2) {
+            bplusTree.remove(i);
+            Assertions.assertFalse(bplusTree.contains(i));
+            Assertions.assertTrue(bplusTree.contains(i + 1));
+        }
+        Assertions.assertThrows(BTreeException.class, () -> bplusTree.remove(2));
+
+        for (int i = 1; i < MAXN; i += 2)
+            bplusTree.remove(i);
+        Assertions.assertTrue(bplusTree.isEmpty());
+    }
+
+    @Test
+    void shouldRemoveFromMiddle() throws BTreeException {
+        bplusTree.removeFrom(MAXN / 2);
+        for (int i = 0; i < MAXN; i++)
+            Assertions.assertEquals(i < MAXN / 2, bplusTree.contains(i));
+
+        bplusTree.removeFrom(-1);
+        Assertions.assertTrue(bplusTree.isEmpty());
+    }
+
+    @Test
+    void shouldPop() throws BTreeException {
+        for (int i = 0; i < MAXN; i++) {
+            Assertions.assertEquals(i, bplusTree.peekKey());
+            Assertions.assertEquals(2L * i, bplusTree.peekValue());
+            Assertions.assertEquals(2L * i, bplusTree.pop());
+        }
+        Assertions.assertTrue(bplusTree.isEmpty());
+        Assertions.assertThrows(NoSuchElementException.class, () -> bplusTree.peekKey());
+        Assertions.assertThrows(NoSuchElementException.class, () -> bplusTree.pop());
+    }
+
+    @Test
+    void shouldRejectTinyCapacity() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new LongLongBplusTree(2, 16));
+    }
+
+    @Test
+    void shouldMatchTreeMapOnRandomOperations() throws BTreeException {
+        shouldMatchTreeMapOnRandomOperations(new LongLongBplusTree());
+        shouldMatchTreeMapOnRandomOperations(new LongLongBplusTree(3, 4));
+    }
+
+    private void shouldMatchTreeMapOnRandomOperations(LongLongBplusTree bplusTree) throws BTreeException {
+        TreeMap<Long, Long> expected = new TreeMap<>();
+        Random random = new Random(7);
+
+        for (int i = 0; i < 10 * MAXN; i++) {
+            long key = random.nextInt(MAXN);
+            if (expected.containsKey(key)) {
+                bplusTree.remove(key);
+                expected.remove(key);
+            } else {
+                bplusTree.add(key, -key);
+                expected.put(key, -key);
+            }
+        }
+
+        for (long key = 0; key < MAXN; key++)
+            Assertions.assertEquals(expected.getOrDefault(key, MISSING).longValue(), bplusTree.find(key, MISSING));
+        while (!expected.isEmpty()) {
+            Assertions.assertEquals(expected.firstKey().longValue(), bplusTree.peekKey());
+            Assertions.assertEquals(expected.pollFirstEntry().getValue().longValue(), bplusTree.pop());
+        }
+        Assertions.assertTrue(bplusTree.isEmpty());
+    }
+}
@@ -0,0 +1,52 @@
+package bplustree;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class LongObjectBplusTreeTest {
+    private static final int MAXN = 30 * 1000;
+    private LongObjectBplusTree<String> bplusTree;
+
+    @BeforeEach
+    void setUp() throws BTreeException {
+        bplusTree = new LongObjectBplusTree<>();
+        for (int i = MAXN - 1; i >= 0; i--) {
+            bplusTree.add(i, Integer.toString(i));
+        }
+    }
+
+    @Test
+    void shouldFind() {
+        for (int i = 0; i < MAXN; i++)
+            Assertions.assertEquals(Integer.toString(i), bplusTree.find(i));
+        Assertions.assertNull(bplusTree.find(-1));
+        Assertions.assertNull(bplusTree.find(MAXN));
+    }
+
+    @Test
+    void shouldRemoveAndAdd() throws BTreeException {
+        Assertions.assertThrows(BTreeException.class, () -> bplusTree.add(0, "0"));
+        Assertions.assertThrows(BTreeException.class, () -> bplusTree.remove(MAXN));
+
+        for (int i = 0; i < MAXN; i += 3)
+            bplusTree.remove(i);
+        for (int i = 0; i < MAXN; i++)
+            Assertions.assertEquals(i % 3 == 0 ? null : Integer.toString(i), bplusTree.find(i));
+
+        bplusTree.removeFrom(MAXN / 2);
+        Assertions.assertNull(bplusTree.find(MAXN - 1));
+        Assertions.assertEquals("1", bplusTree.find(1));
+    }
+
+    @Test
+    void shouldPop() throws BTreeException {
+        for (int i = 0; i < MAXN; i++) {
+            Assertions.assertEquals(i, bplusTree.peekKey());
+            Assertions.assertEquals(Integer.toString(i), bplusTree.peekValue());
+            Assertions.assertEquals(Integer.toString(i), bplusTree.pop());
+        }
+        Assertions.assertTrue(bplusTree.isEmpty());
+        Assertions.assertNull(bplusTree.peekValue());
+    }
+}
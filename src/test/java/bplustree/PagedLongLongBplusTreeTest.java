@@ -0,0 +1,195 @@
+package bplustree;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.TreeMap;
+
+class PagedLongLongBplusTreeTest {
+    private static final int MAXN = 30 * 1000;
+    private static final long MISSING = Long.MIN_VALUE;
+    private PagedLongLongBplusTree bplusTree;
+
+    @BeforeEach
+    void setUp() throws BTreeException {
+        bplusTree = PagedLongLongBplusTree.offHeap();
+        for (int i = 1; i < MAXN; i++) {
+            bplusTree.add(i, 2L * i);
+        }
+        bplusTree.add(0, 0);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        bplusTree.close();
+    }
+
+    @Test
+    void shouldFind() {
+        Assertions.assertEquals(MAXN, bplusTree.size());
+        for (int i = 0; i < MAXN; i++) {
+            Assertions.assertEquals(2L * i, bplusTree.find(i, MISSING));
+            Assertions.assertTrue(bplusTree.contains(i));
+        }
+        Assertions.assertEquals(MISSING, bplusTree.find(-1, MISSING));
+        Assertions.assertEquals(MISSING, bplusTree.find(MAXN, MISSING));
+        Assertions.assertFalse(bplusTree.contains(MAXN));
+    }
+
+    @Test
+    void shouldAdd() {
+        Assertions.assertThrows(BTreeException.class, () -> bplusTree.add(0, 0));
+        Assertions.assertThrows(BTreeException.class, () -> bplusTree.add(MAXN - 1, 0));
+        shouldFind();
+    }
+
+    @Test
+    void shouldRemove() throws BTreeException {
+        Assertions.assertThrows(BTreeException.class, () -> bplusTree.remove(-1));
+
+        for (int i = 0; i < MAXN; i += 2) {
+            bplusTree.remove(i);
+            Assertions.assertFalse(bplusTree.contains(i));
+            Assertions.assertTrue(bplusTree.contains(i + 1));
+        }
+        Assertions.assertThrows(BTreeException.class, () -> bplusTree.remove(2));
+
+        for (int i = 1; i < MAXN; i += 2)
+            bplusTree.remove(i);
+        Assertions.assertTrue(bplusTree.isEmpty());
+    }
+
+    @Test
+    void shouldRemoveFromMiddle() {
+        bplusTree.removeFrom(MAXN / 2);
+        Assertions.assertEquals(MAXN / 2, bplusTree.size());
+        for (int i = 0; i < MAXN; i++)
+            Assertions.assertEquals(i < MAXN / 2, bplusTree.contains(i));
+
+        bplusTree.removeFrom(-1);
+        Assertions.assertTrue(bplusTree.isEmpty());
+    }
+
+    @Test
+    void shouldPop() {
+        for (int i = 0; i < MAXN; i++) {
+            Assertions.assertEquals(i, bplusTree.peekKey());
+            Assertions.assertEquals(2L * i, bplusTree.peekValue());
+            Assertions.assertEquals(2L * i, bplusTree.pop());
+        }
+        Assertions.assertTrue(bplusTree.isEmpty());
+        Assertions.assertThrows(NoSuchElementException.class, () -> bplusTree.peekKey());
+        Assertions.assertThrows(NoSuchElementException.class, () -> bplusTree.pop());
+    }
+
+    @Test
+    void shouldRejectTinyPages() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> PagedLongLongBplusTree.offHeap(48));
+    }
+
+    @Test
+    void shouldMatchTreeMapOnRandomOperations() throws BTreeException, IOException {
+        try (PagedLongLongBplusTree tree = PagedLongLongBplusTree.offHeap(72)) {
+            shouldMatchTreeMapOnRandomOperations(tree);
+        }
+    }
+
+    @Test
+    void shouldReopenFile() throws BTreeException, IOException {
+        Path file = Files.createTempFile("bplustree", ".pages");
+        try {
+            try (PagedLongLongBplusTree tree = PagedLongLongBplusTree.open(file, 72)) {
+                for (int i = 0; i < MAXN; i++)
+                    tree.add(i, 2L * i);
+                tree.removeFrom(MAXN / 2);
+                Assertions.assertEquals(Long.valueOf(MAXN / 4), tree.locate(MAXN / 4).getKey());
+                Assertions.assertNull(tree.locate(MAXN));
+            }
+
+            try (PagedLongLongBplusTree tree = PagedLongLongBplusTree.open(file)) {
+                Assertions.assertEquals(MAXN / 2, tree.size());
+                for (int i = 0; i < MAXN; i++)
+                    Assertions.assertEquals(i < MAXN / 2 ? 2L * i : MISSING, tree.find(i, MISSING));
+                tree.removeFrom(0);
+                shouldMatchTreeMapOnRandomOperations(tree);
+            }
+
+            try (PagedLongLongBplusTree tree = PagedLongLongBplusTree.open(file)) {
+                Assertions.assertTrue(tree.isEmpty());
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    void shouldWorkThroughSmallBufferPool() throws BTreeException, IOException {
+        Path file = Files.createTempFile("bplustree", ".pages");
+        Files.delete(file);
+        try {
+            try (PagedLongLongBplusTree tree = PagedLongLongBplusTree.open(file, 72, 16)) {
+                for (int i = 0; i < MAXN; i++)
+                    tree.add(i, 2L * i);
+                Assertions.assertTrue(tree.getPageEvictions() > 0);
+                Assertions.assertTrue(tree.getPageHits() > tree.getPageMisses());
+            }
+
+            try (PagedLongLongBplusTree tree = PagedLongLongBplusTree.open(file, 72, 16)) {
+                for (int i = 0; i < MAXN; i++)
+                    Assertions.assertEquals(2L * i, tree.find(i, MISSING));
+                tree.removeFrom(0);
+                shouldMatchTreeMapOnRandomOperations(tree);
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    void shouldRejectForeignFile() throws IOException {
+        Path file = Files.createTempFile("bplustree", ".pages");
+        try {
+            Files.write(file, new byte[100]);
+            Assertions.assertThrows(IOException.class, () -> PagedLongLongBplusTree.open(file));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    static void shouldMatchTreeMapOnRandomOperations(PagedLongLongBplusTree bplusTree) throws BTreeException {
+        TreeMap<Long, Long> expected = new TreeMap<>();
+        Random random = new Random(7);
+
+        for (int i = 0; i < 10 * MAXN; i++) {
+            long key = random.nextInt(MAXN);
+            if (expected.containsKey(key)) {
+                bplusTree.remove(key);
+                expected.remove(key);
+            } else {
+                bplusTree.add(key, -key);
+                expected.put(key, -key);
+            }
+            if (i % 1000 == 999) {
+                long threshold = random.nextInt(MAXN);
+                bplusTree.removeFrom(threshold);
+                expected.tailMap(threshold).clear();
+            }
+        }
+
+        Assertions.assertEquals(expected.size(), bplusTree.size());
+        for (long key = 0; key < MAXN; key++)
+            Assertions.assertEquals(expected.getOrDefault(key, MISSING).longValue(), bplusTree.find(key, MISSING));
+        while (!expected.isEmpty()) {
+            Assertions.assertEquals(expected.firstKey().longValue(), bplusTree.peekKey());
+            Assertions.assertEquals(expected.pollFirstEntry().getValue().longValue(), bplusTree.pop());
+        }
+        Assertions.assertTrue(bplusTree.isEmpty());
+    }
+}
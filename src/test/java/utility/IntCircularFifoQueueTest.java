@@ -0,0 +1,145 @@
+package utility;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.NoSuchElementException;
+
+class IntCircularFifoQueueTest {
+    private IntCircularFifoQueue queue;
+
+    @BeforeEach
+    void setUp() {
+        queue = new IntCircularFifoQueue(4);
+
+        for (int i = 0; i < 4; i++)
+            queue.pushBack(i);
+    }
+
+    @Test
+    void constructorZeroSize() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new IntCircularFifoQueue(0));
+        Assertions.assertThrows(IllegalStateException.class, () -> new IntCircularFifoQueue(new int[]{1}, 2));
+    }
+
+    @Test
+    void get() {
+        Assertions.assertThrows(NoSuchElementException.class, () -> queue.get(-1));
+        Assertions.assertThrows(NoSuchElementException.class, () -> queue.get(4));
+
+        for (int i = 0; i < 4; i++)
+            Assertions.assertEquals(i, queue.get(i));
+        Assertions.assertTrue(queue.isAtFullCapacity());
+    }
+
+    @Test
+    void peekAndPop() {
+        Assertions.assertEquals(0, queue.peekFront());
+        Assertions.assertEquals(3, queue.peekBack());
+        Assertions.assertEquals(0, queue.popFront());
+        Assertions.assertEquals(3, queue.popBack());
+        Assertions.assertEquals(2, queue.size());
+
+        queue.clear();
+        Assertions.assertThrows(NoSuchElementException.class, () -> queue.peekFront());
+        Assertions.assertThrows(NoSuchElementException.class, () -> queue.popBack());
+    }
+
+    @Test
+    void pushFrontAndBack() {
+        Assertions.assertThrows(IllegalStateException.class, () -> queue.pushBack(4));
+
+        queue.popBack();
+        queue.pushFront(-1);
+        for (int i = 0; i < 4; i++)
+            Assertions.assertEquals(i - 1, queue.get(i));
+    }
+
+    @Test
+    void insertCircular() {
+        Assertions.assertThrows(IllegalStateException.class, () -> queue.insert(1, 1));
+
+        queue.popFront();
+        queue.popFront();
+        queue.pushBack(5);
+        queue.insert(4, 2);
+
+        for (int i = 0; i < 4; i++)
+            Assertions.assertEquals(i + 2, queue.get(i));
+        Assertions.assertThrows(NoSuchElementException.class, () -> queue.insert(0, 5));
+    }
+
+    @Test
+    void removeCircular() {
+        queue.popFront();
+        queue.pushBack(4);
+        queue.remove(1);
+        queue.remove(2);
+
+        Assertions.assertEquals(2, queue.size());
+        Assertions.assertEquals(1, queue.get(0));
+        Assertions.assertEquals(3, queue.get(1));
+    }
+
+    @Test
+    void insertAndRemoveFrontCircular() {
+        queue = new IntCircularFifoQueue(6);
+        for (int i = 0; i < 4; i++)
+            queue.pushBack(i);
+        queue.pushFront(-1);
+        queue.insert(7, 1);
+        Assertions.assertThrows(IllegalStateException.class, () -> queue.pushFront(-2));
+
+        int[] expected = {-1, 7, 0, 1, 2, 3};
+        for (int i = 0; i < expected.length; i++)
+            Assertions.assertEquals(expected[i], queue.get(i));
+
+        queue.remove(1);
+        queue.set(0, -5);
+        Assertions.assertThrows(NoSuchElementException.class, () -> queue.set(5, 0));
+        expected = new int[]{-5, 0, 1, 2, 3};
+        Assertions.assertEquals(expected.length, queue.size());
+        for (int i = 0; i < expected.length; i++)
+            Assertions.assertEquals(expected[i], queue.get(i));
+    }
+
+    @Test
+    void removeFrom() {
+        queue.removeFrom(4);
+        Assertions.assertEquals(4, queue.size());
+        queue.removeFrom(2);
+        Assertions.assertEquals(2, queue.size());
+        queue.removeFrom(-1);
+        Assertions.assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    void splitCircular() {
+        queue = new IntCircularFifoQueue(5);
+        for (int i = 0; i < 5; i++)
+            queue.pushBack(i);
+        queue.popFront();
+        queue.pushBack(5);
+
+        IntCircularFifoQueue secondHalf = queue.split();
+
+        Assertions.assertEquals(2, queue.size());
+        for (int i = 0; i < 2; i++)
+            Assertions.assertEquals(i + 1, queue.get(i));
+
+        Assertions.assertEquals(3, secondHalf.size());
+        for (int i = 0; i < 3; i++)
+            Assertions.assertEquals(i + 3, secondHalf.get(i));
+
+        Assertions.assertThrows(IllegalStateException.class, () -> queue.split());
+    }
+
+    @Test
+    void searchKeys() {
+        Assertions.assertEquals(2, Utils.searchLeftmostKey(queue, 2, queue.size()));
+        Assertions.assertEquals(-5, Utils.searchLeftmostKey(queue, 7, queue.size()));
+        Assertions.assertEquals(-4, Utils.searchRightmostKey(queue, 7, queue.size()));
+        Assertions.assertEquals(-1, Utils.searchRightmostKey(queue, -3, queue.size()));
+    }
+}